@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+
+/**
+ * 
+ * {@link StreamingArray}
+ * 
+ * Builds a response for a (potentially large) array of REST objects, where the objects are produced and written one at a time, rather than 
+ * collected into an array, and then written.  Memory use doesn't grow with the size of the response, and the client starts receiving data as 
+ * soon as the first objects are produced.  The output is the same JSON (or CBOR) array or XML document that would be written for the array.
+ * 
+ * Any validation should be done before the response is built - once the objects are being written, a failure can only truncate the 
+ * response.  The objects are produced while the response is written, after the request thread has cleared its {@link RequestInfo}, so the 
+ * producer is run with a copy of the request.
+ */
+public class StreamingArray
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final int FLUSH_INTERVAL = 50;
+	private static final ConcurrentHashMap<Class<?>, JAXBContext> JAXB_CONTEXTS = new ConcurrentHashMap<>();
+
+	private StreamingArray()
+	{
+		// static utility
+	}
+
+	/**
+	 * Called with each object of the array, in order.
+	 * @param <T> the array element type
+	 */
+	@FunctionalInterface
+	public interface ItemWriter<T>
+	{
+		void write(T item) throws IOException;
+	}
+
+	/**
+	 * Produces the objects of the array, passing each to the writer as it is built.
+	 * @param <T> the array element type
+	 */
+	@FunctionalInterface
+	public interface Producer<T>
+	{
+		void produce(ItemWriter<T> writer) throws Exception;
+	}
+
+	/**
+	 * @param elementType the declared type of the array elements - which may be a base class of the produced objects
+	 * @param headers the headers of the request, to choose between JSON, CBOR and XML
+	 * @param providers the providers of the request, to find the configured JSON mapper
+	 * @param producer the code that builds the objects
+	 * @return the response, which streams the objects
+	 */
+	public static <T> Response build(Class<T> elementType, HttpHeaders headers, Providers providers, Producer<T> producer)
+	{
+		final RequestInfo workerRequest = RequestInfo.get().forWorker();
+		final MediaType type = getRequestedType(headers);
+		final boolean xml = type == MediaType.APPLICATION_XML_TYPE;
+		final ObjectMapper mapper = xml ? null : (type == MyJacksonCborProvider.APPLICATION_CBOR_TYPE ? MyJacksonCborProvider.getMapper()
+				: providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE).getContext(elementType));
+
+		StreamingOutput stream = new StreamingOutput()
+		{
+			@Override
+			public void write(OutputStream output) throws IOException, WebApplicationException
+			{
+				try
+				{
+					RequestInfo.callWith(workerRequest, () -> 
+					{
+						if (xml)
+						{
+							writeXml(elementType, output, producer);
+						}
+						else
+						{
+							writeJson(elementType, mapper, output, producer);
+						}
+						return null;
+					});
+				}
+				catch (IOException | UncheckedIOException e)
+				{
+					// Typically, the client went away
+					log.debug("Streaming response was not completed", e);
+					throw e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+				}
+				catch (Exception e)
+				{
+					log.error("Unexpected error producing a streaming response - the response is incomplete", e);
+					throw new IOException("Unexpected error producing the response", e);
+				}
+			}
+		};
+		return Response.ok(stream, type).build();
+	}
+
+	private static <T> void writeJson(Class<T> elementType, ObjectMapper mapper, OutputStream output, Producer<T> producer) throws Exception
+	{
+		try (SequenceWriter writer = mapper.writerFor(elementType).writeValuesAsArray(output))
+		{
+			int[] count = new int[1];
+			producer.produce(item -> 
+			{
+				writer.write(item);
+				if (++count[0] % FLUSH_INTERVAL == 0)
+				{
+					writer.flush();
+				}
+			});
+		}
+	}
+
+	private static <T> void writeXml(Class<T> elementType, OutputStream output, Producer<T> producer) throws Exception
+	{
+		XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+		try
+		{
+			xmlWriter.writeStartDocument("UTF-8", "1.0");
+			// The same wrapper element that jersey uses for an array
+			xmlWriter.writeStartElement(Introspector.decapitalize(elementType.getSimpleName()) + "s");
+			int[] count = new int[1];
+			producer.produce(item -> 
+			{
+				try
+				{
+					Marshaller marshaller = getJaxbContext(item.getClass()).createMarshaller();
+					marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+					marshaller.marshal(item, xmlWriter);
+					if (++count[0] % FLUSH_INTERVAL == 0)
+					{
+						xmlWriter.flush();
+					}
+				}
+				catch (JAXBException | XMLStreamException e)
+				{
+					throw new IOException("Unable to write " + item.getClass().getSimpleName(), e);
+				}
+			});
+			xmlWriter.writeEndElement();
+			xmlWriter.writeEndDocument();
+			xmlWriter.flush();
+		}
+		finally
+		{
+			xmlWriter.close();
+		}
+	}
+
+	private static JAXBContext getJaxbContext(Class<?> type) throws JAXBException
+	{
+		JAXBContext context = JAXB_CONTEXTS.get(type);
+		if (context == null)
+		{
+			context = JAXBContext.newInstance(type);
+			JAXB_CONTEXTS.put(type, context);
+		}
+		return context;
+	}
+
+	/**
+	 * @return the first of JSON, XML or CBOR that the client accepts, in order of client preference.  JSON if none are accepted.
+	 */
+	private static MediaType getRequestedType(HttpHeaders headers)
+	{
+		for (MediaType mt : headers.getAcceptableMediaTypes())
+		{
+			if (mt.isCompatible(MediaType.APPLICATION_JSON_TYPE))
+			{
+				return MediaType.APPLICATION_JSON_TYPE;
+			}
+			if (mt.isCompatible(MediaType.APPLICATION_XML_TYPE))
+			{
+				return MediaType.APPLICATION_XML_TYPE;
+			}
+			if (mt.isCompatible(MyJacksonCborProvider.APPLICATION_CBOR_TYPE))
+			{
+				return MyJacksonCborProvider.APPLICATION_CBOR_TYPE;
+			}
+		}
+		return MediaType.APPLICATION_JSON_TYPE;
+	}
+}
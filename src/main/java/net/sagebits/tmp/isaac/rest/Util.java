@@ -44,6 +44,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
+import net.sagebits.tmp.isaac.rest.cache.DescriptionCache;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import sh.isaac.api.Get;
 import sh.isaac.api.Status;
@@ -121,7 +122,30 @@ public class Util
 		return readBestDescription(conceptId, sc, RequestInfo.get().getLanguageCoordinate());
 	}
 
+	/**
+	 * Read the best description for the concept, per the passed in coordinates.  The result is cached for the duration of the request 
+	 * (and possibly, across requests, until the next commit) - see {@link DescriptionCache}.
+	 * @param conceptNid
+	 * @param sc
+	 * @param lc
+	 * @return the description text, or null, if none is available
+	 */
 	public static String readBestDescription(int conceptNid, StampCoordinate sc, LanguageCoordinate lc)
+	{
+		return RequestInfo.get().getDescriptionCache().get(conceptNid, sc, lc, () -> readBestDescriptionNoCache(conceptNid, sc, lc));
+	}
+
+	/**
+	 * A cached variation of {@link Get#conceptDescriptionText(int)}, which uses the system default coordinates.
+	 * @param conceptNid
+	 * @return the description text
+	 */
+	public static String conceptDescriptionText(int conceptNid)
+	{
+		return RequestInfo.get().getDescriptionCache().get(conceptNid, null, null, () -> Get.conceptDescriptionText(conceptNid));
+	}
+
+	private static String readBestDescriptionNoCache(int conceptNid, StampCoordinate sc, LanguageCoordinate lc)
 	{
 		LatestVersion<DescriptionVersion> descriptionOptional = lc.getDescription(Get.assemblageService().getDescriptionsForComponent(conceptNid), sc);
 
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.api.data;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
+import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+
+/**
+ * {@link PageCursor}
+ * 
+ * An opaque continuation cursor for keyset pagination.  Carries the page number that was returned, the last nid that was consumed to build
+ * that page, and a fingerprint of the query (assemblages, coordinates, etc) that produced the page, so that the next page can resume
+ * directly after the last nid, rather than re-reading all of the prior pages.
+ */
+public class PageCursor
+{
+	private static final byte cursorVersion = 1;
+
+	private final int pageNum;
+	private final int lastNid;
+	private final int fingerprint;
+
+	/**
+	 * @param pageNum the page that was returned
+	 * @param lastNid the last nid that was read for that page
+	 * @param fingerprint a hash of the query parameters that produced the page
+	 */
+	public PageCursor(int pageNum, int lastNid, int fingerprint)
+	{
+		this.pageNum = pageNum;
+		this.lastNid = lastNid;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * @param cursor a cursor created by {@link #serialize()}
+	 * @param expectedFingerprint the fingerprint of the query the cursor is being used with
+	 * @return the parsed cursor
+	 * @throws RestException if the cursor is invalid, or was created by a different query
+	 */
+	public static PageCursor read(String cursor, int expectedFingerprint) throws RestException
+	{
+		PageCursor pc;
+		try
+		{
+			ByteBuffer bb = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor.trim()));
+			if (bb.get() != cursorVersion)
+			{
+				throw new RestException(RequestParameters.cursor, cursor, "Unsupported cursor version");
+			}
+			pc = new PageCursor(bb.getInt(), bb.getInt(), bb.getInt());
+		}
+		catch (IllegalArgumentException | BufferUnderflowException e)
+		{
+			throw new RestException(RequestParameters.cursor, cursor, "Invalid cursor");
+		}
+		if (pc.fingerprint != expectedFingerprint)
+		{
+			throw new RestException(RequestParameters.cursor, cursor, "The cursor was created by a request with different parameters or coordinates");
+		}
+		return pc;
+	}
+
+	/**
+	 * @return the url-safe string form of this cursor
+	 */
+	public String serialize()
+	{
+		ByteBuffer bb = ByteBuffer.allocate(13);
+		bb.put(cursorVersion);
+		bb.putInt(pageNum);
+		bb.putInt(lastNid);
+		bb.putInt(fingerprint);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bb.array());
+	}
+
+	/**
+	 * @return the page number that was returned with this cursor
+	 */
+	public int getPageNum()
+	{
+		return pageNum;
+	}
+
+	/**
+	 * @return the last nid read to build the page returned with this cursor
+	 */
+	public int getLastNid()
+	{
+		return lastNid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "PageCursor [pageNum=" + pageNum + ", lastNid=" + lastNid + ", fingerprint=" + fingerprint + "]";
+	}
+}
@@ -32,6 +32,7 @@ package net.sagebits.tmp.isaac.rest.api.data;
 
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
@@ -78,6 +79,15 @@ public class Pagination
 	@XmlElement
 	public boolean totalIsExact;
 
+	/**
+	 * An opaque cursor, which may be passed as the 'cursor' parameter (along with the same coordinates) to retrieve the next 
+	 * page.  Reading with a cursor is faster than reading by pageNum, as the read resumes directly after the last item of this page.
+	 * Only provided by methods that support cursors, and only when there are more pages.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String nextCursor;
+
 	protected Pagination()
 	{
 		//For jaxb
@@ -93,6 +103,22 @@ public class Pagination
 	 * @throws RestException
 	 */
 	public Pagination(int pageNum, int maxPageSize, int approximateTotal, boolean totalIsExact, boolean hasMorePages, String baseUrl) throws RestException
+	{
+		this(pageNum, maxPageSize, approximateTotal, totalIsExact, hasMorePages, baseUrl, null);
+	}
+
+	/**
+	 * @param pageNum page number index > 0
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal total size of set of which this page is a subset. May be affected by filtering.
+	 * @param totalIsExact 
+	 * @param hasMorePages 
+	 * @param baseUrl base URL used to construct and return example previous and next URLs
+	 * @param nextCursor (optional) the cursor for reading the next page.  If provided, it is also included in the nextUrl.
+	 * @throws RestException
+	 */
+	public Pagination(int pageNum, int maxPageSize, int approximateTotal, boolean totalIsExact, boolean hasMorePages, String baseUrl, String nextCursor)
+			throws RestException
 	{
 		PaginationUtils.validateParameters(pageNum, maxPageSize);
 
@@ -117,6 +143,11 @@ public class Pagination
 		{
 			this.nextUrl = baseUrl + (baseUrlHasParams ? "&" : "?") + RequestParameters.pageNum + "=" + (this.pageNum + 1) + "&" + RequestParameters.maxPageSize
 					+ "=" + maxPageSize;
+			if (nextCursor != null)
+			{
+				this.nextCursor = nextCursor;
+				this.nextUrl += "&" + RequestParameters.cursor + "=" + nextCursor;
+			}
 		}
 		else
 		{
@@ -131,6 +162,6 @@ public class Pagination
 	public String toString()
 	{
 		return "Pagination [previousUrl=" + previousUrl + ", nextUrl=" + nextUrl + ", pageNum=" + pageNum + ", approximateTotal=" + approximateTotal
-				+ ", totalIsExact=" + totalIsExact + "]";
+				+ ", totalIsExact=" + totalIsExact + ", nextCursor=" + nextCursor + "]";
 	}
 }
\ No newline at end of file
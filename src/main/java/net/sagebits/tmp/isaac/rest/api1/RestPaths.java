@@ -61,10 +61,13 @@ public class RestPaths
 	public static final String componentComponent = "component/";
 	public static final String semanticsComponent = "semantics/";
 	public static final String prefixComponent = "prefix/";
+	public static final String typeaheadComponent = "typeahead/";
+	public static final String batchComponent = "batch/";
 	public static final String forAssemblageComponent = "forAssemblage/";
 	public static final String forReferencedComponentComponent = "forReferencedComponent/";
 	public static final String semanticDefinitionComponent = "semanticDefinition/";
 	public static final String systemInfoComponent = "systemInfo/";
+	public static final String cacheStatisticsComponent = "cacheStatistics/";
 	public static final String termRequestComponent = "termRequest/";
 	public static final String userComponent = "user/";
 	public static final String vetsXMLComponent = "vetsXML/";
@@ -121,6 +124,7 @@ public class RestPaths
 	public static final String associationItemComponent = "item/";
 	public static final String associationsComponent = "types/";
 	public static final String associationsWithTypeComponent = "withType/";
+	public static final String associationsWithTypeCountComponent = "withTypeCount/";
 	public static final String associationsWithSourceComponent = "withSource/";
 	public static final String associationsWithTargetComponent = "withTarget/";
 
@@ -31,12 +31,13 @@
 package net.sagebits.tmp.isaac.rest.api1.association;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -45,14 +46,27 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Providers;
+import org.apache.commons.lang3.StringUtils;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
+import net.sagebits.tmp.isaac.rest.StreamingArray;
+import net.sagebits.tmp.isaac.rest.api.data.PageCursor;
+import net.sagebits.tmp.isaac.rest.api.data.PaginationUtils;
+import net.sagebits.tmp.isaac.rest.api.data.RestInteger;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.association.RestAssociationItemVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.association.RestAssociationItemVersionPage;
 import net.sagebits.tmp.isaac.rest.api1.data.association.RestAssociationTypeVersion;
+import net.sagebits.tmp.isaac.rest.cache.AssemblageNidCache;
+import net.sagebits.tmp.isaac.rest.cache.AssociationTargetIndex;
+import net.sagebits.tmp.isaac.rest.cache.CommitWatcher;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
@@ -60,6 +74,7 @@ import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.api.Get;
 import sh.isaac.api.chronicle.LatestVersion;
 import sh.isaac.api.component.semantic.version.DynamicVersion;
+import sh.isaac.api.coordinate.StampCoordinate;
 import sh.isaac.api.util.AlphanumComparator;
 import sh.isaac.misc.associations.AssociationInstance;
 import sh.isaac.misc.associations.AssociationType;
@@ -75,9 +90,25 @@ import sh.isaac.misc.associations.AssociationUtilities;
 		SystemRoleConstants.EDITOR, SystemRoleConstants.READ })
 public class AssociationAPIs
 {
+	/**
+	 * Visible association counts, keyed by the association type nid and the coordinates token that the count was computed on.
+	 */
+	private static final StripedCache<String, Integer> VISIBLE_COUNT_CACHE = new StripedCache<>("Association counts by type and coordinates", 256);
+
+	static
+	{
+		CommitWatcher.addChangeListener(() -> VISIBLE_COUNT_CACHE.clear());
+	}
+
 	@Context
 	private SecurityContext securityContext;
 
+	@Context
+	private HttpHeaders headers;
+
+	@Context
+	private Providers providers;
+
 	/**
 	 * Get all defined association types in the system.
 	 * 
@@ -94,7 +125,7 @@ public class AssociationAPIs
 	 */
 	// TODO add a filter capability to this by terminology
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationsComponent)
 	public RestAssociationTypeVersion[] getAssociations(@QueryParam(RequestParameters.coordToken) String coordToken, 
 			@QueryParam(RequestParameters.expand) String expand, @QueryParam(RequestParameters.altId) String altId) throws RestException
@@ -146,7 +177,7 @@ public class AssociationAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationComponent + "{" + RequestParameters.id + "}")
 	public RestAssociationTypeVersion getAssociationType(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.expand) String expand,
@@ -162,12 +193,17 @@ public class AssociationAPIs
 	}
 
 	/**
-	 * Return all instances of a particular type of association. This may return a very large result. The returned pagination data
-	 * will return an exact number of total results (not an estimate, as indicated in the API)
+	 * Return all instances of a particular type of association. This may return a very large result. Reading of the association stops as 
+	 * soon as the requested page is filled.  If the number of associations visible on the coordinates is already known (from a prior call to 
+	 * {@link #getAssociationCountOfType(String, String)}, or from a prior paged read that reached the end of the associations) the 
+	 * pagination data will return the exact total.  Otherwise, the total will be the number of association instances of the type, ignoring
+	 * the coordinates, and totalIsExact will be false.
 	 * 
 	 * @param id - A UUID or nid of a concept that defines an association type
-	 * @param pageNum The pagination page number >= 1 to return
+	 * @param pageNum The pagination page number >= 1 to return.  Ignored, if a cursor is provided.
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor - (optional) the nextCursor value from the paginationData of a prior page.  When provided, reading resumes directly after
+	 *            the prior page, which is much faster than reading deep pages by pageNum.  Must be used with the same coordinates as the prior page.
 	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may
 	 *            be obtained by a separate (prior) call to getCoordinatesToken().
 	 * @param expand - the optional items to be expanded. Supports 'source', 'target', 'nestedSemantics'
@@ -181,63 +217,125 @@ public class AssociationAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationsWithTypeComponent + "{" + RequestParameters.id + "}")
 	public RestAssociationItemVersionPage getAssociationsOfType(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.expand,
-				RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
+				RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.cursor, RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
 		
 		RequestInfo.get().validateMethodExpansions(ExpandUtil.source, ExpandUtil.target, ExpandUtil.nestedSemanticsExpandable,  
 				ExpandUtil.versionsLatestOnlyExpandable, ExpandUtil.referencedDetails, ExpandUtil.chronologyExpandable);
 
-		ArrayList<RestAssociationItemVersion> results;
-		try
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+
+		int associationTypeNid = RequestInfoUtils.getConceptNidFromParameter(RequestParameters.id, id);
+		StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+		String countKey = countKey(associationTypeNid);
+		long changeSequence = CommitWatcher.getChangeSequence();
+
+		// Sorted, so that a page can resume after the last nid of the prior page (keyset pagination)
+		int[] associationNids = AssemblageNidCache.getSortedSemanticNids(associationTypeNid);
+		int fingerprint = Objects.hash(associationTypeNid, RequestInfo.get().getCoordinatesToken().getSerialized());
+
+		int startIndex = 0;
+		int page = pageNum;
+		// When reading by pageNum rather than cursor, we still have to read through all of the prior pages, as the stamp may filter items.
+		int toSkip = (pageNum - 1) * maxPageSize;
+		if (StringUtils.isNotBlank(cursor))
 		{
-			results = new ArrayList<>();
-			AtomicInteger total = new AtomicInteger(0);
-			int start = (pageNum * maxPageSize) - maxPageSize;
-			Get.assemblageService().getSemanticChronologyStream(RequestInfoUtils.getConceptNidFromParameter(RequestParameters.id, id)).forEach(associationC -> {
-				total.incrementAndGet();
-				try
+			PageCursor pageCursor = PageCursor.read(cursor, fingerprint);
+			int pos = Arrays.binarySearch(associationNids, pageCursor.getLastNid());
+			startIndex = pos >= 0 ? pos + 1 : -(pos + 1);
+			page = pageCursor.getPageNum() + 1;
+			toSkip = 0;
+		}
+
+		ArrayList<RestAssociationItemVersion> results = new ArrayList<>();
+		int visibleRead = 0;
+		int index = startIndex;
+		int lastNid = 0;
+		while (index < associationNids.length && results.size() < maxPageSize)
+		{
+			lastNid = associationNids[index++];
+			LatestVersion<DynamicVersion<?>> latest = Get.assemblageService().getSemanticChronology(lastNid).getLatestVersion(stamp);
+			if (latest.isPresent())
+			{
+				visibleRead++;
+				if (toSkip > 0)
 				{
-					LatestVersion<DynamicVersion<?>> latest = associationC.getLatestVersion(RequestInfo.get().getStampCoordinate());
-					if (latest.isPresent())
-					{
-						if (total.get() <= start || results.size() >= maxPageSize)
-						{
-							// noop - can't short-circuit (plus want the count)
-						}
-						else
-						{
-							results.add(new RestAssociationItemVersion(AssociationInstance.read(latest.get(), RequestInfo.get().getStampCoordinate())));
-						}
-					}
+					toSkip--;
 				}
-				catch (Exception e)
+				else
 				{
-					throw new RuntimeException(e);
+					results.add(new RestAssociationItemVersion(AssociationInstance.read(latest.get(), stamp)));
 				}
-			});
-			return new RestAssociationItemVersionPage(pageNum, maxPageSize, total.get(), true, total.get() > (pageNum * maxPageSize),
-					RestPaths.associationAPIsPathComponent + RestPaths.associationsWithTypeComponent + id,
-					results.toArray(new RestAssociationItemVersion[results.size()]));
+			}
 		}
-		catch (RuntimeException e)
+
+		// Look ahead for an association that the next page would return, rather than report a next page that is empty.
+		boolean hasMore = false;
+		for (int next = index; next < associationNids.length && !hasMore; next++)
 		{
-			if (e.getCause() != null && e.getCause() instanceof RestException)
-			{
-				throw (RestException) e.getCause();
-			}
-			else
+			hasMore = Get.assemblageService().getSemanticChronology(associationNids[next]).getLatestVersion(stamp).isPresent();
+		}
+		if (!hasMore && startIndex == 0 && changeSequence == CommitWatcher.getChangeSequence())
+		{
+			// We read everything from the start, so we know the exact count for free.
+			VISIBLE_COUNT_CACHE.put(countKey, visibleRead);
+		}
+
+		Integer knownTotal = VISIBLE_COUNT_CACHE.get(countKey);
+		return new RestAssociationItemVersionPage(page, maxPageSize, knownTotal == null ? associationNids.length : knownTotal.intValue(), 
+				knownTotal != null, hasMore, RestPaths.associationAPIsPathComponent + RestPaths.associationsWithTypeComponent + id,
+				hasMore ? new PageCursor(page, lastNid, fingerprint).serialize() : null,
+				results.toArray(new RestAssociationItemVersion[results.size()]));
+	}
+
+	/**
+	 * Return the number of instances of a particular type of association that are visible on the specified coordinates.  The count is
+	 * cached (until the next commit), so that it can be reused across the pages of {@link #getAssociationsOfType(String, int, int, String, 
+	 * String, String, String)}.
+	 * 
+	 * @param id - A UUID or nid of a concept that defines an association type
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may
+	 *            be obtained by a separate (prior) call to getCoordinatesToken().
+	 * @return the number of association instances of type associationType, which have a latest version on the coordinates.
+	 * 
+	 * @throws RestException
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
+	@Path(RestPaths.associationsWithTypeCountComponent + "{" + RequestParameters.id + "}")
+	public RestInteger getAssociationCountOfType(@PathParam(RequestParameters.id) String id,
+			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
+	{
+		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
+
+		int associationTypeNid = RequestInfoUtils.getConceptNidFromParameter(RequestParameters.id, id);
+		StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+		return new RestInteger(CommitWatcher.readThrough(VISIBLE_COUNT_CACHE, countKey(associationTypeNid), key -> 
+		{
+			int count = 0;
+			for (int nid : AssemblageNidCache.getSortedSemanticNids(associationTypeNid))
 			{
-				throw e;
+				if (Get.assemblageService().getSemanticChronology(nid).getLatestVersion(stamp).isPresent())
+				{
+					count++;
+				}
 			}
-		}
+			return count;
+		}));
+	}
+
+	private static String countKey(int associationTypeNid) throws RestException
+	{
+		return associationTypeNid + ":" + RequestInfo.get().getCoordinatesToken().getSerialized();
 	}
 
 	/**
@@ -253,14 +351,15 @@ public class AssociationAPIs
 	 * @param altId - (optional) the altId type(s) to populate in any returned RestIdentifiedObject structures.  By default, no alternate IDs are 
 	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
 	 *     performance. 
-	 * @return the latest version of each unique association that has a source component equal to 'id'
+	 * @return the latest version of each unique association that has a source component equal to 'id', as an array of 
+	 *     RestAssociationItemVersion, which is streamed as each association is read.
 	 * 
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationsWithSourceComponent + "{" + RequestParameters.id + "}")
-	public RestAssociationItemVersion[] getSourceAssociations(@PathParam(RequestParameters.id) String id,
+	public Response getSourceAssociations(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
@@ -272,13 +371,13 @@ public class AssociationAPIs
 
 		List<AssociationInstance> results = AssociationUtilities.getSourceAssociations(RequestInfoUtils.getNidFromParameter(RequestParameters.id, id),
 				RequestInfo.get().getStampCoordinate());
-		RestAssociationItemVersion[] finalResult = new RestAssociationItemVersion[results.size()];
-		for (int i = 0; i < results.size(); i++)
+		return StreamingArray.build(RestAssociationItemVersion.class, headers, providers, writer -> 
 		{
-			finalResult[i] = new RestAssociationItemVersion(results.get(i));
-		}
-		return finalResult;
-
+			for (AssociationInstance ai : results)
+			{
+				writer.write(new RestAssociationItemVersion(ai));
+			}
+		});
 	}
 
 	/**
@@ -299,7 +398,7 @@ public class AssociationAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationsWithTargetComponent + "{" + RequestParameters.id + "}")
 	public RestAssociationItemVersion[] getTargetAssociations(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.expand) String expand,
@@ -311,8 +410,8 @@ public class AssociationAPIs
 		RequestInfo.get().validateMethodExpansions(ExpandUtil.source, ExpandUtil.target, ExpandUtil.nestedSemanticsExpandable, 
 				ExpandUtil.referencedDetails, ExpandUtil.chronologyExpandable, ExpandUtil.versionsLatestOnlyExpandable);
 
-		// TODO Dan lookup by target performance is not good at the moment, not sure why
-		List<AssociationInstance> results = AssociationUtilities.getTargetAssociations(RequestInfoUtils.getNidFromParameter(RequestParameters.id, id),
+		// The target is in the dynamic data, rather than the referenced component, so this goes through the target index, rather than a scan.
+		List<AssociationInstance> results = AssociationTargetIndex.getTargetAssociations(RequestInfoUtils.getNidFromParameter(RequestParameters.id, id),
 				RequestInfo.get().getStampCoordinate());
 		RestAssociationItemVersion[] finalResult = new RestAssociationItemVersion[results.size()];
 		for (int i = 0; i < results.size(); i++)
@@ -343,7 +442,7 @@ public class AssociationAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationItemComponent + "{" + RequestParameters.id + "}")
 	public RestAssociationItemVersion getAssociation(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.expand) String expand, @QueryParam(RequestParameters.altId) String altId) throws RestException
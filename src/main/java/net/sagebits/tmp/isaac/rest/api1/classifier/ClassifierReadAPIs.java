@@ -30,14 +30,19 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Providers;
 import org.apache.commons.lang3.StringUtils;
+import net.sagebits.tmp.isaac.rest.StreamingArray;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.classifier.ClassifierResult;
 import net.sagebits.tmp.isaac.rest.api1.data.classifier.ClassifierRunStorage;
 import net.sagebits.tmp.isaac.rest.api1.data.classifier.RestClassifierResult;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
@@ -56,6 +61,12 @@ public class ClassifierReadAPIs
 	@Context
 	private SecurityContext securityContext;
 
+	@Context
+	private HttpHeaders headers;
+
+	@Context
+	private Providers providers;
+
 	/**
 	 * Get the current information on the specified classifier run
 	 * @param id - The ID of a classifier run.  These UUIDs are returned via the call that launches the classifier.
@@ -70,7 +81,7 @@ public class ClassifierReadAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.classification + "{" + RequestParameters.id + "}")
 	public RestClassifierResult read(@PathParam(RequestParameters.id) String id, 
 			@QueryParam(RequestParameters.largeResults) @DefaultValue("false") String largeResults, 
@@ -108,13 +119,14 @@ public class ClassifierReadAPIs
 	 * @param altId - (optional) the altId type(s) to populate in any returned RestIdentifiedObject structures.  By default, no alternate IDs are 
 	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
 	 *     performance. 
-	 * @return The details on all of the classifications that have occurred.
+	 * @return The details on all of the classifications that have occurred, as an array of RestClassifierResult, which is streamed as each 
+	 *     result is built.
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.classifications)
-	public RestClassifierResult[] readAll(@QueryParam(RequestParameters.largeResults) @DefaultValue("false") String largeResults,  
+	public Response readAll(@QueryParam(RequestParameters.largeResults) @DefaultValue("false") String largeResults,  
 			@QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
@@ -125,11 +137,12 @@ public class ClassifierReadAPIs
 		Collections.sort(cr);
 		boolean limitResults = !Boolean.parseBoolean(largeResults.trim());
 		
-		RestClassifierResult[] rcr = new RestClassifierResult[cr.size()];
-		for(int i = 0; i < rcr.length; i++)
+		return StreamingArray.build(RestClassifierResult.class, headers, providers, writer -> 
 		{
-			rcr[i] = new RestClassifierResult(cr.get(i), limitResults);
-		}
-		return rcr;
+			for (ClassifierResult result : cr)
+			{
+				writer.write(new RestClassifierResult(result, limitResults));
+			}
+		});
 	}
 }
\ No newline at end of file
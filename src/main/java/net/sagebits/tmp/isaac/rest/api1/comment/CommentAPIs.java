@@ -48,6 +48,7 @@ import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.comment.RestCommentVersion;
 import net.sagebits.tmp.isaac.rest.api1.semantic.SemanticAPIs;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
@@ -85,7 +86,7 @@ public class CommentAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id + "}")
 	public RestCommentVersion getCommentVersion(@PathParam(RequestParameters.id) String id,@QueryParam(RequestParameters.coordToken) String coordToken) 
 			throws RestException
@@ -116,7 +117,7 @@ public class CommentAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionComponent + RestPaths.forReferencedComponentComponent + "{" + RequestParameters.id + "}")
 	public RestCommentVersion[] getCommentsForReferencedItem(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
@@ -59,8 +59,10 @@ import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticDescriptionVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticVersion;
 import net.sagebits.tmp.isaac.rest.api1.semantic.SemanticAPIs;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.filters.ConditionalGet;
 import sh.isaac.MetaData;
 import sh.isaac.api.Get;
 import sh.isaac.api.chronicle.LatestVersion;
@@ -128,8 +130,9 @@ public class ConceptAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestConceptVersion getConceptVersion(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.includeParents) @DefaultValue("false") String includeParents,
 			@QueryParam(RequestParameters.countParents) @DefaultValue("false") String countParents,
@@ -184,7 +187,7 @@ public class ConceptAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.chronologyComponent + "{" + RequestParameters.id + "}")
 	public RestConceptChronology getConceptChronology(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.terminologyType) @DefaultValue("false") String terminologyType,
@@ -262,7 +265,7 @@ public class ConceptAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.descriptionsComponent + "{" + RequestParameters.id + "}")
 	public RestSemanticDescriptionVersion[] getDescriptions(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.includeAttributes) @DefaultValue(RequestParameters.includeAttributesDefault) String includeAttributes,
@@ -343,7 +346,7 @@ public class ConceptAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionsComponent + "{" + RequestParameters.id + "}")
 	public RestStampedVersion[] getStampsForConcept(@PathParam(RequestParameters.id) String id) throws RestException
 	{
@@ -55,6 +55,7 @@ import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestLanguageCoordinate;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestLogicCoordinate;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestManifoldCoordinate;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestStampCoordinate;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
@@ -130,7 +131,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.coordinatesTokenComponent)
 	public RestCoordinatesToken getCoordinatesToken(@QueryParam(RequestParameters.coordToken) String coordToken,
 
@@ -175,7 +176,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.coordinatesComponent)
 	public RestCoordinates getCoordinates(@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -210,7 +211,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.taxonomyCoordinatePathComponent)
 	public RestManifoldCoordinate getTaxonomyCoordinate(@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -237,7 +238,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.stampCoordinatePathComponent)
 	public RestStampCoordinate getStampCoordinate(@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -264,7 +265,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.languageCoordinatePathComponent)
 	public RestLanguageCoordinate getLanguageCoordinate(@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -291,7 +292,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.logicCoordinatePathComponent)
 	public RestLogicCoordinate getLogicCoordinate(@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -332,7 +333,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.editTokenComponent)
 	@RolesAllowed({ SystemRoleConstants.AUTOMATED, SystemRoleConstants.ADMINISTRATOR, SystemRoleConstants.SYSTEM_MANAGER, SystemRoleConstants.CONTENT_MANAGER,
 		SystemRoleConstants.EDITOR})
@@ -401,7 +402,7 @@ public class CoordinateAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.editModule + "{" + RequestParameters.id + "}")
 	public RestIdentifiedObject getEditModule(@PathParam(RequestParameters.id) String id) throws RestException
 	{
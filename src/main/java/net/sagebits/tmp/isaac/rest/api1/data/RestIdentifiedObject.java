@@ -32,7 +32,6 @@ package net.sagebits.tmp.isaac.rest.api1.data;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -42,18 +41,14 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import net.sagebits.tmp.isaac.rest.ApplicationConfig;
-import net.sagebits.tmp.isaac.rest.api1.data.enumerations.IdType;
+import net.sagebits.tmp.isaac.rest.Util;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestObjectChronologyType;
-import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType;
+import net.sagebits.tmp.isaac.rest.cache.IdentifierCache;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import sh.isaac.api.Get;
 import sh.isaac.api.chronicle.Chronology;
-import sh.isaac.api.chronicle.LatestVersion;
 import sh.isaac.api.component.concept.ConceptChronology;
 import sh.isaac.api.component.semantic.SemanticChronology;
-import sh.isaac.api.component.semantic.version.DescriptionVersion;
-import sh.isaac.api.component.semantic.version.StringVersion;
-import sh.isaac.api.coordinate.StampCoordinate;
 import sh.isaac.api.externalizable.IsaacObjectType;
 
 /**
@@ -129,7 +124,7 @@ public class RestIdentifiedObject
 		type = new RestObjectChronologyType(IsaacObjectType.CONCEPT);
 		if (ApplicationConfig.getInstance().isDebugDeploy())
 		{
-			description = Get.conceptDescriptionText(nid);
+			description = Util.conceptDescriptionText(nid);
 		}
 		populateAltIds();
 	}
@@ -143,12 +138,12 @@ public class RestIdentifiedObject
 		if (Get.identifierService().hasUuid(uuid))
 		{
 			nid = Get.identifierService().getNidForUuids(uuid);
-			uuids.addAll(Get.identifierService().getUuidsForNid(nid));
-			IsaacObjectType internalType = Get.identifierService().getObjectTypeForComponent(nid);
+			uuids.addAll(IdentifierCache.getUuids(nid));
+			IsaacObjectType internalType = IdentifierCache.getObjectType(nid);
 			type = new RestObjectChronologyType(internalType);
 			if (internalType == IsaacObjectType.CONCEPT)
 			{
-				description = Get.conceptDescriptionText(nid);
+				description = Util.conceptDescriptionText(nid);
 			}
 		}
 		else
@@ -178,7 +173,7 @@ public class RestIdentifiedObject
 					nid = Get.identifierService().getNidForUuids(uuid);
 					if (ApplicationConfig.getInstance().isDebugDeploy())
 					{
-						description = Get.conceptDescriptionText(nid);
+						description = Util.conceptDescriptionText(nid);
 					}
 					break;
 				case SEMANTIC:
@@ -187,7 +182,7 @@ public class RestIdentifiedObject
 				default :
 					throw new RuntimeException("Unexpected case");
 			}
-			uuids.addAll(Get.identifierService().getUuidsForNid(nid));
+			uuids.addAll(IdentifierCache.getUuids(nid));
 			populateAltIds();
 		}
 	}
@@ -201,12 +196,12 @@ public class RestIdentifiedObject
 		if (Get.identifierService().hasUuid(uuids))
 		{
 			nid = Get.identifierService().getNidForUuids(uuids);
-			this.uuids.addAll(Get.identifierService().getUuidsForNid(nid));
-			IsaacObjectType internalType = Get.identifierService().getObjectTypeForComponent(nid);
+			this.uuids.addAll(IdentifierCache.getUuids(nid));
+			IsaacObjectType internalType = IdentifierCache.getObjectType(nid);
 			type = new RestObjectChronologyType(internalType);
 			if (internalType == IsaacObjectType.CONCEPT)
 			{
-				description = Get.conceptDescriptionText(nid);
+				description = Util.conceptDescriptionText(nid);
 			}
 			populateAltIds();
 		}
@@ -227,7 +222,7 @@ public class RestIdentifiedObject
 				type = new RestObjectChronologyType(IsaacObjectType.CONCEPT);
 				if (ApplicationConfig.getInstance().isDebugDeploy())
 				{
-					description = Get.conceptDescriptionText(nid);
+					description = Util.conceptDescriptionText(nid);
 				}
 				break;
 			case SEMANTIC:
@@ -248,8 +243,11 @@ public class RestIdentifiedObject
 			case CONCEPT:
 				if (ApplicationConfig.getInstance().isDebugDeploy())
 				{
-					LatestVersion<DescriptionVersion> ldv = RequestInfo.get().getLanguageCoordinate().getDescription(id, RequestInfo.get().getStampCoordinate());
-					description = ldv.isPresent() ? ldv.get().getText() : Get.conceptDescriptionText(id);
+					description = Util.readBestDescription(id);
+					if (description == null)
+					{
+						description = Util.conceptDescriptionText(id);
+					}
 				}
 				break;
 			case SEMANTIC:
@@ -258,7 +256,7 @@ public class RestIdentifiedObject
 			default :
 				throw new RuntimeException("Unexpected case");
 		}
-		uuids.addAll(Get.identifierService().getUuidsForNid(nid));
+		uuids.addAll(IdentifierCache.getUuids(nid));
 		populateAltIds();
 	}
 
@@ -267,12 +265,12 @@ public class RestIdentifiedObject
 		if (id < 0)
 		{
 			this.nid = id;
-			uuids.addAll(Get.identifierService().getUuidsForNid(nid));
-			IsaacObjectType internalType = Get.identifierService().getObjectTypeForComponent(nid);
+			uuids.addAll(IdentifierCache.getUuids(nid));
+			IsaacObjectType internalType = IdentifierCache.getObjectType(nid);
 			type = new RestObjectChronologyType(internalType);
 			if (internalType == IsaacObjectType.CONCEPT)
 			{
-				description = Get.conceptDescriptionText(nid);
+				description = Util.conceptDescriptionText(nid);
 			}
 			populateAltIds();
 		}
@@ -293,27 +291,12 @@ public class RestIdentifiedObject
 		{
 			return;
 		}
-		StampCoordinate sc = RequestInfo.get().getStampCoordinate();
-		ArrayList<RestId> result = new ArrayList<>();
-		for (RestSupportedIdType rsit : RequestInfo.get().getRequestedAdditionalIds())
+		if (RequestInfo.get().getRequestedAdditionalIds().isEmpty())
 		{
-			if (rsit.enumName.equals(IdType.NID.name()) || rsit.enumName.equals(IdType.UUID.name()))
-			{
-				//Ignore these, they will already be populated in this class.
-			}
-			else
-			{
-				//All other types would come from attached identifier semantics.
-				Optional<SemanticChronology> item = Get.assemblageService().getSemanticChronologyStreamForComponentFromAssemblage(nid, rsit.enumId).findAny();
-				if (item.isPresent())
-				{
-					item.get().getLatestVersion(sc).ifPresent(cv -> 
-					{
-						result.add(new RestId(rsit, ((StringVersion)cv).getString()));
-					});
-				}
-			}
+			return;
 		}
+		//nid and uuid types will already be populated in this class - the cache ignores them.
+		List<RestId> result = IdentifierCache.getAltIds(nid, RequestInfo.get().getStampCoordinate(), RequestInfo.get().getRequestedAdditionalIds());
 		if (result.size() > 0)
 		{
 			altIDs = result;
@@ -36,6 +36,7 @@ import javax.xml.bind.annotation.XmlTransient;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestStateType;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
 import sh.isaac.api.Get;
 import sh.isaac.api.commit.Stamp;
 import sh.isaac.api.identity.StampedVersion;
@@ -50,6 +51,10 @@ import sh.isaac.api.identity.StampedVersion;
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
 public class RestStampedVersion implements Comparable<RestStampedVersion>
 {
+	// Built stamp data, by stamp sequence.  The cached instances are only used as templates to copy from, they are never returned.
+	// Only committed stamps are cached, as the sequence of a committed stamp never changes meaning.
+	private static final StripedCache<Integer, RestStampedVersion> STAMP_CACHE = new StripedCache<>("Stamps by stamp sequence", 50000);
+
 	/**
 	 * The Status of this version (active, inactive, primordial or cancelled)
 	 */
@@ -93,11 +98,36 @@ public class RestStampedVersion implements Comparable<RestStampedVersion>
 
 	public RestStampedVersion(StampedVersion sv)
 	{
-		state = new RestStateType(sv.getStatus());
-		time = sv.getTime();
-		authorUUID = Get.identifierService().getUuidPrimordialForNid(sv.getAuthorNid());
-		pathUUID = Get.identifierService().getUuidPrimordialForNid(sv.getPathNid());
-		moduleUUID = Get.identifierService().getUuidPrimordialForNid(sv.getModuleNid());
+		RestStampedVersion cached = STAMP_CACHE.get(sv.getStampSequence());
+		if (cached != null)
+		{
+			state = cached.state;
+			time = cached.time;
+			authorUUID = cached.authorUUID;
+			pathUUID = cached.pathUUID;
+			moduleUUID = cached.moduleUUID;
+		}
+		else
+		{
+			state = new RestStateType(sv.getStatus());
+			time = sv.getTime();
+			authorUUID = Get.identifierService().getUuidPrimordialForNid(sv.getAuthorNid());
+			pathUUID = Get.identifierService().getUuidPrimordialForNid(sv.getPathNid());
+			moduleUUID = Get.identifierService().getUuidPrimordialForNid(sv.getModuleNid());
+			if (time != Long.MAX_VALUE)
+			{
+				STAMP_CACHE.put(sv.getStampSequence(), new RestStampedVersion(this));
+			}
+		}
+	}
+
+	private RestStampedVersion(RestStampedVersion copyFrom)
+	{
+		state = copyFrom.state;
+		time = copyFrom.time;
+		authorUUID = copyFrom.authorUUID;
+		pathUUID = copyFrom.pathUUID;
+		moduleUUID = copyFrom.moduleUUID;
 	}
 
 	public RestStampedVersion(Stamp s)
@@ -84,6 +84,24 @@ public class RestAssociationItemVersionPage
 		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, totalIsExact, hasMorePages, baseUrl);
 	}
 
+	/**
+	 * @param pageNum The pagination page number >= 1 to return
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal approximate size of full matching set of which this paginated result is a subset
+	 * @param totalIsExact 
+	 * @param hasMorePages 
+	 * @param baseUrl url used to construct example previous and next urls
+	 * @param nextCursor (optional) the cursor to pass to read the next page
+	 * @param results list of RestSearchResult
+	 * @throws RestException
+	 */
+	public RestAssociationItemVersionPage(int pageNum, int maxPageSize, int approximateTotal, boolean totalIsExact, boolean hasMorePages, String baseUrl,
+			String nextCursor, RestAssociationItemVersion[] results) throws RestException
+	{
+		this.results = results;
+		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, totalIsExact, hasMorePages, baseUrl, nextCursor);
+	}
+
 	/**
 	 * @return the results
 	 */
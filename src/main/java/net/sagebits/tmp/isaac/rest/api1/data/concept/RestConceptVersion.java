@@ -136,6 +136,15 @@ public class RestConceptVersion implements Comparable<RestConceptVersion>
 	@JsonInclude(JsonInclude.Include.NON_NULL)
 	public RestConceptVersionPage children;
 
+	/**
+	 * Set to true, if the expansion of the children was stopped before it completed, because the request ran past the time allowed for 
+	 * taxonomy expansion.  When true, some of the children in the returned page may be missing, or may be missing their own children.
+	 * Not returned, when the expansion completed.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Boolean childExpansionIncomplete;
+
 	/**
 	 * The number of child concept(s) of the concept at this point in time ('is a' relationships). Depending on the expand parameter, this may not be
 	 * returned.
@@ -41,6 +41,7 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
+import net.sagebits.tmp.isaac.rest.Util;
 import net.sagebits.tmp.isaac.rest.api.data.Expandable;
 import net.sagebits.tmp.isaac.rest.api.data.Expandables;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
@@ -283,10 +284,9 @@ public class RestMappingItemVersion extends RestMappingItemVersionBase
 		{
 			if (fieldType.getPrimordialUuid().equals(IsaacMappingConstants.get().MAPPING_CODE_DESCRIPTION.getPrimordialUuid()))
 			{
-				Optional<String> descLatestVersion = Frills.getDescription(componentNid, RequestInfo.get().getStampCoordinate(),
-						RequestInfo.get().getLanguageCoordinate());
-				// TODO handle missing values and contradictions
-				value = descLatestVersion.isPresent() ? descLatestVersion.get() : null;
+				// Util handles contradictions, and caches, as the same concepts tend to repeat across the items of a map set
+				// TODO handle missing values
+				value = Util.readBestDescription(componentNid, RequestInfo.get().getStampCoordinate(), RequestInfo.get().getLanguageCoordinate());
 
 			}
 			else  // represents a single-column semantic field. Read the semantic data
@@ -85,6 +85,24 @@ public class RestMappingItemVersionPage
 		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, totalIsExact, hasMoreData, baseUrl);
 	}
 
+	/**
+	 * @param pageNum The pagination page number >= 1 to return
+	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param approximateTotal approximate size of full matching set of which this paginated result is a subset
+	 * @param hasMoreData 
+	 * @param totalIsExact 
+	 * @param baseUrl url used to construct example previous and next urls
+	 * @param nextCursor the cursor for reading the next page, or null
+	 * @param results
+	 * @throws RestException
+	 */
+	public RestMappingItemVersionPage(int pageNum, int maxPageSize, int approximateTotal, boolean hasMoreData, boolean totalIsExact, String baseUrl,
+			String nextCursor, RestMappingItemVersion[] results) throws RestException
+	{
+		this.results = results;
+		this.paginationData = new Pagination(pageNum, maxPageSize, approximateTotal, totalIsExact, hasMoreData, baseUrl, nextCursor);
+	}
+
 	/**
 	 * @param results
 	 * @throws RestException
@@ -167,7 +167,8 @@ public class RestMappingSetVersion extends RestMappingSetVersionBase implements
 	{
 		super();
 
-		final StampCoordinate myStampCoord = stampCoord.makeCoordinateAnalog(Status.ACTIVE, Status.INACTIVE);
+		final StampCoordinate myStampCoord = stampCoord == RequestInfo.get().getStampCoordinate() ? RequestInfo.get().getActiveInactiveStampCoordinate()
+				: stampCoord.makeCoordinateAnalog(Status.ACTIVE, Status.INACTIVE);
 		active = mappingConcept.getStatus() == Status.ACTIVE;
 		identifiers = new RestIdentifiedObject(mappingConcept.getChronology());
 		// TODO whenever we make an edit to any component of the map set, we will also need to commit the concept, so that this stamp
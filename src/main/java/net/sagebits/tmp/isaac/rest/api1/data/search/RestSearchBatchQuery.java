@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.data.search;
+
+import java.util.Arrays;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * 
+ * {@link RestSearchBatchQuery}
+ * 
+ * One of the description queries submitted to search/batch.
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY, defaultImpl = RestSearchBatchQuery.class)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, getterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
+public class RestSearchBatchQuery
+{
+	/**
+	 * The query to be evaluated, with the same syntax as the query of search/descriptions.  Required.
+	 */
+	@XmlElement
+	public String query;
+
+	/**
+	 * Optional - the description types to restrict the query to, with the same values as the descriptionTypes parameter of search/descriptions.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String[] descriptionTypes;
+
+	/**
+	 * Optional - the extended description types to restrict the query to, with the same values as the extendedDescriptionTypes parameter of 
+	 * search/descriptions.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String[] extendedDescriptionTypes;
+
+	/**
+	 * Optional - the maximum number of results to return for this query.  Defaults to 10.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public Integer maxPageSize;
+
+	RestSearchBatchQuery()
+	{
+		// for Jaxb
+	}
+
+	/**
+	 * @param query
+	 * @param descriptionTypes - optional
+	 * @param extendedDescriptionTypes - optional
+	 * @param maxPageSize - optional
+	 */
+	public RestSearchBatchQuery(String query, String[] descriptionTypes, String[] extendedDescriptionTypes, Integer maxPageSize)
+	{
+		this.query = query;
+		this.descriptionTypes = descriptionTypes;
+		this.extendedDescriptionTypes = extendedDescriptionTypes;
+		this.maxPageSize = maxPageSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "RestSearchBatchQuery [query=" + query + ", descriptionTypes=" + Arrays.toString(descriptionTypes) + ", extendedDescriptionTypes=" 
+				+ Arrays.toString(extendedDescriptionTypes) + ", maxPageSize=" + maxPageSize + "]";
+	}
+}
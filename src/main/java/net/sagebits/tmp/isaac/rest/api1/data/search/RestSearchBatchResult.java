@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.data.search;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * 
+ * {@link RestSearchBatchResult}
+ * 
+ * The result of one of the queries submitted to search/batch.  Results are returned in the order they complete, rather than the order 
+ * they were submitted in - use the index to match them up.
+ */
+@XmlRootElement
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, getterVisibility = JsonAutoDetect.Visibility.NONE, setterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestSearchBatchResult
+{
+	/**
+	 * The (0 based) position of the query in the submitted list of queries
+	 */
+	@XmlElement
+	public int index;
+
+	/**
+	 * The query that was evaluated
+	 */
+	@XmlElement
+	public String query;
+
+	/**
+	 * The results of the query.  Not populated if the query failed.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public RestSearchResultPage results;
+
+	/**
+	 * The reason the query failed.  Only populated if the query failed.
+	 */
+	@XmlElement
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public String error;
+
+	protected RestSearchBatchResult()
+	{
+		// for Jaxb
+	}
+
+	/**
+	 * @param index
+	 * @param query
+	 * @param results - populated if the query succeeded
+	 * @param error - populated if the query failed
+	 */
+	public RestSearchBatchResult(int index, String query, RestSearchResultPage results, String error)
+	{
+		this.index = index;
+		this.query = query;
+		this.results = results;
+		this.error = error;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "RestSearchBatchResult [index=" + index + ", query=" + query + ", error=" + error + "]";
+	}
+}
@@ -30,6 +30,7 @@
 
 package net.sagebits.tmp.isaac.rest.api1.data.search;
 
+import java.util.Map;
 import java.util.Optional;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -132,6 +133,21 @@ public class RestSearchResult
 	 * @param conceptNid - optional
 	 */
 	public RestSearchResult(int matchNid, String matchText, float score, Status state, Integer conceptNid)
+	{
+		this(matchNid, matchText, score, state, conceptNid, null);
+	}
+
+	/**
+	 * 
+	 * @param matchNid
+	 * @param matchText
+	 * @param score
+	 * @param state
+	 * @param conceptNid - optional
+	 * @param referencedConcepts - optional - when provided, referenced concepts that are expanded are read from, and added to, this map, 
+	 *     so that results on the same concept share a single expansion.  Must only be shared between results built for the same request.
+	 */
+	public RestSearchResult(int matchNid, String matchText, float score, Status state, Integer conceptNid, Map<Integer, RestConceptChronology> referencedConcepts)
 	{
 		this.matchNid = matchNid;
 		this.matchText = matchText;
@@ -169,13 +185,21 @@ public class RestSearchResult
 			}
 			if (conceptNid != 0)
 			{
-				referencedConcept = new RestConceptChronology(Get.conceptService().getConceptChronology(conceptNid),
-						RequestInfo.get().shouldExpand(ExpandUtil.versionsAllExpandable),
-						RequestInfo.get().shouldExpand(ExpandUtil.versionsLatestOnlyExpandable), 
-						RequestInfo.get().shouldExpand(ExpandUtil.includeParents),
-						RequestInfo.get().shouldExpand(ExpandUtil.countParents),
-						true, null, 
-						RequestInfo.get().getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.STATED);
+				referencedConcept = referencedConcepts == null ? null : referencedConcepts.get(conceptNid);
+				if (referencedConcept == null)
+				{
+					referencedConcept = new RestConceptChronology(Get.conceptService().getConceptChronology(conceptNid),
+							RequestInfo.get().shouldExpand(ExpandUtil.versionsAllExpandable),
+							RequestInfo.get().shouldExpand(ExpandUtil.versionsLatestOnlyExpandable), 
+							RequestInfo.get().shouldExpand(ExpandUtil.includeParents),
+							RequestInfo.get().shouldExpand(ExpandUtil.countParents),
+							true, null, 
+							RequestInfo.get().getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.STATED);
+					if (referencedConcepts != null)
+					{
+						referencedConcepts.put(conceptNid, referencedConcept);
+					}
+				}
 				if (RequestInfo.get().returnExpandableLinks())
 				{
 					if (!RequestInfo.get().shouldExpand(ExpandUtil.versionsAllExpandable))
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.api1.data.systeminfo;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+
+/**
+ * {@link RestCacheStatistics}
+ * 
+ * This class carries back the usage statistics of one of the internal caches of the server.
+ */
+@XmlRootElement
+@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, include = JsonTypeInfo.As.PROPERTY)
+public class RestCacheStatistics
+{
+	/**
+	 * The name of the cache
+	 */
+	@XmlElement
+	public String name;
+
+	/**
+	 * The number of entries currently in the cache
+	 */
+	@XmlElement
+	public int size;
+
+	/**
+	 * The maximum number of entries the cache will hold
+	 */
+	@XmlElement
+	public int maxSize;
+
+	/**
+	 * The number of lookups that found a cached value, since the server started
+	 */
+	@XmlElement
+	public long hitCount;
+
+	/**
+	 * The number of lookups that did not find a cached value, since the server started
+	 */
+	@XmlElement
+	public long missCount;
+
+	/**
+	 * The number of entries that were removed to keep the cache within its maximum size, since the server started
+	 */
+	@XmlElement
+	public long evictionCount;
+
+	/**
+	 * hitCount / (hitCount + missCount) - or 0, if there have been no lookups.
+	 */
+	@XmlElement
+	public double hitRatio;
+
+	public RestCacheStatistics()
+	{
+		// For jaxb
+	}
+
+	/**
+	 * @param cache the cache to read the statistics from
+	 */
+	public RestCacheStatistics(StripedCache<?, ?> cache)
+	{
+		this(cache.getName(), cache.size(), cache.getMaxSize(), cache.getHitCount(), cache.getMissCount(), cache.getEvictionCount());
+	}
+
+	/**
+	 * @param name the name of the cache
+	 * @param size the current number of entries
+	 * @param maxSize the maximum number of entries
+	 * @param hitCount the number of lookups that found a value
+	 * @param missCount the number of lookups that did not find a value
+	 * @param evictionCount the number of entries evicted
+	 */
+	public RestCacheStatistics(String name, int size, int maxSize, long hitCount, long missCount, long evictionCount)
+	{
+		this.name = name;
+		this.size = size;
+		this.maxSize = maxSize;
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.hitRatio = (hitCount + missCount) == 0 ? 0 : (double) hitCount / (double) (hitCount + missCount);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "RestCacheStatistics [name=" + name + ", size=" + size + ", maxSize=" + maxSize + ", hitCount=" + hitCount + ", missCount=" + missCount
+				+ ", evictionCount=" + evictionCount + ", hitRatio=" + hitRatio + "]";
+	}
+}
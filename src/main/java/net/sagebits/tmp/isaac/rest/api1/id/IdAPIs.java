@@ -30,6 +30,14 @@
 
 package net.sagebits.tmp.isaac.rest.api1.id;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
@@ -38,20 +46,31 @@ import java.util.Locale;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import java.util.stream.Stream;
 import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import net.sagebits.tmp.isaac.rest.Util;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
@@ -59,6 +78,8 @@ import net.sagebits.tmp.isaac.rest.api1.data.RestId;
 import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptChronology;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.IdType;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType;
+import net.sagebits.tmp.isaac.rest.cache.AltIdIndex;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
@@ -73,10 +94,10 @@ import sh.isaac.api.component.semantic.SemanticChronology;
 import sh.isaac.api.component.semantic.version.SemanticVersion;
 import sh.isaac.api.coordinate.LanguageCoordinate;
 import sh.isaac.api.coordinate.PremiseType;
+import sh.isaac.api.coordinate.StampCoordinate;
 import sh.isaac.api.util.NumericUtils;
 import sh.isaac.api.util.UUIDUtil;
 import sh.isaac.model.coordinate.LanguageCoordinateImpl;
-import sh.isaac.utility.Frills;
 
 /**
  * {@link IdAPIs}
@@ -90,9 +111,20 @@ public class IdAPIs
 {
 	private static Logger log = LogManager.getLogger();
 
+	private static final String NDJSON = "application/x-ndjson";
+	private static final String CSV = "text/csv";
+	private static final int MAX_BATCH_IDS = 1_000_000;
+	private static final int BATCH_CHUNK_SIZE = 1000;
+	// The most chunks of one batch that are queued, running, or translated but not yet written, at any time
+	private static final int BATCH_CHUNKS_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
 	@Context
 	private SecurityContext securityContext;
 
+	@Context
+	private HttpHeaders headers;
+
 	/**
 	 * Translate an ID from one type to another.
 	 * 
@@ -113,7 +145,7 @@ public class IdAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.idTranslateComponent + "{" + RequestParameters.id + "}")
 	public RestId translateId(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.inputType) String inputType,
 			@QueryParam(RequestParameters.outputType) @DefaultValue("uuid") String outputType, @QueryParam(RequestParameters.coordToken) String coordToken)
@@ -122,8 +154,260 @@ public class IdAPIs
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.id, RequestParameters.inputType,
 				RequestParameters.outputType, RequestParameters.COORDINATE_PARAM_NAMES);
 
+		RestSupportedIdType outputTypeFormat = RestSupportedIdType.parse(outputType).orElse(new RestSupportedIdType(IdType.UUID));
+		return new RestId(outputTypeFormat, translate(id, RestSupportedIdType.parse(inputType), outputTypeFormat, RequestInfo.get().getStampCoordinate()));
+	}
+
+	/**
+	 * Translate a batch of IDs from one type to another.  The ids are translated in parallel, a few chunks ahead of the client, and the results 
+	 * are streamed back in the order of the input ids, as they are translated.
+	 * 
+	 * The results are returned as newline delimited JSON (application/x-ndjson, the default) with one object per id, of the form
+	 * {"input": "the id", "output": "the translated id"} or {"input": "the id", "error": "the reason it could not be translated"}, or 
+	 * as CSV (text/csv) with a header row, and the columns input, output and error.
+	 * 
+	 * @param inputType - optional - must be one of the types from the supportedTypes call. You can pass the name or enumId of the
+	 *            returned RestIdType object. If inputType is not specified, each id is handled as described in {@link #translateId}, 
+	 *            so ids which are not UUIDs or nids will fail.
+	 * @param outputType - optional - should be one of the types from the supportedTypes call. You can pass the name or enumId of the
+	 *            returned RestIdType object. Defaults to uuid.
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be
+	 *            obtained by a separate (prior) call to getCoordinatesToken().
+	 * @param ids the ids to translate, as a JSON array of strings
+	 * 
+	 * @return the translated ids.  Ids which can't be translated are returned with an error, rather than failing the batch.
+	 * @throws RestException if the batch is empty or too large, or a type is invalid
+	 */
+	@POST
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces({ NDJSON, CSV })
+	@Path(RestPaths.idTranslateComponent)
+	public Response translateIds(@QueryParam(RequestParameters.inputType) String inputType,
+			@QueryParam(RequestParameters.outputType) @DefaultValue("uuid") String outputType, @QueryParam(RequestParameters.coordToken) String coordToken, 
+			String[] ids) throws RestException
+	{
+		return translateBatch(ids == null ? null : Arrays.asList(ids), inputType, outputType);
+	}
+
+	/**
+	 * Translate a batch of IDs from one type to another, exactly as {@link #translateIds(String, String, String, String[])}, but accepting 
+	 * the ids as plain text, one per line.  Blank lines are ignored.
+	 * 
+	 * @param inputType - optional - see {@link #translateIds(String, String, String, String[])}
+	 * @param outputType - optional - see {@link #translateIds(String, String, String, String[])}
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be
+	 *            obtained by a separate (prior) call to getCoordinatesToken().
+	 * @param ids the ids to translate, one per line
+	 * 
+	 * @return the translated ids.  Ids which can't be translated are returned with an error, rather than failing the batch.
+	 * @throws RestException if the batch is empty or too large, or a type is invalid
+	 */
+	@POST
+	@Consumes(MediaType.TEXT_PLAIN)
+	@Produces({ NDJSON, CSV })
+	@Path(RestPaths.idTranslateComponent)
+	public Response translateIdLines(@QueryParam(RequestParameters.inputType) String inputType,
+			@QueryParam(RequestParameters.outputType) @DefaultValue("uuid") String outputType, @QueryParam(RequestParameters.coordToken) String coordToken, 
+			String ids) throws RestException
+	{
+		ArrayList<String> lines = new ArrayList<>();
+		if (ids != null)
+		{
+			for (String line : ids.split("\\r?\\n"))
+			{
+				if (StringUtils.isNotBlank(line))
+				{
+					lines.add(line.trim());
+				}
+			}
+		}
+		return translateBatch(lines, inputType, outputType);
+	}
+
+	private Response translateBatch(List<String> ids, String inputType, String outputType) throws RestException
+	{
+		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.inputType,
+				RequestParameters.outputType, RequestParameters.COORDINATE_PARAM_NAMES);
+
+		if (ids == null || ids.isEmpty())
+		{
+			throw new RestException("At least one id must be submitted");
+		}
+		if (ids.size() > MAX_BATCH_IDS)
+		{
+			throw new RestException("At most " + MAX_BATCH_IDS + " ids may be submitted in one batch");
+		}
+
+		// Unlike the single translate, an unknown type fails the batch, rather than each id
 		Optional<RestSupportedIdType> inputTypeFormat = RestSupportedIdType.parse(inputType);
-		
+		if (StringUtils.isNotBlank(inputType) && !inputTypeFormat.isPresent())
+		{
+			throw new RestException(RequestParameters.inputType, inputType, "Not a supported id type");
+		}
+		RestSupportedIdType outputTypeFormat = RestSupportedIdType.parse(outputType).orElseThrow(
+				() -> new RestException(RequestParameters.outputType, outputType, "Not a supported id type"));
+
+		// Resolve the coordinates once, for the whole batch
+		final StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+		final boolean csv = isCsvRequested();
+
+		log.debug("Translating a batch of " + ids.size() + " ids");
+		IntFunction<Future<String[][]>> submitChunk = start -> 
+		{
+			final List<String> chunk = ids.subList(start, Math.min(ids.size(), start + BATCH_CHUNK_SIZE));
+			return Get.workExecutors().getExecutor().submit(() -> 
+			{
+				String[][] rows = new String[chunk.size()][];
+				for (int j = 0; j < rows.length; j++)
+				{
+					String id = chunk.get(j);
+					try
+					{
+						rows[j] = new String[] { id, translate(id, inputTypeFormat, outputTypeFormat, stamp), null };
+					}
+					catch (RestException e)
+					{
+						rows[j] = new String[] { id, null, e.getMessage() };
+					}
+					catch (Exception e)
+					{
+						log.debug("Unexpected error translating " + id, e);
+						rows[j] = new String[] { id, null, e.toString() };
+					}
+				}
+				return rows;
+			});
+		};
+
+		StreamingOutput stream = new StreamingOutput()
+		{
+			// Only a window of chunks ahead of the writer is handed to the shared executor, so a large batch can't flood the executor, 
+			// and translated chunks are only held until they are written.
+			private final ArrayDeque<Future<String[][]>> inFlight = new ArrayDeque<>(BATCH_CHUNKS_IN_FLIGHT);
+			private int nextChunk = 0;
+
+			/**
+			 * @return the next chunk of translated rows, in input order, or null, when all chunks have been returned
+			 */
+			private String[][] takeChunk() throws InterruptedException, ExecutionException
+			{
+				while (inFlight.size() < BATCH_CHUNKS_IN_FLIGHT && nextChunk < ids.size())
+				{
+					inFlight.add(submitChunk.apply(nextChunk));
+					nextChunk += BATCH_CHUNK_SIZE;
+				}
+				Future<String[][]> f = inFlight.poll();
+				return f == null ? null : f.get();
+			}
+
+			@Override
+			public void write(OutputStream output) throws IOException, WebApplicationException
+			{
+				try
+				{
+					if (csv)
+					{
+						Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+						writer.write("input,output,error\r\n");
+						for (String[][] rows = takeChunk(); rows != null; rows = takeChunk())
+						{
+							for (String[] row : rows)
+							{
+								writer.write(csvField(row[0]) + "," + csvField(row[1]) + "," + csvField(row[2]) + "\r\n");
+							}
+							// Send each chunk as it completes
+							writer.flush();
+						}
+					}
+					else
+					{
+						try (JsonGenerator generator = JSON_FACTORY.createGenerator(output))
+						{
+							generator.setRootValueSeparator(null);
+							for (String[][] rows = takeChunk(); rows != null; rows = takeChunk())
+							{
+								for (String[] row : rows)
+								{
+									generator.writeStartObject();
+									generator.writeStringField("input", row[0]);
+									if (row[1] != null)
+									{
+										generator.writeStringField("output", row[1]);
+									}
+									if (row[2] != null)
+									{
+										generator.writeStringField("error", row[2]);
+									}
+									generator.writeEndObject();
+									generator.writeRaw('\n');
+								}
+								// Send each chunk as it completes
+								generator.flush();
+							}
+						}
+					}
+				}
+				catch (InterruptedException | ExecutionException e)
+				{
+					throw new IOException("Unexpected error streaming translated ids", e);
+				}
+				finally
+				{
+					// Stop any chunks that are still running, if the client went away
+					for (Future<String[][]> f : inFlight)
+					{
+						f.cancel(true);
+					}
+				}
+			}
+		};
+		return Response.ok(stream, csv ? CSV : NDJSON).build();
+	}
+
+	/**
+	 * @return true, if the client prefers CSV to newline delimited JSON
+	 */
+	private boolean isCsvRequested()
+	{
+		for (MediaType mt : headers.getAcceptableMediaTypes())
+		{
+			if (mt.isCompatible(MediaType.valueOf(NDJSON)))
+			{
+				return false;
+			}
+			if (mt.isCompatible(MediaType.valueOf(CSV)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String csvField(String value)
+	{
+		if (value == null)
+		{
+			return "";
+		}
+		if (StringUtils.containsAny(value, ',', '"', '\r', '\n'))
+		{
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	/**
+	 * Translate an ID from one type to another.
+	 * @param id the id to translate
+	 * @param inputTypeFormat the type of the id, if known
+	 * @param outputTypeFormat the type to translate to
+	 * @param stamp the coordinate to read semantic based output ids on.  Semantic based input ids are matched in any version.
+	 * @return the translated id
+	 * @throws RestException if the id can't be parsed, or the object or the output id can't be found
+	 */
+	private static String translate(String id, Optional<RestSupportedIdType> inputTypeFormat, RestSupportedIdType outputTypeFormat, 
+			StampCoordinate stamp) throws RestException
+	{
 		Optional<? extends Chronology> object = Optional.empty();
 		
 		if (inputTypeFormat.isPresent())
@@ -157,7 +441,7 @@ public class IdAPIs
 			else
 			{
 				//It should be a nid
-				List<Integer> nids = Frills.getNidForAltId(inputTypeFormat.get().enumId, id);
+				List<Integer> nids = AltIdIndex.getNids(inputTypeFormat.get().enumId, id.trim());
 				if (nids.size() > 0)
 				{
 					object = Get.identifiedObjectService().getChronology(nids.get(0));
@@ -187,22 +471,21 @@ public class IdAPIs
 
 		if (object.isPresent())
 		{
-			RestSupportedIdType outputTypeFormat = RestSupportedIdType.parse(outputType).orElse(new RestSupportedIdType(IdType.UUID));
 			if (outputTypeFormat.enumId == IdType.NID.getId())
 			{
-				return new RestId(outputTypeFormat, object.get().getNid() + "");
+				return object.get().getNid() + "";
 			}
 			else if (outputTypeFormat.enumId == IdType.UUID.getId())
 			{
-				return new RestId(outputTypeFormat, object.get().getPrimordialUuid().toString());
+				return object.get().getPrimordialUuid().toString();
 			}
 			else
 			{
 				//must be a nid
-				Optional<String> s = Frills.getAltId(outputTypeFormat.enumId, object.get().getNid(), RequestInfo.get().getStampCoordinate());
+				Optional<String> s = AltIdIndex.getAltId(outputTypeFormat.enumId, object.get().getNid(), stamp);
 				if (s.isPresent())
 				{
-					return new RestId(outputTypeFormat, s.get());
+					return s.get();
 				}
 				else
 				{
@@ -228,7 +511,7 @@ public class IdAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.idTypesComponent)
 	public RestSupportedIdType[] getSupportedTypes() throws RestException
 	{
@@ -251,7 +534,7 @@ public class IdAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.idsComponent)
 	public RestConceptChronology[] getSupportedIdConcepts() throws RestException
 	{
@@ -32,6 +32,7 @@ package net.sagebits.tmp.isaac.rest.api1.mapping;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -44,11 +45,15 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Providers;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
+import net.sagebits.tmp.isaac.rest.StreamingArray;
 import net.sagebits.tmp.isaac.rest.Util;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
@@ -63,6 +68,7 @@ import net.sagebits.tmp.isaac.rest.api1.data.mapping.RestMappingSetVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticColumnInfo;
 import net.sagebits.tmp.isaac.rest.api1.semantic.SemanticAPIs;
 import net.sagebits.tmp.isaac.rest.api1.semantic.SemanticAPIs.SemanticVersions;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.MapSetDisplayFieldsService;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
@@ -71,7 +77,6 @@ import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.api.ConceptProxy;
 import sh.isaac.api.Get;
 import sh.isaac.api.LookupService;
-import sh.isaac.api.Status;
 import sh.isaac.api.chronicle.LatestVersion;
 import sh.isaac.api.component.concept.ConceptChronology;
 import sh.isaac.api.component.concept.ConceptVersion;
@@ -102,6 +107,12 @@ public class MappingAPIs
 	@Context
 	private SecurityContext securityContext;
 
+	@Context
+	private HttpHeaders headers;
+
+	@Context
+	private Providers providers;
+
 	/**
 	 * 
 	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may
@@ -111,16 +122,17 @@ public class MappingAPIs
 	 * @param altId - (optional) the altId type(s) to populate in any returned RestIdentifiedObject structures.  By default, no alternate IDs are 
 	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
 	 *     performance. 
-	 * @return the latest version of each unique mapping set definition found in the system on the specified coordinates.
+	 * @return the latest version of each unique mapping set definition found in the system on the specified coordinates, as an array of 
+	 *         RestMappingSetVersion, which is streamed as each mapping set is read.
 	 * 
 	 *         TODO add parameters to this method to allow the return of all versions (current + historical)
 	 * 
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingSetsComponent)
-	public RestMappingSetVersion[] getMappingSets(@QueryParam(RequestParameters.coordToken) String coordToken,
+	public Response getMappingSets(@QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.expand,
@@ -128,32 +140,33 @@ public class MappingAPIs
 		
 		RequestInfo.get().validateMethodExpansions(ExpandUtil.comments);
 
-		ArrayList<RestMappingSetVersion> results = new ArrayList<>();
-
-		Get.assemblageService().getSemanticChronologyStream(IsaacMappingConstants.get().DYNAMIC_SEMANTIC_MAPPING_SEMANTIC_TYPE.getNid()).forEach(semanticC -> {
-			// We don't change the state / care about the state on the semantic. We update the state on the concept.
-			@SuppressWarnings({ "rawtypes" })
-			LatestVersion<DynamicVersion> latest = semanticC
-					.getLatestVersion(RequestInfo.get().getStampCoordinate().makeCoordinateAnalog(Status.ACTIVE, Status.INACTIVE));
-			Util.logContradictions(log, latest);
-
-			if (latest.isPresent())
+		return StreamingArray.build(RestMappingSetVersion.class, headers, providers, writer -> 
+		{
+			Iterator<SemanticChronology> mapSets = Get.assemblageService().getSemanticChronologyStream(
+					IsaacMappingConstants.get().DYNAMIC_SEMANTIC_MAPPING_SEMANTIC_TYPE.getNid()).iterator();
+			while (mapSets.hasNext())
 			{
-				ConceptChronology cc = Get.conceptService().getConceptChronology(latest.get().getReferencedComponentNid());
-
-				StampCoordinate conceptCoord = RequestInfo.get().getStampCoordinate();
-				LatestVersion<ConceptVersion> cv = cc.getLatestVersion(conceptCoord);
-				Util.logContradictions(log, cv);
+				// We don't change the state / care about the state on the semantic. We update the state on the concept.
+				@SuppressWarnings({ "rawtypes" })
+				LatestVersion<DynamicVersion> latest = mapSets.next().getLatestVersion(RequestInfo.get().getActiveInactiveStampCoordinate());
+				Util.logContradictions(log, latest);
 
-				if (cv.isPresent())
+				if (latest.isPresent())
 				{
-					// TODO handle contradictions
+					ConceptChronology cc = Get.conceptService().getConceptChronology(latest.get().getReferencedComponentNid());
+
+					StampCoordinate conceptCoord = RequestInfo.get().getStampCoordinate();
+					LatestVersion<ConceptVersion> cv = cc.getLatestVersion(conceptCoord);
 					Util.logContradictions(log, cv);
-					results.add(new RestMappingSetVersion(cv.get(), latest.get(), conceptCoord, RequestInfo.get().shouldExpand(ExpandUtil.comments)));
+
+					if (cv.isPresent())
+					{
+						// TODO handle contradictions
+						writer.write(new RestMappingSetVersion(cv.get(), latest.get(), conceptCoord, RequestInfo.get().shouldExpand(ExpandUtil.comments)));
+					}
 				}
 			}
 		});
-		return results.toArray(new RestMappingSetVersion[results.size()]);
 	}
 
 	/**
@@ -172,7 +185,7 @@ public class MappingAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingSetComponent + "{" + RequestParameters.id + "}")
 	public RestMappingSetVersion getMappingSet(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.expand) String expand, @QueryParam(RequestParameters.altId) String altId) throws RestException
@@ -228,7 +241,7 @@ public class MappingAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingFieldsComponent)
 	public RestMappingSetDisplayField[] getAvailableMappingSetDisplayFields() throws RestException
 	{
@@ -241,7 +254,7 @@ public class MappingAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingFieldComponentTypesComponent)
 	public RestMapSetItemComponentType[] getAvailableMappingSetDisplayFieldComponentTypes() throws RestException
 	{
@@ -251,8 +264,10 @@ public class MappingAPIs
 	/**
 	 * @param id - A UUID or nid of the concept that identifies the map set to list items for. Should be from
 	 *            {@link RestMappingSetVersion#identifiers}}
-	 * @param pageNum The pagination page number >= 1 to return
+	 * @param pageNum The pagination page number >= 1 to return.  Ignored, if a cursor is provided.
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0, defaults to 250
+	 * @param cursor - (optional) the nextCursor value from the paginationData of a prior page.  When provided, reading resumes directly after
+	 *            the prior page, which is much faster than reading deep pages by pageNum.  Must be used with the same coordinates as the prior page.
 	 * @param expand - A comma separated list of fields to expand. Supports 'referencedDetails,comments'. When referencedDetails is passed,
 	 *            descriptions will be included for all referenced concepts which align with your current coordinates. When comments is passed, all
 	 *            comments attached to each mapItem are included.
@@ -266,16 +281,18 @@ public class MappingAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingItemsComponent + "{" + RequestParameters.id + "}")
 	public RestMappingItemVersionPage getMappingItemPage(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
-			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(250 + "") int maxPageSize, @QueryParam(RequestParameters.expand) String expand,
+			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(250 + "") int maxPageSize, 
+			@QueryParam(RequestParameters.cursor) String cursor, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.id,
-				RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.expand, RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
+				RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.cursor, RequestParameters.expand, RequestParameters.COORDINATE_PARAM_NAMES, 
+				RequestParameters.altId);
 		
 		RequestInfo.get().validateMethodExpansions(ExpandUtil.referencedDetails, ExpandUtil.comments);
 
@@ -290,7 +307,7 @@ public class MappingAPIs
 
 		Set<Integer> allowedAssemblages = new HashSet<>();
 		allowedAssemblages.add(semanticConceptNid);
-		SemanticVersions semantics = SemanticAPIs.get(null, allowedAssemblages, pageNum, maxPageSize, false, false, null);
+		SemanticVersions semantics = SemanticAPIs.get(null, allowedAssemblages, pageNum, maxPageSize, false, false, null, cursor);
 
 		for (SemanticVersion semanticVersion : semantics.getValues())
 		{
@@ -298,8 +315,9 @@ public class MappingAPIs
 					RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails), RequestInfo.get().shouldExpand(ExpandUtil.comments),
 					displayFields));
 		}
-		RestMappingItemVersionPage results = new RestMappingItemVersionPage(pageNum, maxPageSize, semantics.getTotal(), true,
-				semantics.getTotal() > (pageNum * maxPageSize), RestPaths.mappingItemsComponent + id, items.toArray(new RestMappingItemVersion[items.size()]));
+		RestMappingItemVersionPage results = new RestMappingItemVersionPage(semantics.getPageNum(), maxPageSize, semantics.getTotal(), semantics.hasMore(),
+				semantics.isTotalExact(), RestPaths.mappingItemsComponent + id, semantics.getNextCursor(), 
+				items.toArray(new RestMappingItemVersion[items.size()]));
 		return results;
 	}
 
@@ -318,7 +336,7 @@ public class MappingAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.mappingItemComponent + "{" + RequestParameters.id + "}")
 	public RestMappingItemVersion getMappingItem(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.altId) String altId) throws RestException
@@ -18,62 +18,77 @@
  */
 package net.sagebits.tmp.isaac.rest.api1.search;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Providers;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
-import net.sagebits.tmp.isaac.rest.Util;
+import net.sagebits.tmp.isaac.rest.api.data.PaginationUtils;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
+import net.sagebits.tmp.isaac.rest.api1.data.search.RestSearchBatchQuery;
+import net.sagebits.tmp.isaac.rest.api1.data.search.RestSearchBatchResult;
 import net.sagebits.tmp.isaac.rest.api1.data.search.RestSearchResult;
 import net.sagebits.tmp.isaac.rest.api1.data.search.RestSearchResultPage;
+import net.sagebits.tmp.isaac.rest.cache.AltIdIndex;
+import net.sagebits.tmp.isaac.rest.cache.ConceptCategoryIndex;
+import net.sagebits.tmp.isaac.rest.cache.ConceptCategoryIndex.Category;
+import net.sagebits.tmp.isaac.rest.cache.NumericColumnIndex;
+import net.sagebits.tmp.isaac.rest.cache.TypeaheadIndex;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.MetaData;
 import sh.isaac.api.Get;
 import sh.isaac.api.LookupService;
 import sh.isaac.api.chronicle.Chronology;
-import sh.isaac.api.chronicle.LatestVersion;
-import sh.isaac.api.chronicle.Version;
-import sh.isaac.api.component.concept.ConceptChronology;
-import sh.isaac.api.component.semantic.SemanticChronology;
-import sh.isaac.api.component.semantic.version.DescriptionVersion;
-import sh.isaac.api.component.semantic.version.DynamicVersion;
-import sh.isaac.api.component.semantic.version.LongVersion;
-import sh.isaac.api.component.semantic.version.StringVersion;
-import sh.isaac.api.component.semantic.version.dynamic.DynamicUsageDescription;
 import sh.isaac.api.externalizable.IsaacObjectType;
 import sh.isaac.api.index.AuthorModulePathRestriction;
 import sh.isaac.api.index.ComponentSearchResult;
-import sh.isaac.api.index.ConceptSearchResult;
 import sh.isaac.api.index.IndexSemanticQueryService;
 import sh.isaac.api.index.SearchResult;
 import sh.isaac.api.util.Interval;
 import sh.isaac.api.util.NumericUtils;
 import sh.isaac.api.util.UUIDUtil;
-import sh.isaac.model.semantic.DynamicUsageDescriptionImpl;
 import sh.isaac.model.semantic.types.DynamicStringImpl;
 import sh.isaac.provider.query.lucene.indexers.DescriptionIndexer;
-import sh.isaac.utility.Frills;
 import sh.isaac.utility.NumericUtilsDynamic;
 
 /**
@@ -88,24 +103,40 @@ public class SearchAPIs
 {
 	private static Logger log = LogManager.getLogger();
 
+	private static final int MAX_BATCH_QUERIES = 10000;
+	// The most queries of one batch that are queued or running on the shared work executors at any time
+	private static final int BATCH_QUERIES_IN_FLIGHT = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private static final Pattern NUMBER_PATTERN = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+	private static final Pattern INTERVAL_PATTERN = Pattern.compile("[\\[(][^,]*,[^,]*[\\])]");
+
 	@Context
 	private SecurityContext securityContext;
 
-	private RestSearchResultPage getRestSearchResultsFromOchreSearchResults(List<SearchResult> ochreSearchResults, int pageNum, int maxPageSize,
+	@Context
+	private Providers providers;
+
+	@Context
+	private HttpHeaders headers;
+
+	private RestSearchResultPage getRestSearchResultsFromOchreSearchResults(SearchResultCache.Page hitPage, int pageNum, int maxPageSize,
 			String restPath, String query) throws RestException
 	{
-		List<RestSearchResult> restSearchResults = new ArrayList<>();
-		for (SearchResult ochreSearchResult : ochreSearchResults)
-		{
-			Optional<RestSearchResult> restSearchResultOptional = createRestSearchResult(ochreSearchResult, query);
-			if (restSearchResultOptional.isPresent())
-			{
-				restSearchResults.add(restSearchResultOptional.get());
-			}
-		}
+		return getRestSearchResultsFromOchreSearchResults(hitPage.hits, pageNum, maxPageSize, hitPage.total, hitPage.totalIsExact, hitPage.hasMore, restPath, 
+				query);
+	}
+
+	private RestSearchResultPage getRestSearchResultsFromOchreSearchResults(List<SearchResult> ochreSearchResults, int pageNum, int maxPageSize,
+			int total, boolean totalIsExact, boolean hasMore, String restPath, String query) throws RestException
+	{
+		List<RestSearchResult> restSearchResults = SearchResultMaterializer.materialize(ochreSearchResults, query);
+		return new RestSearchResultPage(pageNum, maxPageSize, total, totalIsExact, hasMore, restPath, restSearchResults);
+	}
 
-		return new RestSearchResultPage(pageNum, maxPageSize, ochreSearchResults.size(), false, ochreSearchResults.size() == maxPageSize, restPath,
-				restSearchResults);
+	private RestSearchResultPage getRestSearchResultsFromOchreSearchResults(List<SearchResult> ochreSearchResults, int pageNum, int maxPageSize,
+			String restPath, String query) throws RestException
+	{
+		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, ochreSearchResults.size(), false, 
+				ochreSearchResults.size() == maxPageSize, restPath, query);
 	}
 
 	/**
@@ -154,7 +185,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.descriptionsComponent)
 	public RestSearchResultPage descriptionSearch(@QueryParam(RequestParameters.query) String query,
 			@QueryParam(RequestParameters.descriptionTypes) Set<String> descriptionTypes,
@@ -178,13 +209,159 @@ public class SearchAPIs
 		int[] parsedDescriptionTypes = parseDescriptionTypes(descriptionTypes);
 		int[] parsedExtendedDescriptionTypes = parseExtendedDescriptionTypes(extendedDescriptionTypes);
 
+		return descriptionSearch(query, parsedDescriptionTypes, parsedExtendedDescriptionTypes, pageNum, maxPageSize);
+	}
+
+	private RestSearchResultPage descriptionSearch(String query, int[] parsedDescriptionTypes, int[] parsedExtendedDescriptionTypes, int pageNum, 
+			int maxPageSize) throws RestException
+	{
 		final String restPath = RestPaths.searchAppPathComponent + RestPaths.descriptionsComponent + "?" + RequestParameters.query + "=" + query;
 
 		log.debug("Performing description search for '" + query + "'");
-		List<SearchResult> ochreSearchResults = LookupService.get().getService(DescriptionIndexer.class).query(query, false, null, null,
-				AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), false, parsedDescriptionTypes, parsedExtendedDescriptionTypes, pageNum,
-				maxPageSize, Long.MAX_VALUE);
-		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
+		SearchResultCache.Page hitPage = SearchResultCache.getPage(
+				SearchResultCache.key("description", query, parsedDescriptionTypes, parsedExtendedDescriptionTypes), pageNum, maxPageSize,
+				(page, pageSize) -> LookupService.get().getService(DescriptionIndexer.class).query(query, false, null, null,
+						AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), false, parsedDescriptionTypes, parsedExtendedDescriptionTypes, 
+						page, pageSize, Long.MAX_VALUE));
+		return getRestSearchResultsFromOchreSearchResults(hitPage, pageNum, maxPageSize, restPath, query);
+	}
+
+	/**
+	 * Run a batch of description searches, concurrently.  Each query is evaluated in the same way as {@link #descriptionSearch(String, Set, Set, 
+	 * int, int, String, String, String)}, and the first page of results of each is returned.  The expand, coordToken and altId parameters 
+	 * apply to every query in the batch.
+	 * 
+	 * The results are streamed back as a JSON array of RestSearchBatchResult, in the order that the queries complete - not the order they 
+	 * were submitted in.  Each result carries the (0 based) index of its query in the submitted list.  A query that fails (for example, 
+	 * due to a lucene syntax error) returns a result with an error, rather than failing the batch.  Only a few queries of a batch run at 
+	 * once - the rest are started as the results of earlier queries are written to the client.
+	 * 
+	 * @param queries a JSON array of RestSearchBatchQuery, each with a query, and optionally, descriptionTypes, extendedDescriptionTypes and 
+	 *            maxPageSize.  At most {@value #MAX_BATCH_QUERIES} queries may be submitted in one call.
+	 * <br>Example:
+	 * <pre>
+	 * [{"query":"pale ale"}, {"query":"stout", "descriptionTypes":["fqn"], "maxPageSize":5}]
+	 * </pre>
+	 * @param expand Optional Comma separated list of fields to expand or include directly in the results, with the same values as 
+	 *            search/descriptions.
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be
+	 *            obtained by a separate (prior) call to getCoordinatesToken().  As with search/descriptions, the 'modules' and 'path' of the 
+	 *            coordinates restrict the matching items.
+	 * @param altId - (optional) the altId type(s) to populate in any returned RestIdentifiedObject structures.  By default, no alternate IDs are 
+	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
+	 *     performance. 
+	 * 
+	 * @return a streamed JSON array of RestSearchBatchResult (or a CBOR array, if requested with an Accept header of application/cbor)
+	 * @throws RestException if the batch, or any of the description types in it, are invalid
+	 */
+	@POST
+	@Consumes({ MediaType.APPLICATION_JSON })
+	@Produces({ MediaType.APPLICATION_JSON, MyJacksonCborProvider.APPLICATION_CBOR })
+	@Path(RestPaths.batchComponent)
+	public Response batchDescriptionSearch(@QueryParam(RequestParameters.expand) String expand, 
+			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.altId) String altId, 
+			RestSearchBatchQuery[] queries) throws RestException
+	{
+		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.expand, 
+				RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
+		
+		RequestInfo.get().validateMethodExpansions(ExpandUtil.uuid, ExpandUtil.referencedConcept, ExpandUtil.versionsLatestOnlyExpandable, 
+				ExpandUtil.versionsAllExpandable, ExpandUtil.countParents, ExpandUtil.includeParents);
+
+		if (queries == null || queries.length == 0)
+		{
+			throw new RestException("At least one query must be submitted");
+		}
+		if (queries.length > MAX_BATCH_QUERIES)
+		{
+			throw new RestException("At most " + MAX_BATCH_QUERIES + " queries may be submitted in one batch");
+		}
+
+		// Validate the whole batch up front, so an invalid batch is rejected before any query runs
+		int[][] parsedDescriptionTypes = new int[queries.length][];
+		int[][] parsedExtendedDescriptionTypes = new int[queries.length][];
+		int[] maxPageSizes = new int[queries.length];
+		for (int i = 0; i < queries.length; i++)
+		{
+			if (queries[i] == null || StringUtils.isBlank(queries[i].query))
+			{
+				throw new RestException("The query at index " + i + " must contain at least one character");
+			}
+			parsedDescriptionTypes[i] = parseDescriptionTypes(queries[i].descriptionTypes == null ? null 
+					: new HashSet<>(Arrays.asList(queries[i].descriptionTypes)));
+			parsedExtendedDescriptionTypes[i] = parseExtendedDescriptionTypes(queries[i].extendedDescriptionTypes == null ? null 
+					: new HashSet<>(Arrays.asList(queries[i].extendedDescriptionTypes)));
+			maxPageSizes[i] = queries[i].maxPageSize == null ? Integer.parseInt(RequestParameters.maxPageSizeDefault) : queries[i].maxPageSize.intValue();
+			PaginationUtils.validateParameters(1, maxPageSizes[i]);
+		}
+
+		log.debug("Performing a batch of " + queries.length + " description searches");
+		ExecutorCompletionService<RestSearchBatchResult> completionService = new ExecutorCompletionService<>(Get.workExecutors().getExecutor());
+		// Resolved once here, on the request thread - each query then gets its own copy, as the per request caches are not thread safe.
+		final RequestInfo batchRequest = RequestInfo.get().forWorker();
+		IntFunction<Future<RestSearchBatchResult>> submitQuery = index -> {
+			final RequestInfo workerRequest = batchRequest.forWorker();
+			return completionService.submit(() -> {
+				try
+				{
+					return new RestSearchBatchResult(index, queries[index].query, RequestInfo.callWith(workerRequest, () -> descriptionSearch(
+							queries[index].query, parsedDescriptionTypes[index], parsedExtendedDescriptionTypes[index], 1, maxPageSizes[index])), null);
+				}
+				catch (Exception e)
+				{
+					log.debug("Batch query " + index + " failed", e);
+					return new RestSearchBatchResult(index, queries[index].query, null, e.toString());
+				}
+			});
+		};
+
+		// Only a window of the batch is handed to the shared executor - the next query is submitted as each result is taken by the writer, 
+		// so a large batch can't flood the executor, and a client that stops reading stops the batch.
+		List<Future<RestSearchBatchResult>> futures = new ArrayList<>(queries.length);
+		for (int i = 0; i < Math.min(queries.length, BATCH_QUERIES_IN_FLIGHT); i++)
+		{
+			futures.add(submitQuery.apply(i));
+		}
+
+		final boolean cbor = MyJacksonCborProvider.isPreferred(headers);
+		ObjectMapper mapper = cbor ? MyJacksonCborProvider.getMapper() 
+				: providers.getContextResolver(ObjectMapper.class, MediaType.APPLICATION_JSON_TYPE).getContext(RestSearchBatchResult.class);
+		StreamingOutput stream = new StreamingOutput()
+		{
+			@Override
+			public void write(OutputStream output) throws IOException, WebApplicationException
+			{
+				try (JsonGenerator generator = mapper.getFactory().createGenerator(output))
+				{
+					generator.writeStartArray();
+					for (int i = 0; i < queries.length; i++)
+					{
+						RestSearchBatchResult result = completionService.take().get();
+						if (futures.size() < queries.length)
+						{
+							futures.add(submitQuery.apply(futures.size()));
+						}
+						generator.writeObject(result);
+						// Send each result as it completes
+						generator.flush();
+					}
+					generator.writeEndArray();
+				}
+				catch (InterruptedException | ExecutionException e)
+				{
+					throw new IOException("Unexpected error streaming batch search results", e);
+				}
+				finally
+				{
+					// Stop any queries that are still running, if the client went away
+					for (Future<RestSearchBatchResult> f : futures)
+					{
+						f.cancel(true);
+					}
+				}
+			}
+		};
+		return Response.ok(stream, cbor ? MyJacksonCborProvider.APPLICATION_CBOR_TYPE : MediaType.APPLICATION_JSON_TYPE).build();
 	}
 
 	/**
@@ -215,7 +392,8 @@ public class SearchAPIs
 	 * @param mergeOnConcept - Optional - if set to true - only one result will be returned per concept - even if that concept had 2 or more
 	 *            descriptions that matched the query. When false, you will get a search result for EACH matching description. When true, you will
 	 *            only get one search result, which is the search result with the best score for that concept (compared to the other search results
-	 *            for that concept)
+	 *            for that concept).  Results are merged as they are collected, so each page holds maxPageSize distinct concepts (unless the results 
+	 *            run out), and approximateTotal is a count of concepts.
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results. Supports:
 	 *            <br> 'uuid' (return the UUID of the matched semantic, rather than just the nid)
 	 *            <br> 'referencedConcept' (return the conceptChronology of the nearest concept found by following the referencedComponent references
@@ -246,7 +424,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.prefixComponent)
 	public RestSearchResultPage prefixSearch(@QueryParam(RequestParameters.query) String query,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
@@ -280,113 +458,20 @@ public class SearchAPIs
 			switch (temp)
 			{
 				case "association":
-					filter = (nid -> {
-						Optional<Integer> conNid = Frills.getNearestConcept(nid);
-						if (conNid.isPresent())
-						{
-							return Frills.definesAssociation(conNid.get());
-						}
-						return false;
-					});
+					filter = ConceptCategoryIndex.filter(Category.ASSOCIATION);
 					break;
 				case "mapset":
-					filter = (nid -> {
-						Optional<Integer> conNid = Frills.getNearestConcept(nid);
-						if (conNid.isPresent())
-						{
-							return Frills.definesMapping(conNid.get());
-						}
-						return false;
-					});
+					filter = ConceptCategoryIndex.filter(Category.MAPSET);
 					break;
 				case "sememe":
 				case "semantic":
-					filter = (nid -> {
-						Optional<Integer> conNid = Frills.getNearestConcept(nid);
-						if (conNid.isPresent())
-						{
-							boolean dynamic = Frills.definesDynamicSemantic(conNid.get());
-							if (dynamic)
-							{
-								return true;
-							}
-							else
-							{
-								if (Frills.definesIdentifierSemantic(conNid.get()))
-								{
-									return true;
-								}
-								Optional<Integer> staticType = Frills.getStaticSemanticType(conNid.get());
-								if (staticType.isPresent())
-								{
-									return true;
-								}
-								
-								//TODO handle other unannotated semantic types?
-							}
-						}
-						return false;
-					});
+					filter = ConceptCategoryIndex.filter(Category.SEMANTIC);
 					break;
 				case "refset":
-					filter = (nid -> {
-						Optional<Integer> conNid = Frills.getNearestConcept(nid);
-						if (conNid.isPresent())
-						{
-							try
-							{
-								DynamicUsageDescription dud = DynamicUsageDescriptionImpl.read(conNid.get());
-								return dud.getColumnInfo().length == 0;
-							}
-							catch (Exception e)
-							{
-								//not a dynamic refset, probe for some static refset types....
-								if (Frills.definesIdentifierSemantic(conNid.get()))
-								{
-									return false;
-								}
-								Optional<Integer> staticType = Frills.getStaticSemanticType(conNid.get());
-								if (staticType.isPresent())
-								{
-									//If it has this annotation, then the answer is true, unless its a membership semantic.
-									return staticType.get() == MetaData.MEMBERSHIP_SEMANTIC____SOLOR.getNid();
-								}
-								//TODO handle other unannotated semantic types?
-								return false;
-							}
-						}
-						return false;
-					});
+					filter = ConceptCategoryIndex.filter(Category.REFSET);
 					break;
 				case "property":
-					filter = (nid -> {
-						Optional<Integer> conNid = Frills.getNearestConcept(nid);
-						if (conNid.isPresent())
-						{
-							try
-							{
-								DynamicUsageDescription dud = DynamicUsageDescriptionImpl.read(conNid.get());
-								return dud.getColumnInfo().length > 0;
-							}
-							catch (Exception e)
-							{
-								//not a dynamic refset, probe for some static refset types....
-								if (Frills.definesIdentifierSemantic(conNid.get()))
-								{
-									return true;
-								}
-								Optional<Integer> staticType = Frills.getStaticSemanticType(conNid.get());
-								if (staticType.isPresent())
-								{
-									//If it has this annotation, then the answer is true, unless its a membership semantic.
-									return staticType.get() != MetaData.MEMBERSHIP_SEMANTIC____SOLOR.getNid();
-								}
-								//TODO handle other unannotated semantic types?
-								return false;
-							}
-						}
-						return false;
-					});
+					filter = ConceptCategoryIndex.filter(Category.PROPERTY);
 					break;
 				case "metadata":
 					// metadata restrict is now part of the query construction.
@@ -399,125 +484,85 @@ public class SearchAPIs
 
 		DescriptionIndexer indexer = LookupService.get().getService(DescriptionIndexer.class);
 
-		List<SearchResult> ochreSearchResults = indexer.query(query, true, null, filter, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()),
-				metadataRestrict, (int[])null, (int[])null, pageNum, maxPageSize, Long.MAX_VALUE);
-
-		if (mergeOnConcepts)
-		{
-			List<ConceptSearchResult> temp = indexer.mergeResultsOnConcept(ochreSearchResults);
-			ochreSearchResults = new ArrayList<>(temp.size());
-			for (ConceptSearchResult csr : temp)
-			{
-				ochreSearchResults.add((SearchResult) csr);
-			}
-		}
+		final Predicate<Integer> finalFilter = filter;
+		final boolean finalMetadataRestrict = metadataRestrict;
+		String key = SearchResultCache.key("prefix", query, restrictTo);
+		SearchResultCache.HitQuery hitQuery = (page, pageSize) -> indexer.query(query, true, null, finalFilter, 
+				AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), finalMetadataRestrict, (int[])null, (int[])null, page, pageSize, 
+				Long.MAX_VALUE);
+		// When merged, hits are collapsed on concept while they are collected, so each page is a full page of distinct concepts
+		SearchResultCache.Page hitPage = mergeOnConcepts ? SearchResultCache.getConceptPage(key, pageNum, maxPageSize, hitQuery)
+				: SearchResultCache.getPage(key, pageNum, maxPageSize, hitQuery);
 
 		String restPath = RestPaths.searchAppPathComponent + RestPaths.prefixComponent + "?" + RequestParameters.query + "=" + query;
-		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
+		return getRestSearchResultsFromOchreSearchResults(hitPage, pageNum, maxPageSize, restPath, query);
 	}
 
-	@SuppressWarnings({ "rawtypes" })
-	private Optional<RestSearchResult> createRestSearchResult(SearchResult sr, String query)
+	/**
+	 * A search interface for type-ahead style searching, which returns the best matching description for each of the top concepts.  The 
+	 * query is evaluated with the same rules as {@link #prefixSearch(String, int, int, String, String, String, String, String)} - every 
+	 * word of the query is required, and the last word is only required as a prefix, unless it is followed by a space.
+	 * 
+	 * Short queries are answered from an in-memory index of the words of the descriptions, rather than the lucene index.  Queries longer 
+	 * than typeahead_max_query_length, a single word prefix shorter than typeahead_min_prefix_length (see uts-rest-api.properties), and 
+	 * any query made before the in-memory index is built at startup, are answered by a lucene prefix search, merged on concept.  This call does not support paging - only the first page is returned.
+	 * 
+	 * @param query The query to be evaluated.
+	 * @param maxPageSize The maximum number of results (concepts) to return
+	 * @param expand Optional Comma separated list of fields to expand or include directly in the results. Supports the same values as 
+	 *            prefixSearch:
+	 *            <br> 'uuid' (return the UUID of the matched semantic, rather than just the nid)
+	 *            <br> 'referencedConcept' (return the conceptChronology of the concept that the matched description is on)
+	 *            <br> 'versionsLatestOnly', 'versionsAll', 'countParents', 'includeParents' - as for prefixSearch.
+	 * @param coordToken specifies an explicit serialized CoordinatesToken string specifying all coordinate parameters. A CoordinatesToken may be
+	 *            obtained by a separate (prior) call to getCoordinatesToken().
+	 *            <br>As with prefixSearch, the results are restricted to descriptions on the 'path' and 'modules' of the coordinates.
+	 * @param altId - (optional) the altId type(s) to populate in any returned RestIdentifiedObject structures.  By default, no alternate IDs are 
+	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
+	 *     performance. 
+	 *
+	 * @return the best matching description of each concept, best match first.  When answered from the in-memory index, the score is the 
+	 *         length of the query relative to the length of the description, rather than a lucene score.
+	 * @throws RestException
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
+	@Path(RestPaths.typeaheadComponent)
+	public RestSearchResultPage typeaheadSearch(@QueryParam(RequestParameters.query) String query,
+			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.expand) String expand, @QueryParam(RequestParameters.coordToken) String coordToken,
+			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
-		switch (Get.identifierService().getObjectTypeForComponent(sr.getNid()))
-		{
-			case CONCEPT:
-				ConceptChronology cc = ((ConceptChronology) Get.conceptService().getConceptChronology(sr.getNid()));
-				LatestVersion<Version> concept = cc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-				Util.logContradictions(log, concept);
-				if (concept.isPresent())
-				{
-					return Optional.of(new RestSearchResult(sr.getNid(), query, sr.getScore(), concept.get().getStatus(), cc.getNid()));
-				}
-				break;
-			case SEMANTIC:
-			{
-				SemanticChronology sc = Get.assemblageService().getSemanticChronology(sr.getNid());
-				Integer conceptNid = null;
-				if (sr instanceof ConceptSearchResult)
-				{
-					conceptNid = ((ConceptSearchResult) sr).getConceptNid();
-				}
+		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.query,
+				RequestParameters.maxPageSize, RequestParameters.expand, RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
+		
+		RequestInfo.get().validateMethodExpansions(ExpandUtil.uuid, ExpandUtil.referencedConcept, ExpandUtil.versionsLatestOnlyExpandable, 
+				ExpandUtil.versionsAllExpandable, ExpandUtil.countParents, ExpandUtil.includeParents);
 
-				switch (sc.getVersionType())
-				{
-					case DESCRIPTION:
-						LatestVersion<DescriptionVersion> text = sc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-						Util.logContradictions(log, text);
-						if (text.isPresent())
-						{
-							// TODO handle contradictions
-							return Optional.of(new RestSearchResult(sr.getNid(), text.get().getText(), sr.getScore(), text.get().getStatus(), conceptNid));
-						}
-						break;
-					case LONG:
-						LatestVersion<LongVersion> longSemantic = sc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-						Util.logContradictions(log, longSemantic);
-						if (longSemantic.isPresent())
-						{
-							// TODO handle contradictions
-							return Optional.of(new RestSearchResult(sr.getNid(), longSemantic.get().getLongValue() + "", sr.getScore(),
-									longSemantic.get().getStatus(), conceptNid));
-						}
-						break;
-					case STRING:
-						LatestVersion<StringVersion> stringSemantic = sc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-						Util.logContradictions(log, stringSemantic);
-						if (stringSemantic.isPresent())
-						{
-							return Optional.of(new RestSearchResult(sr.getNid(), stringSemantic.get().getString(), sr.getScore(), stringSemantic.get().getStatus(),
-									conceptNid));
-						}
-						break;
-					case DYNAMIC:
-						LatestVersion<DynamicVersion> ds = sc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-						Util.logContradictions(log, ds);
-						if (ds.isPresent())
-						{
-							return Optional
-									.of(new RestSearchResult(sr.getNid(), ds.get().dataToString(), sr.getScore(), ds.get().getStatus(), conceptNid));
-						}
-						break;
-					// No point in reading back details on these, they will be exactly what was searched for
-					case COMPONENT_NID:
-					case LOGIC_GRAPH:
-						// Should never match on these, just let them fall through
-					case UNKNOWN:
-					case MEMBER:
-					case CONCEPT:
-						// Might need to improve support for these, if they stick around long term...
-					case Int1_Int2_Str3_Str4_Str5_Nid6_Nid7:
-					case LOINC_RECORD:
-					case Nid1_Int2:
-					case Nid1_Int2_Str3_Str4_Nid5_Nid6:
-					case Nid1_Nid2:
-					case Nid1_Nid2_Int3:
-					case Nid1_Nid2_Str3:
-					case Nid1_Str2:
-					case RF2_RELATIONSHIP:
-					case Str1_Nid2_Nid3_Nid4:
-					case Str1_Str2:
-					case Str1_Str2_Nid3_Nid4:
-					case Str1_Str2_Nid3_Nid4_Nid5:
-					case Str1_Str2_Str3_Str4_Str5_Str6_Str7:
-					default :
-						LatestVersion<Version> sv = sc.getLatestVersion(RequestInfo.get().getStampCoordinate());
-						Util.logContradictions(log, sv);
-						if (sv.isPresent())
-						{
-							return Optional.of(new RestSearchResult(sr.getNid(), query.trim(), sr.getScore(), sv.get().getStatus(), conceptNid));
-						}
-						break;
-				}
-				break;
-			}
-			case UNKNOWN:
-			default :
-				log.error("Unexpected case of unknown nid type in search result handling! nid: " + sr.getNid());
-				break;
+		if (StringUtils.isBlank(query))
+		{
+			throw new RestException("The parameter 'query' must contain at least one character");
+		}
 
+		List<SearchResult> ochreSearchResults;
+		if (TypeaheadIndex.isReady() && query.length() <= RestConfig.getInstance().getTypeaheadMaxQueryLength() 
+				&& !TypeaheadIndex.isShortPrefix(query, RestConfig.getInstance().getTypeaheadMinPrefixLength()))
+		{
+			log.debug("Performing typeahead search for '" + query + "' from the typeahead index");
+			ochreSearchResults = TypeaheadIndex.search(query, maxPageSize, RequestInfo.get().getStampCoordinate());
 		}
-		return Optional.empty();
+		else
+		{
+			log.debug("Performing typeahead search for '" + query + "' from the lucene index");
+			DescriptionIndexer indexer = LookupService.get().getService(DescriptionIndexer.class);
+			// The same hits as an unrestricted prefix search
+			ochreSearchResults = SearchResultCache.getConceptPage(SearchResultCache.key("prefix", query, (Object) null), 1, maxPageSize, 
+					(page, pageSize) -> indexer.query(query, true, null, null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), 
+							false, (int[])null, (int[])null, page, pageSize, Long.MAX_VALUE)).hits;
+		}
+
+		String restPath = RestPaths.searchAppPathComponent + RestPaths.typeaheadComponent + "?" + RequestParameters.query + "=" + query;
+		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, 1, maxPageSize, restPath, query);
 	}
 
 	/**
@@ -573,7 +618,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.semanticsComponent)
 	public RestSearchResultPage semanticSearch(@QueryParam(RequestParameters.query) String query,
 			@QueryParam(RequestParameters.treatAsString) Boolean treatAsString,
@@ -615,69 +660,96 @@ public class SearchAPIs
 			throw new RestException("The query must contain at least one character");
 		}
 
+		final int[] assemblages = processAssemblageRestrictions(semanticAssemblageId);
+		final int[] columns = toArray(dynamicSemanticColumns);
+
 		if (treatAsString != null && treatAsString.booleanValue())
 		{
 			// We want to send in this query text as a string, even if it is parseable as a number, because
 			// all "IDs" are stored as string semantics for consistency.
 			log.debug("Performing semantic search for '" + query + "' - treating it as a string");
 
-			List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexSemanticQueryService.class).queryData(
-					new DynamicStringImpl(searchString), false, processAssemblageRestrictions(semanticAssemblageId), toArray(dynamicSemanticColumns), null,
-					AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), pageNum, maxPageSize, Long.MAX_VALUE);
-			return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
+			SearchResultCache.Page hitPage = SearchResultCache.getPage(SearchResultCache.key("semanticString", searchString, assemblages, columns), 
+					pageNum, maxPageSize, (page, pageSize) -> LookupService.get().getService(IndexSemanticQueryService.class).queryData(
+							new DynamicStringImpl(searchString), false, assemblages, columns, null,
+							AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), page, pageSize, Long.MAX_VALUE));
+			return getRestSearchResultsFromOchreSearchResults(hitPage, pageNum, maxPageSize, restPath, query);
 		}
 		else
 		{
-			// Try to determine the most sensible way to search.
-			// Is it a number?
-			boolean wasNumber = true;
-			boolean wasInterval = true;
-			try
+			// Determine the most sensible way to search - as a number, an interval, or a string.
+			final Number number = parseNumber(searchString);
+			final Interval interval = number == null ? parseInterval(searchString) : null;
+			SearchResultCache.Page hitPage;
+			if (number != null)
 			{
-				List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexSemanticQueryService.class).queryData(
-						NumericUtilsDynamic.wrapIntoRefexHolder(NumericUtilsDynamic.parseUnknown(query)), false, processAssemblageRestrictions(semanticAssemblageId),
-						toArray(dynamicSemanticColumns), null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), pageNum, maxPageSize,
-						Long.MAX_VALUE);
-				return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
+				log.debug("Performing semantic search for '" + query + "' - treating it as a number");
+				hitPage = SearchResultCache.getPage(SearchResultCache.key("semanticNumber", searchString, assemblages, columns), pageNum, maxPageSize, 
+						(page, pageSize) -> NumericColumnIndex.canQuery(assemblages) 
+							? NumericColumnIndex.query(assemblages, columns, number, true, number, true, RequestInfo.get().getStampCoordinate(), page, pageSize)
+							: LookupService.get().getService(IndexSemanticQueryService.class).queryData(NumericUtilsDynamic.wrapIntoRefexHolder(number), false, 
+									assemblages, columns, null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), page, pageSize, 
+									Long.MAX_VALUE));
 			}
-			catch (NumberFormatException e)
+			else if (interval != null)
 			{
-				wasNumber = false;
-				// Not a number. Is it an interval?
-				try
-				{
-					Interval interval = new Interval(searchString);
-					List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexSemanticQueryService.class).queryNumericRange(
-							interval.getLeft(), interval.isLeftInclusive(), interval.getRight(), interval.isRightInclusive(),
-							processAssemblageRestrictions(semanticAssemblageId), toArray(dynamicSemanticColumns), null,
-							AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), pageNum, maxPageSize, Long.MAX_VALUE);
-					return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
-				}
-				catch (NumberFormatException e1)
-				{
-					wasInterval = false;
-					// nope Run it as a string search.
-					List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexSemanticQueryService.class).queryData(
-							new DynamicStringImpl(searchString), false, processAssemblageRestrictions(semanticAssemblageId), toArray(dynamicSemanticColumns),
-							null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), pageNum, maxPageSize, Long.MAX_VALUE);
-					return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, query);
-				}
+				log.debug("Performing semantic search for '" + query + "' - treating it as an interval");
+				hitPage = SearchResultCache.getPage(SearchResultCache.key("semanticInterval", searchString, assemblages, columns), pageNum, maxPageSize, 
+						(page, pageSize) -> NumericColumnIndex.canQuery(assemblages) 
+							? NumericColumnIndex.query(assemblages, columns, interval.getLeft(), interval.isLeftInclusive(), interval.getRight(), 
+									interval.isRightInclusive(), RequestInfo.get().getStampCoordinate(), page, pageSize)
+							: LookupService.get().getService(IndexSemanticQueryService.class).queryNumericRange(interval.getLeft(), interval.isLeftInclusive(), 
+									interval.getRight(), interval.isRightInclusive(), assemblages, columns, null, 
+									AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), page, pageSize, Long.MAX_VALUE));
 			}
-			finally
+			else
 			{
-				if (wasNumber)
-				{
-					log.debug("Performed semantic search for '" + query + "' - treating it as a number");
-				}
-				else if (wasInterval)
-				{
-					log.debug("Performed semantic search for '" + query + "' - treating it as an interval");
-				}
-				else
-				{
-					log.debug("Performed semantic search for '" + query + "' - treating it as a string");
-				}
+				log.debug("Performing semantic search for '" + query + "' - treating it as a string");
+				hitPage = SearchResultCache.getPage(SearchResultCache.key("semanticString", searchString, assemblages, columns), pageNum, maxPageSize, 
+						(page, pageSize) -> LookupService.get().getService(IndexSemanticQueryService.class).queryData(new DynamicStringImpl(searchString), false, 
+								assemblages, columns, null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), page, pageSize, 
+								Long.MAX_VALUE));
 			}
+			return getRestSearchResultsFromOchreSearchResults(hitPage, pageNum, maxPageSize, restPath, query);
+		}
+	}
+
+	/**
+	 * @return the query as a number, if it is in a numeric format, otherwise, null
+	 */
+	private static Number parseNumber(String query)
+	{
+		if (!NUMBER_PATTERN.matcher(query).matches())
+		{
+			return null;
+		}
+		try
+		{
+			return NumericUtilsDynamic.parseUnknown(query);
+		}
+		catch (NumberFormatException e)
+		{
+			// Numeric looking, but out of range
+			return null;
+		}
+	}
+
+	/**
+	 * @return the query as an interval, if it is in an interval format - such as [4,6] or (5,10] or [4,] - otherwise, null
+	 */
+	private static Interval parseInterval(String query)
+	{
+		if (!INTERVAL_PATTERN.matcher(query).matches())
+		{
+			return null;
+		}
+		try
+		{
+			return new Interval(query);
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
 		}
 	}
 
@@ -732,7 +804,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.forReferencedComponentComponent)
 	public RestSearchResultPage nidReferences(@QueryParam(RequestParameters.nid) int nid,
 			@QueryParam(RequestParameters.semanticAssemblageId) Set<String> semanticAssemblageId,
@@ -766,18 +838,20 @@ public class SearchAPIs
 		}
 		restPath += (!StringUtils.isBlank(expand) ? ("&" + RequestParameters.expand + "=" + expand) : "");
 
-		List<SearchResult> ochreSearchResults = LookupService.get().getService(IndexSemanticQueryService.class).queryNidReference(nid,
-				processAssemblageRestrictions(semanticAssemblageId), toArray(dynamicSemanticColumns), null,
-				AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), pageNum, maxPageSize, Long.MAX_VALUE);
-		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, nid + "");
+		final int[] assemblages = processAssemblageRestrictions(semanticAssemblageId);
+		final int[] columns = toArray(dynamicSemanticColumns);
+		SearchResultCache.Page hitPage = SearchResultCache.getPage(SearchResultCache.key("nidReference", nid + "", assemblages, columns), pageNum,
+				maxPageSize, (page, pageSize) -> LookupService.get().getService(IndexSemanticQueryService.class).queryNidReference(nid, assemblages, columns, 
+						null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), page, pageSize, Long.MAX_VALUE));
+		return getRestSearchResultsFromOchreSearchResults(hitPage, pageNum, maxPageSize, restPath, nid + "");
 	}
 
 	/**
-	 * Do a lookup, essentially, of a component by an internal identifier. This supports UUIDs, and NIDs.
-	 * Note that, despite the name of the method, this should not be used to search by external identifiers such as VUIDs or SCTIDs - for those, use
-	 * the semanticSearch api call.
+	 * Do a lookup, essentially, of a component by an identifier. This supports UUIDs, NIDs, and the alternate identifiers of any of the semantic 
+	 * based types returned by /1/id/types, such as VUIDs or SCTIDs.  Values that are not a UUID or a NID are looked up as an exact (case sensitive)
+	 * match of an alternate identifier, of any type, in any version of the identifier (as for /1/id/translate), regardless of the coordinates.
 	 * 
-	 * @param query The identifier to look for. Expected to be parseable as a UUID, or an integer.
+	 * @param query The identifier to look for. Expected to be a UUID, a NID, or an alternate identifier.
 	 * @param pageNum The pagination page number >= 1 to return
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
 	 * @param expand Optional Comma separated list of fields to expand or include directly in the results. Supports:
@@ -806,7 +880,7 @@ public class SearchAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.idComponent)
 	public RestSearchResultPage idSearch(@QueryParam(RequestParameters.query) String query,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
@@ -825,7 +899,7 @@ public class SearchAPIs
 
 		if (StringUtils.isBlank(query))
 		{
-			throw new RestException("The parameter 'query' must be a UUID or an integer for an id query");
+			throw new RestException("The parameter 'query' must be a UUID, a nid or an alternate identifier for an id query");
 		}
 		String temp = query.trim();
 		Optional<UUID> uuid = UUIDUtil.getUUID(temp);
@@ -839,26 +913,26 @@ public class SearchAPIs
 		else
 		{
 			OptionalInt intValue = NumericUtils.getInt(temp);
-			if (intValue.isPresent())
+			if (intValue.isPresent() && intValue.getAsInt() < 0 
+					&& Get.identifierService().getObjectTypeForComponent(intValue.getAsInt()) != IsaacObjectType.UNKNOWN)
 			{
-				if (intValue.getAsInt() < 0 && Get.identifierService().getObjectTypeForComponent(intValue.getAsInt()) != IsaacObjectType.UNKNOWN)
+				Optional<? extends Chronology> obj = Get.identifiedObjectService().getChronology(intValue.getAsInt());
+				if (obj.isPresent())
 				{
-					Optional<? extends Chronology> obj = Get.identifiedObjectService().getChronology(intValue.getAsInt());
-					if (obj.isPresent())
-					{
-						results.add(new ComponentSearchResult(obj.get().getNid(), 1));
-					}
+					results.add(new ComponentSearchResult(obj.get().getNid(), 1));
+				}
+			}
+			else
+			{
+				for (int nid : AltIdIndex.getNids(temp))
+				{
+					results.add(new ComponentSearchResult(nid, 1));
 				}
 			}
 		}
 
-		List<SearchResult> ochreSearchResults = new ArrayList<>();
-		for (ConceptSearchResult csr : LookupService.get().getService(DescriptionIndexer.class).mergeResultsOnConcept(results))
-		{
-			ochreSearchResults.add((SearchResult) csr);
-		}
-
-		return getRestSearchResultsFromOchreSearchResults(ochreSearchResults, pageNum, maxPageSize, restPath, temp);
+		return getRestSearchResultsFromOchreSearchResults(SearchResultCache.getConceptPage(results, pageNum, maxPageSize), pageNum, maxPageSize, restPath, 
+				temp);
 	}
 
 	private int[] processAssemblageRestrictions(Set<String> semanticAssemblageIds) throws RestException
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import net.sagebits.tmp.isaac.rest.api.data.PaginationUtils;
+import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
+import net.sagebits.tmp.isaac.rest.cache.CommitWatcher;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import sh.isaac.api.index.ComponentSearchResult;
+import sh.isaac.api.index.SearchResult;
+import sh.isaac.utility.Frills;
+
+/**
+ * {@link SearchResultCache}
+ * 
+ * Caches the ranked hits (nid and score) of index queries, so that paging through the results of a query doesn't re-run the query for each 
+ * page.  Queries are run for a block of hits that covers the requested page (and at least one more hit), and later pages within the block 
+ * are served from the cache.  When the block holds every hit of the query, the total hit count is exact - otherwise, it is a lower bound.  
+ * Pages past the cached hits are read directly, with a look ahead of one hit, so the last page is still known, and has an exact total.
+ * 
+ * Entries are keyed by the search, the normalized query, the filters, and the coordinates token, and are cleared on any change or commit.  
+ * As the indexes are updated shortly after a change, rather than at the time of the change, results read within 
+ * {@value #INDEX_REFRESH_WINDOW} ms of a change are not cached.
+ */
+class SearchResultCache
+{
+	private static final int FETCH_BLOCK = 100;
+	private static final int MAX_CACHED_HITS = 2000;
+	private static final long INDEX_REFRESH_WINDOW = 10000;
+	private static final int MAX_COLLAPSED_HITS = 20000;
+
+	private static final StripedCache<String, Hits> HITS_CACHE = new StripedCache<>("Search result hits", 500);
+
+	static
+	{
+		CommitWatcher.addChangeListener(() -> HITS_CACHE.clear());
+	}
+
+	private SearchResultCache()
+	{
+		// static utility
+	}
+
+	@FunctionalInterface
+	interface HitQuery
+	{
+		List<SearchResult> query(int pageNum, int maxPageSize);
+	}
+
+	/**
+	 * Build a cache key for a search, for the coordinates of the current request.
+	 * @param search the name of the search, which must be unique per kind of index query.
+	 * @param query the query text
+	 * @param filters any other values that change the result of the query.  Arrays and collections are order independent.
+	 * @return the key
+	 */
+	static String key(String search, String query, Object ... filters)
+	{
+		StringBuilder sb = new StringBuilder(search).append('|').append(normalize(query));
+		for (Object filter : filters)
+		{
+			sb.append('|');
+			if (filter instanceof int[])
+			{
+				int[] sorted = ((int[]) filter).clone();
+				Arrays.sort(sorted);
+				sb.append(Arrays.toString(sorted));
+			}
+			else if (filter instanceof Collection)
+			{
+				TreeSet<String> sorted = new TreeSet<>();
+				for (Object o : (Collection<?>) filter)
+				{
+					sorted.add(String.valueOf(o));
+				}
+				sb.append(sorted);
+			}
+			else if (filter != null)
+			{
+				sb.append(filter);
+			}
+		}
+		sb.append('|').append(RequestInfo.get().getCoordinatesToken().getSerialized());
+		return sb.toString();
+	}
+
+	/**
+	 * Collapse runs of whitespace, and remove leading whitespace.  Trailing whitespace is kept, as it is significant to the prefix search.
+	 */
+	private static String normalize(String query)
+	{
+		if (query == null)
+		{
+			return "";
+		}
+		String collapsed = query.replaceAll("\\s+", " ");
+		return collapsed.startsWith(" ") ? collapsed.substring(1) : collapsed;
+	}
+
+	/**
+	 * @param key the key from {@link #key(String, String, Object...)}
+	 * @param pageNum the page to return
+	 * @param maxPageSize the size of a page
+	 * @param hitQuery the index query to run, if the page isn't cached
+	 * @return the hits on the requested page, and what is known of the total
+	 * @throws RestException if the paging parameters are invalid
+	 */
+	static Page getPage(String key, int pageNum, int maxPageSize, HitQuery hitQuery) throws RestException
+	{
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+		long needed = (long) pageNum * maxPageSize;
+		if (needed >= MAX_CACHED_HITS)
+		{
+			List<SearchResult> results = hitQuery.query(pageNum, maxPageSize);
+			int total = (pageNum - 1) * maxPageSize + results.size();
+			if (results.size() < maxPageSize)
+			{
+				// A short page is the last page - unless it is empty, in which case we only know the hits end before it.
+				return new Page(results, total, !results.isEmpty(), false);
+			}
+			// Look ahead one hit, so we know if there is another page
+			boolean hasMore = !hitQuery.query((int) needed + 1, 1).isEmpty();
+			return new Page(results, total, !hasMore, hasMore);
+		}
+
+		Hits hits = HITS_CACHE.get(key);
+		if (hits == null || (!hits.complete && hits.nids.length <= needed))
+		{
+			// One more than needed, so we know if there is another page
+			hits = fetch(key, (int) Math.min(MAX_CACHED_HITS, ((needed + FETCH_BLOCK) / FETCH_BLOCK) * FETCH_BLOCK), hitQuery);
+		}
+
+		int from = (pageNum - 1) * maxPageSize;
+		int to = Math.min(hits.nids.length, from + maxPageSize);
+		ArrayList<SearchResult> page = new ArrayList<>(Math.max(0, to - from));
+		for (int i = from; i < to; i++)
+		{
+			page.add(new ComponentSearchResult(hits.nids[i], hits.scores[i]));
+		}
+		return new Page(page, hits.nids.length, hits.complete, hits.nids.length > to);
+	}
+
+	/**
+	 * As {@link #getPage(String, int, int, HitQuery)}, but the hits are collapsed on concept as they are collected - each concept is returned 
+	 * once, at the rank (and with the score) of its best hit, and a page holds maxPageSize distinct concepts, unless the hits run out.  More 
+	 * hits are read, in growing blocks, as later pages of the query, until there are enough concepts for the page (up to 
+	 * {@value #MAX_COLLAPSED_HITS} hits).  Each block is appended to the hits already read, and only its own hits are collapsed.  The total 
+	 * is a count of concepts.
+	 * 
+	 * @param key the key from {@link #key(String, String, Object...)}, which may be shared with uncollapsed pages of the same query
+	 * @param pageNum the page to return
+	 * @param maxPageSize the size of a page
+	 * @param hitQuery the index query to run, if the hits aren't cached
+	 * @return the best hit of each concept on the requested page, and what is known of the total number of concepts
+	 * @throws RestException if the paging parameters are invalid
+	 */
+	static Page getConceptPage(String key, int pageNum, int maxPageSize, HitQuery hitQuery) throws RestException
+	{
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+		long needed = (long) pageNum * maxPageSize;
+		Hits hits = HITS_CACHE.get(key);
+		if (hits == null)
+		{
+			hits = fetch(key, (int) Math.min(MAX_COLLAPSED_HITS, ((needed + FETCH_BLOCK) / FETCH_BLOCK) * FETCH_BLOCK), hitQuery);
+		}
+		while (!hits.complete && hits.concepts().length <= needed && hits.fetched < MAX_COLLAPSED_HITS)
+		{
+			hits = fetchMore(key, hits, hitQuery);
+		}
+
+		int[] concepts = hits.concepts();
+		int from = (pageNum - 1) * maxPageSize;
+		int to = Math.min(concepts.length, from + maxPageSize);
+		ArrayList<SearchResult> page = new ArrayList<>(Math.max(0, to - from));
+		for (int i = from; i < to; i++)
+		{
+			page.add(new ComponentSearchResult(hits.nids[concepts[i]], hits.scores[concepts[i]]));
+		}
+		return new Page(page, concepts.length, hits.complete, concepts.length > to);
+	}
+
+	/**
+	 * Collapse a complete, ranked, list of hits on concept - see {@link #getConceptPage(String, int, int, HitQuery)} - and return a page of it.
+	 * @param results all of the hits
+	 * @param pageNum the page to return
+	 * @param maxPageSize the size of a page
+	 * @return the best hit of each concept on the requested page, with an exact total
+	 * @throws RestException if the paging parameters are invalid
+	 */
+	static Page getConceptPage(List<SearchResult> results, int pageNum, int maxPageSize) throws RestException
+	{
+		PaginationUtils.validateParameters(pageNum, maxPageSize);
+		Hits hits = new Hits(results, Integer.MAX_VALUE);
+		int[] concepts = hits.concepts();
+		long from = (long) (pageNum - 1) * maxPageSize;
+		ArrayList<SearchResult> page = new ArrayList<>();
+		for (long i = from; i < concepts.length && i < from + maxPageSize; i++)
+		{
+			page.add(new ComponentSearchResult(hits.nids[concepts[(int) i]], hits.scores[concepts[(int) i]]));
+		}
+		return new Page(page, concepts.length, true, concepts.length > from + maxPageSize);
+	}
+
+	/**
+	 * Run the query for the first block of hits, caching the result, if it is safe to do so.
+	 */
+	private static Hits fetch(String key, int fetch, HitQuery hitQuery)
+	{
+		long sequence = CommitWatcher.getChangeSequence();
+		return cache(key, new Hits(hitQuery.query(1, fetch), fetch), sequence);
+	}
+
+	/**
+	 * Run the query for the next block of hits, after those already read, as a later page of the query - up to as many hits again as have 
+	 * been read, and no more than {@value #MAX_COLLAPSED_HITS} in all.  The page size of the block has to divide the hits already read, so 
+	 * that the block starts on a page boundary - the largest that does is used.
+	 */
+	private static Hits fetchMore(String key, Hits hits, HitQuery hitQuery)
+	{
+		long sequence = CommitWatcher.getChangeSequence();
+		int maxBlock = Math.min(hits.fetched, MAX_COLLAPSED_HITS - hits.fetched);
+		int pagesRead = (hits.fetched + maxBlock - 1) / maxBlock;
+		while (hits.fetched % pagesRead != 0)
+		{
+			pagesRead++;
+		}
+		int block = hits.fetched / pagesRead;
+		return cache(key, new Hits(hits, hitQuery.query(pagesRead + 1, block), block), sequence);
+	}
+
+	/**
+	 * Cache the hits, if they are small enough, and nothing has changed since (or shortly before) the query was run.
+	 */
+	private static Hits cache(String key, Hits hits, long sequence)
+	{
+		if (hits.fetched <= MAX_CACHED_HITS && sequence == CommitWatcher.getChangeSequence() 
+				&& System.currentTimeMillis() - CommitWatcher.getLastChangeTime() > INDEX_REFRESH_WINDOW)
+		{
+			HITS_CACHE.put(key, hits);
+		}
+		return hits;
+	}
+
+	/**
+	 * A page of hits, and what is known of the total number of hits of the query.
+	 */
+	static class Page
+	{
+		final List<SearchResult> hits;
+		final int total;
+		final boolean totalIsExact;
+		final boolean hasMore;
+
+		private Page(List<SearchResult> hits, int total, boolean totalIsExact, boolean hasMore)
+		{
+			this.hits = hits;
+			this.total = total;
+			this.totalIsExact = totalIsExact;
+			this.hasMore = hasMore;
+		}
+	}
+
+	private static class Hits
+	{
+		private final int[] nids;
+		private final float[] scores;
+		private final boolean complete;
+		private final int fetched;
+		private volatile Collapsed collapsed;
+
+		private Hits(List<SearchResult> results, int fetched)
+		{
+			this.fetched = fetched;
+			nids = new int[results.size()];
+			scores = new float[results.size()];
+			for (int i = 0; i < nids.length; i++)
+			{
+				nids[i] = results.get(i).getNid();
+				scores[i] = results.get(i).getScore();
+			}
+			// If the query returned fewer than requested, there are no more.
+			complete = nids.length < fetched;
+		}
+
+		/**
+		 * The hits read so far, followed by the next block of hits.  The hits read so far are not collapsed again.
+		 */
+		private Hits(Hits previous, List<SearchResult> results, int block)
+		{
+			this.fetched = previous.fetched + block;
+			nids = Arrays.copyOf(previous.nids, previous.nids.length + results.size());
+			scores = Arrays.copyOf(previous.scores, nids.length);
+			for (int i = 0; i < results.size(); i++)
+			{
+				nids[previous.nids.length + i] = results.get(i).getNid();
+				scores[previous.nids.length + i] = results.get(i).getScore();
+			}
+			complete = results.size() < block;
+			collapsed = previous.collapse().extend(nids, previous.nids.length);
+		}
+
+		/**
+		 * @return the indexes of the best (first) hit on each concept, in rank order
+		 */
+		private int[] concepts()
+		{
+			return collapse().concepts;
+		}
+
+		private Collapsed collapse()
+		{
+			Collapsed result = collapsed;
+			if (result == null)
+			{
+				result = new Collapsed(new int[0], new HashSet<>()).extend(nids, 0);
+				collapsed = result;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The indexes of the best hit on each concept, and the concepts seen, of some leading part of the hits of a query.
+	 */
+	private static class Collapsed
+	{
+		private final int[] concepts;
+		private final HashSet<Integer> seen;
+
+		private Collapsed(int[] concepts, HashSet<Integer> seen)
+		{
+			this.concepts = concepts;
+			this.seen = seen;
+		}
+
+		/**
+		 * @return the collapse of the hits, where the hits before {@code from} are those collapsed here.  This is not changed.
+		 */
+		private Collapsed extend(int[] nids, int from)
+		{
+			HashSet<Integer> extendedSeen = new HashSet<>(seen);
+			int[] added = IntStream.range(from, nids.length).filter(i -> extendedSeen.add(Frills.getNearestConcept(nids[i]).orElse(nids[i]))).toArray();
+			int[] extended = Arrays.copyOf(concepts, concepts.length + added.length);
+			System.arraycopy(added, 0, extended, concepts.length, added.length);
+			return new Collapsed(extended, extendedSeen);
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import net.sagebits.tmp.isaac.rest.Util;
+import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptChronology;
+import net.sagebits.tmp.isaac.rest.api1.data.search.RestSearchResult;
+import net.sagebits.tmp.isaac.rest.cache.IdentifierCache;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import sh.isaac.api.Get;
+import sh.isaac.api.Status;
+import sh.isaac.api.chronicle.LatestVersion;
+import sh.isaac.api.chronicle.Version;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.DescriptionVersion;
+import sh.isaac.api.component.semantic.version.DynamicVersion;
+import sh.isaac.api.component.semantic.version.LongVersion;
+import sh.isaac.api.component.semantic.version.StringVersion;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.api.externalizable.IsaacObjectType;
+import sh.isaac.api.index.ConceptSearchResult;
+import sh.isaac.api.index.SearchResult;
+
+/**
+ * {@link SearchResultMaterializer}
+ * 
+ * Turns a page of index search results into {@link RestSearchResult}s, in two passes.  The first pass reads the object type, chronology 
+ * and latest version of every hit (in parallel, for larger pages), with the stamp coordinate passed in explicitly, as it doesn't run on 
+ * the request thread.  The second pass builds the REST results on the request thread, and builds each referenced concept expansion once,
+ * no matter how many of the hits are on the same concept.
+ */
+class SearchResultMaterializer
+{
+	private static Logger log = LogManager.getLogger();
+
+	// Pages smaller than this are read on the request thread, as they aren't worth the hand off.
+	private static final int PARALLEL_THRESHOLD = 50;
+
+	private SearchResultMaterializer()
+	{
+		// static utility
+	}
+
+	/**
+	 * @param hits the search results to materialize
+	 * @param query the query, which is returned as the match text for hits that don't have a meaningful text value
+	 * @return the results, in the order of the hits.  Hits that are not present on the stamp coordinate of the request are omitted.
+	 */
+	static List<RestSearchResult> materialize(List<? extends SearchResult> hits, String query)
+	{
+		StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+		Match[] matches = new Match[hits.size()];
+		IntStream indexes = IntStream.range(0, matches.length);
+		(matches.length >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes).forEach(i -> matches[i] = read(hits.get(i), query, stamp));
+
+		HashMap<Integer, RestConceptChronology> referencedConcepts = new HashMap<>();
+		List<RestSearchResult> results = new ArrayList<>(matches.length);
+		for (Match match : matches)
+		{
+			if (match != null)
+			{
+				results.add(new RestSearchResult(match.nid, match.text, match.score, match.status, match.conceptNid, referencedConcepts));
+			}
+		}
+		return results;
+	}
+
+	@SuppressWarnings({ "rawtypes" })
+	private static Match read(SearchResult sr, String query, StampCoordinate stamp)
+	{
+		switch (IdentifierCache.getObjectType(sr.getNid()))
+		{
+			case CONCEPT:
+				ConceptChronology cc = Get.conceptService().getConceptChronology(sr.getNid());
+				LatestVersion<Version> concept = cc.getLatestVersion(stamp);
+				Util.logContradictions(log, concept);
+				if (concept.isPresent())
+				{
+					return new Match(sr, query, concept.get().getStatus(), cc.getNid());
+				}
+				break;
+			case SEMANTIC:
+			{
+				SemanticChronology sc = Get.assemblageService().getSemanticChronology(sr.getNid());
+				Integer conceptNid = null;
+				if (sr instanceof ConceptSearchResult)
+				{
+					conceptNid = ((ConceptSearchResult) sr).getConceptNid();
+				}
+				else if (IdentifierCache.getObjectType(sc.getReferencedComponentNid()) == IsaacObjectType.CONCEPT)
+				{
+					// Saves a walk to the nearest concept, if the referenced concept is expanded
+					conceptNid = sc.getReferencedComponentNid();
+				}
+
+				switch (sc.getVersionType())
+				{
+					case DESCRIPTION:
+						LatestVersion<DescriptionVersion> text = sc.getLatestVersion(stamp);
+						Util.logContradictions(log, text);
+						if (text.isPresent())
+						{
+							// TODO handle contradictions
+							return new Match(sr, text.get().getText(), text.get().getStatus(), conceptNid);
+						}
+						break;
+					case LONG:
+						LatestVersion<LongVersion> longSemantic = sc.getLatestVersion(stamp);
+						Util.logContradictions(log, longSemantic);
+						if (longSemantic.isPresent())
+						{
+							// TODO handle contradictions
+							return new Match(sr, longSemantic.get().getLongValue() + "", longSemantic.get().getStatus(), conceptNid);
+						}
+						break;
+					case STRING:
+						LatestVersion<StringVersion> stringSemantic = sc.getLatestVersion(stamp);
+						Util.logContradictions(log, stringSemantic);
+						if (stringSemantic.isPresent())
+						{
+							return new Match(sr, stringSemantic.get().getString(), stringSemantic.get().getStatus(), conceptNid);
+						}
+						break;
+					case DYNAMIC:
+						LatestVersion<DynamicVersion> ds = sc.getLatestVersion(stamp);
+						Util.logContradictions(log, ds);
+						if (ds.isPresent())
+						{
+							return new Match(sr, ds.get().dataToString(), ds.get().getStatus(), conceptNid);
+						}
+						break;
+					default :
+						// No point in reading back details on the other types, they will be exactly what was searched for
+						LatestVersion<Version> sv = sc.getLatestVersion(stamp);
+						Util.logContradictions(log, sv);
+						if (sv.isPresent())
+						{
+							return new Match(sr, query.trim(), sv.get().getStatus(), conceptNid);
+						}
+						break;
+				}
+				break;
+			}
+			case UNKNOWN:
+			default :
+				log.error("Unexpected case of unknown nid type in search result handling! nid: " + sr.getNid());
+				break;
+		}
+		return null;
+	}
+
+	private static class Match
+	{
+		private final int nid;
+		private final String text;
+		private final float score;
+		private final Status status;
+		private final Integer conceptNid;
+
+		private Match(SearchResult sr, String text, Status status, Integer conceptNid)
+		{
+			this.nid = sr.getNid();
+			this.text = text;
+			this.score = sr.getScore();
+			this.status = status;
+			this.conceptNid = conceptNid;
+		}
+	}
+}
@@ -30,14 +30,19 @@
 
 package net.sagebits.tmp.isaac.rest.api1.semantic;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -49,13 +54,18 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Providers;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
+import net.sagebits.tmp.isaac.rest.StreamingArray;
 import net.sagebits.tmp.isaac.rest.Util;
+import net.sagebits.tmp.isaac.rest.api.data.PageCursor;
 import net.sagebits.tmp.isaac.rest.api.data.PaginationUtils;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
@@ -64,9 +74,12 @@ import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticDefinit
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticChronology;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticVersionPage;
+import net.sagebits.tmp.isaac.rest.cache.AssemblageNidCache;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.filters.ConditionalGet;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.api.AssemblageService;
 import sh.isaac.api.Get;
@@ -98,6 +111,12 @@ public class SemanticAPIs
 	@Context
 	private SecurityContext securityContext;
 
+	@Context
+	private HttpHeaders headers;
+
+	@Context
+	private Providers providers;
+
 	/**
 	 * Return the RestSemanticType of the semantic corresponding to the passed id
 	 * 
@@ -111,8 +130,9 @@ public class SemanticAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.semanticTypeComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestSemanticType getVersionType(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.coordToken) String coordToken)
 			throws RestException
 	{
@@ -183,8 +203,9 @@ public class SemanticAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.chronologyComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestSemanticChronology getSemanticChronology(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
@@ -218,8 +239,9 @@ public class SemanticAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestSemanticVersion getSemanticVersion(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
@@ -287,8 +309,10 @@ public class SemanticAPIs
 	 * If includeAllVersions is specified, returns all versions of each semantic.
 	 * 
 	 * @param id - A UUID or nid of an assemblage concept
-	 * @param pageNum The pagination page number >= 1 to return
+	 * @param pageNum The pagination page number >= 1 to return.  Ignored, if a cursor is provided.
 	 * @param maxPageSize The maximum number of results to return per page, must be greater than 0
+	 * @param cursor - (optional) the nextCursor value from the paginationData of a prior page.  When provided, reading resumes directly after
+	 *            the prior page, which is much faster than reading deep pages by pageNum.  Must be used with the same coordinates as the prior page.
 	 * @param expand - comma separated list of fields to expand. Supports 'chronology', 'nestedSemantics', 'referencedDetails'
 	 *            When referencedDetails is passed, nids will include type information, and certain nids will also include their descriptions,
 	 *            if they represent a concept or a description semantic.
@@ -304,18 +328,21 @@ public class SemanticAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.forAssemblageComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestSemanticVersionPage getForAssemblage(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.pageNum) @DefaultValue(RequestParameters.pageNumDefault) int pageNum,
 			@QueryParam(RequestParameters.maxPageSize) @DefaultValue(RequestParameters.maxPageSizeDefault) int maxPageSize,
+			@QueryParam(RequestParameters.cursor) String cursor,
 			@QueryParam(RequestParameters.expand) String expand, 
 			@QueryParam(RequestParameters.includeAllVersions) @DefaultValue("false") String includeAllVersions,
 			@QueryParam(RequestParameters.coordToken) String coordToken,
 			@QueryParam(RequestParameters.altId) String altId) throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.id, RequestParameters.expand,
-				RequestParameters.includeAllVersions, RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.COORDINATE_PARAM_NAMES, RequestParameters.altId);
+				RequestParameters.includeAllVersions, RequestParameters.PAGINATION_PARAM_NAMES, RequestParameters.cursor, RequestParameters.COORDINATE_PARAM_NAMES, 
+				RequestParameters.altId);
 		
 		RequestInfo.get().validateMethodExpansions(ExpandUtil.chronologyExpandable, ExpandUtil.nestedSemanticsExpandable, ExpandUtil.referencedDetails);
 
@@ -323,7 +350,8 @@ public class SemanticAPIs
 		singleAllowedAssemblage.add(RequestInfoUtils.getConceptNidFromParameter(RequestParameters.id, id));
 
 		// we don't have a referenced component - our id is assemblage
-		SemanticVersions versions = get(null, singleAllowedAssemblage, pageNum, maxPageSize, true, Boolean.parseBoolean(includeAllVersions.trim()), null);
+		SemanticVersions versions = get(null, singleAllowedAssemblage, pageNum, maxPageSize, true, Boolean.parseBoolean(includeAllVersions.trim()), null, 
+				cursor);
 
 		List<RestSemanticVersion> restSemanticVersions = new ArrayList<>();
 		for (SemanticVersion sv : versions.getValues())
@@ -332,8 +360,8 @@ public class SemanticAPIs
 					RequestInfo.get().shouldExpand(ExpandUtil.nestedSemanticsExpandable), RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails),
 					false));
 		}
-		RestSemanticVersionPage results = new RestSemanticVersionPage(pageNum, maxPageSize, versions.getTotal(), true,
-				versions.getTotal() > (pageNum * maxPageSize), RestPaths.semanticByAssemblageAppPathComponent + id,
+		RestSemanticVersionPage results = new RestSemanticVersionPage(versions.getPageNum(), maxPageSize, versions.getTotal(), versions.hasMore(),
+				versions.isTotalExact(), RestPaths.semanticByAssemblageAppPathComponent + id, versions.getNextCursor(),
 				restSemanticVersions.toArray(new RestSemanticVersion[restSemanticVersions.size()]));
 
 		return results;
@@ -362,14 +390,15 @@ public class SemanticAPIs
 	 *     returned.  This can be set to one or more names or ids from the /1/id/types or the value 'ANY'.  Requesting IDs that are unneeded will harm 
 	 *     performance. 
 	 *     
-	 * @return the semantic version objects. Note that the returned type here - RestSemanticVersion is actually an abstract base class,
-	 *         the actual return type will be either a RestDynamicSemanticVersion or a RestSemanticDescriptionVersion.
+	 * @return the semantic version objects, as an array of RestSemanticVersion. Note that the returned type here - RestSemanticVersion is actually 
+	 *         an abstract base class, the actual return type will be either a RestDynamicSemanticVersion or a RestSemanticDescriptionVersion.
+	 *         The array is streamed, as each semantic is read.
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.forReferencedComponentComponent + "{" + RequestParameters.id + "}")
-	public RestSemanticVersion[] getForReferencedComponent(@PathParam(RequestParameters.id) String id,
+	public Response getForReferencedComponent(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.assemblage) Set<String> assemblage,
 			@QueryParam(RequestParameters.includeDescriptions) @DefaultValue("false") String includeDescriptions,
 			@QueryParam(RequestParameters.includeAssociations) @DefaultValue("false") String includeAssociations,
@@ -391,12 +420,27 @@ public class SemanticAPIs
 			allowedAssemblages.add(RequestInfoUtils.getConceptNidFromParameter(RequestParameters.assemblage, a));
 		}
 
-		return get(id, allowedAssemblages, null,  // TODO add API support for the new skip assemblage feature
-				RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable), RequestInfo.get().shouldExpand(ExpandUtil.nestedSemanticsExpandable),
-				RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails), 
-				Boolean.parseBoolean(includeAllVersions.trim()),
-				Boolean.parseBoolean(includeDescriptions.trim()),
-				Boolean.parseBoolean(includeAssociations.trim()), Boolean.parseBoolean(includeMappings.trim()));
+		// Validates the id, before the response starts
+		Stream<SemanticChronology> semantics = getSemantics(id, allowedAssemblages);
+		boolean expandChronology = RequestInfo.get().shouldExpand(ExpandUtil.chronologyExpandable);
+		boolean expandNested = RequestInfo.get().shouldExpand(ExpandUtil.nestedSemanticsExpandable);
+		boolean expandReferenced = RequestInfo.get().shouldExpand(ExpandUtil.referencedDetails);
+
+		return StreamingArray.build(RestSemanticVersion.class, headers, providers, writer -> semantics.forEach(
+				semanticVersionBuilder(null,  // TODO add API support for the new skip assemblage feature
+						expandChronology, expandNested, expandReferenced, Boolean.parseBoolean(includeAllVersions.trim()), 
+						Boolean.parseBoolean(includeDescriptions.trim()), Boolean.parseBoolean(includeAssociations.trim()), 
+						Boolean.parseBoolean(includeMappings.trim()), item -> 
+						{
+							try
+							{
+								writer.write(item);
+							}
+							catch (IOException e)
+							{
+								throw new UncheckedIOException(e);
+							}
+						})));
 	}
 
 	/**
@@ -410,8 +454,9 @@ public class SemanticAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.semanticDefinitionComponent + "{" + RequestParameters.id + "}")
+	@ConditionalGet
 	public RestDynamicSemanticDefinition getSemanticDefinition(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
 	{
@@ -478,11 +523,19 @@ public class SemanticAPIs
 	{
 		private final List<SemanticVersion> values;
 		private final int approximateTotal;
+		private final boolean totalIsExact;
+		private final int pageNum;
+		private final boolean hasMore;
+		private final String nextCursor;
 
-		public SemanticVersions(List<SemanticVersion> values, int approximateTotal)
+		public SemanticVersions(List<SemanticVersion> values, int approximateTotal, boolean totalIsExact, int pageNum, boolean hasMore, String nextCursor)
 		{
 			this.values = values;
 			this.approximateTotal = approximateTotal;
+			this.totalIsExact = totalIsExact;
+			this.pageNum = pageNum;
+			this.hasMore = hasMore;
+			this.nextCursor = nextCursor;
 		}
 
 		public SemanticVersion[] getValues()
@@ -494,6 +547,32 @@ public class SemanticAPIs
 		{
 			return approximateTotal;
 		}
+
+		public boolean isTotalExact()
+		{
+			return totalIsExact;
+		}
+
+		/**
+		 * @return the page number of the returned values - which is derived from the cursor, when reading with a cursor.
+		 */
+		public int getPageNum()
+		{
+			return pageNum;
+		}
+
+		public boolean hasMore()
+		{
+			return hasMore;
+		}
+
+		/**
+		 * @return the cursor to read the next page with, or null, if there are no more pages, or cursors are not supported for the read.
+		 */
+		public String getNextCursor()
+		{
+			return nextCursor;
+		}
 	}
 
 	/**
@@ -511,6 +590,27 @@ public class SemanticAPIs
 	 */
 	public static SemanticVersions get(String referencedComponent, Set<Integer> allowedAssemblages, final int pageNum, final int maxPageSize,
 			boolean allowDescriptions, boolean includeAllVersions, StampCoordinate stamp) throws RestException
+	{
+		return get(referencedComponent, allowedAssemblages, pageNum, maxPageSize, allowDescriptions, includeAllVersions, stamp, null);
+	}
+
+	/**
+	 * @param referencedComponent - optional - if provided - takes precedence
+	 * @param allowedAssemblages - optional - if provided, either limits the referencedComponent search by this type, or, if
+	 *            referencedComponent is not provided - focuses the search on just this assemblage
+	 * @param pageNum - ignored, if a cursor is provided
+	 * @param maxPageSize 
+	 * @param allowDescriptions true to include description type semantics, false to skip
+	 * @param includeAllVersions - true for all versions, ignoring stamp, false for latest only on given stamp
+	 * @param stamp - optional - when includeAllVersions is false, use this stamp for populating the version to return.  If not provided, 
+	 *     the stamp is read from the RequestInfo.  
+	 * @param cursor - optional - a cursor from a prior page, to resume reading after.  Only supported when referencedComponent is not provided.
+	 * @return the semantic versions wrapped for paging.  When referencedComponent is not provided, this will also carry a cursor for the next 
+	 *     page, if there are more pages.
+	 * @throws RestException
+	 */
+	public static SemanticVersions get(String referencedComponent, Set<Integer> allowedAssemblages, final int pageNum, final int maxPageSize,
+			boolean allowDescriptions, boolean includeAllVersions, StampCoordinate stamp, String cursor) throws RestException
 	{
 		PaginationUtils.validateParameters(pageNum, maxPageSize);
 
@@ -555,6 +655,11 @@ public class SemanticAPIs
 				refCompNid = NumericUtils.getInt(referencedComponent);
 			}
 
+			if (StringUtils.isNotBlank(cursor))
+			{
+				throw new RestException(RequestParameters.cursor, cursor, "A cursor is not supported in combination with a referenced component");
+			}
+
 			if (refCompNid.isPresent() && refCompNid.getAsInt() < 0)
 			{
 				Stream<SemanticChronology> semantics = getSemanticChronologyStreamForComponentFromAssemblagesFilteredByVersionType(refCompNid.getAsInt(),
@@ -594,7 +699,7 @@ public class SemanticAPIs
 				}
 
 				return new SemanticVersions(PaginationUtils.getResults(PaginationUtils.getResults(ochreResults, pageNum, maxPageSize), pageNum, maxPageSize),
-						approximateTotal);
+						approximateTotal, true, pageNum, approximateTotal > (pageNum * maxPageSize), null);
 			}
 			else
 			{
@@ -608,33 +713,55 @@ public class SemanticAPIs
 				throw new RestException("If a referenced component is not provided, then an allowedAssemblage must be provided");
 			}
 
-			NidSet allSemanticNids = new NidSet();
-			for (int assemblageId : allowedAssemblages)
+			// Sorted, so that a page can resume after the last nid of the prior page (keyset pagination)
+			int[] allSemanticNids = AssemblageNidCache.getSortedSemanticNids(allowedAssemblages);
+			int fingerprint = Objects.hash(new TreeSet<>(allowedAssemblages), includeAllVersions, 
+					stamp == null ? RequestInfo.get().getCoordinatesToken().getSerialized() : stamp);
+
+			int startIndex = 0;
+			int page = pageNum;
+			// When reading by pageNum rather than cursor, we still have to read through all of the prior pages, as the stamp may filter items.
+			int toSkip = (pageNum - 1) * maxPageSize;
+			if (StringUtils.isNotBlank(cursor))
 			{
-				allSemanticNids.addAll(Get.assemblageService().getSemanticNidsFromAssemblage(assemblageId).stream());
+				PageCursor pageCursor = PageCursor.read(cursor, fingerprint);
+				int pos = Arrays.binarySearch(allSemanticNids, pageCursor.getLastNid());
+				startIndex = pos >= 0 ? pos + 1 : -(pos + 1);
+				page = pageCursor.getPageNum() + 1;
+				toSkip = 0;
 			}
 
-			for (PrimitiveIterator.OfInt it = allSemanticNids.getIntIterator(); it.hasNext();)
+			int index = startIndex;
+			int lastNid = 0;
+			while (index < allSemanticNids.length && ochreResults.size() < maxPageSize)
 			{
-				if (ochreResults.size() >= (pageNum * maxPageSize))
-				{
-					break;
-				}
-				else
+				lastNid = allSemanticNids[index++];
+				SemanticChronology chronology = Get.assemblageService().getSemanticChronology(lastNid);
+				if (includeAllVersions)
 				{
-					SemanticChronology chronology = Get.assemblageService().getSemanticChronology(it.nextInt());
-					if (includeAllVersions)
+					for (Version v : chronology.getVersionList())
 					{
-						for (Version v : chronology.getVersionList())
+						if (toSkip > 0)
+						{
+							toSkip--;
+						}
+						else
 						{
 							ochreResults.add((SemanticVersion)v);
 						}
 					}
-					else
+				}
+				else
+				{
+					LatestVersion<SemanticVersion> sv = chronology.getLatestVersion(stampToUse);
+					Util.logContradictions(log, sv);
+					if (sv.isPresent())
 					{
-						LatestVersion<SemanticVersion> sv = ((SemanticChronology) chronology).getLatestVersion(stampToUse);
-						Util.logContradictions(log, sv);
-						if (sv.isPresent())
+						if (toSkip > 0)
+						{
+							toSkip--;
+						}
+						else
 						{
 							ochreResults.add(sv.get());
 						}
@@ -642,7 +769,15 @@ public class SemanticAPIs
 				}
 			}
 
-			return new SemanticVersions(PaginationUtils.getResults(ochreResults, pageNum, maxPageSize), allSemanticNids.size());
+			// The total is the count of semantics in the assemblage(s), which isn't exact, as the stamp may filter some out.  So look ahead 
+			// for a semantic that the next page would return, rather than report a next page that is empty.
+			boolean hasMore = false;
+			for (int next = index; next < allSemanticNids.length && !hasMore; next++)
+			{
+				hasMore = includeAllVersions || Get.assemblageService().getSemanticChronology(allSemanticNids[next]).getLatestVersion(stampToUse).isPresent();
+			}
+			return new SemanticVersions(ochreResults, allSemanticNids.length, false, page, hasMore, 
+					hasMore ? new PageCursor(page, lastNid, fingerprint).serialize() : null);
 		}
 	}
 
@@ -668,7 +803,28 @@ public class SemanticAPIs
 					throws RestException
 	{
 		final ArrayList<RestSemanticVersion> results = new ArrayList<>();
-		Consumer<SemanticChronology> consumer = new Consumer<SemanticChronology>()
+		getSemantics(referencedComponent, allowedAssemblages).forEach(semanticVersionBuilder(skipAssemblages, expandChronology, expandNested, 
+				expandReferenced, includeAllVersions, allowDescriptions, allowAssociations, allowMappings, results::add));
+		return results.toArray(new RestSemanticVersion[results.size()]);
+	}
+
+	/**
+	 * @param skipAssemblages - optional - if provided, any assemblage listed here will be skipped
+	 * @param expandChronology
+	 * @param expandNested
+	 * @param expandReferenced
+	 * @param includeAllVersions - false, to build the latest version (for the stamp of the request), true to build all versions of each semantic
+	 * @param allowDescriptions true to include description type semantics, false to skip
+	 * @param allowAssociations true to include semantics that represent associations, false to skip
+	 * @param allowMappings true to include semantics that represent mappings, false to skip
+	 * @param results receives the versions built for each semantic passed to the returned consumer
+	 * @return a consumer that builds the rest versions of the semantics that pass the filters
+	 */
+	private static Consumer<SemanticChronology> semanticVersionBuilder(Set<Integer> skipAssemblages, boolean expandChronology, boolean expandNested, 
+			boolean expandReferenced, boolean includeAllVersions, boolean allowDescriptions, boolean allowAssociations, boolean allowMappings, 
+			Consumer<RestSemanticVersion> results)
+	{
+		return new Consumer<SemanticChronology>()
 		{
 			@Override
 			public void accept(SemanticChronology sc)
@@ -693,7 +849,7 @@ public class SemanticAPIs
 						{
 							try
 							{
-								results.add(RestSemanticVersion.buildRestSemanticVersion((SemanticVersion)sv, expandChronology, expandNested, expandReferenced, 
+								results.accept(RestSemanticVersion.buildRestSemanticVersion((SemanticVersion)sv, expandChronology, expandNested, expandReferenced, 
 										false));
 							}
 							catch (RestException e)
@@ -711,7 +867,7 @@ public class SemanticAPIs
 							try
 							{
 								// TODO handle contradictions
-								results.add(RestSemanticVersion.buildRestSemanticVersion(sv.get(), expandChronology, expandNested, expandReferenced, true));
+								results.accept(RestSemanticVersion.buildRestSemanticVersion(sv.get(), expandChronology, expandNested, expandReferenced, true));
 							}
 							catch (RestException e)
 							{
@@ -722,7 +878,17 @@ public class SemanticAPIs
 				}
 			}
 		};
+	}
 
+	/**
+	 * @param referencedComponent - optional - if provided - takes precedence
+	 * @param allowedAssemblages - optional - if provided, either limits the referencedComponent search by this type, or, if
+	 *            referencedComponent is not provided - focuses the search on just these assemblages
+	 * @return the (lazy) stream of semantics
+	 * @throws RestException if the referenced component is invalid, or neither a referenced component or an assemblage are provided
+	 */
+	private static Stream<SemanticChronology> getSemantics(String referencedComponent, Set<Integer> allowedAssemblages) throws RestException
+	{
 		if (StringUtils.isNotBlank(referencedComponent))
 		{
 			Optional<UUID> uuidId = UUIDUtil.getUUID(referencedComponent);
@@ -745,9 +911,7 @@ public class SemanticAPIs
 
 			if (refCompNid.isPresent() && refCompNid.getAsInt() < 0)
 			{
-				Stream<SemanticChronology> semantics = Get.assemblageService().getSemanticChronologyStreamForComponentFromAssemblages(refCompNid.getAsInt(),
-						allowedAssemblages);
-				semantics.forEach(consumer);
+				return Get.assemblageService().getSemanticChronologyStreamForComponentFromAssemblages(refCompNid.getAsInt(), allowedAssemblages);
 			}
 			else
 			{
@@ -760,11 +924,7 @@ public class SemanticAPIs
 			{
 				throw new RestException("If a referenced component is not provided, then an allowedAssemblage must be provided");
 			}
-			for (int assemblageId : allowedAssemblages)
-			{
-				Get.assemblageService().getSemanticChronologyStream(assemblageId).forEach(consumer);
-			}
+			return allowedAssemblages.stream().flatMap(assemblageId -> Get.assemblageService().getSemanticChronologyStream(assemblageId));
 		}
-		return results.toArray(new RestSemanticVersion[results.size()]);
 	}
 }
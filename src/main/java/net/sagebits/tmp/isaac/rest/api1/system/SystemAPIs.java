@@ -71,11 +71,16 @@ import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestObjectChronologyTy
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSemanticType;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticChronology;
+import net.sagebits.tmp.isaac.rest.api1.data.systeminfo.RestCacheStatistics;
 import net.sagebits.tmp.isaac.rest.api1.data.systeminfo.RestIdentifiedObjectsResult;
 import net.sagebits.tmp.isaac.rest.api1.taxonomy.TaxonomyAPIs;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.CacheCompressed;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestInfoUtils;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.filters.ConditionalGet;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.MetaData;
 import sh.isaac.api.Get;
@@ -132,7 +137,7 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.identifiedObjectsComponent + "{" + RequestParameters.id + "}")
 	public RestIdentifiedObjectsResult getIdentifiedObjects(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.expand) String expand,
 			@QueryParam(RequestParameters.coordToken) String coordToken, @QueryParam(RequestParameters.altId) String altId) throws RestException
@@ -255,7 +260,7 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.objectChronologyTypeComponent + "{" + RequestParameters.id + "}")
 	public RestObjectChronologyType getObjectChronologyType(@PathParam(RequestParameters.id) String id,
 			@QueryParam(RequestParameters.coordToken) String coordToken) throws RestException
@@ -306,8 +311,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestDynamicSemanticDataTypeComponent)
+	@ConditionalGet
+	@CacheCompressed
 	public RestDynamicSemanticDataType[] getRestDynamicSemanticDataTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -322,8 +329,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestDynamicValidatorTypeComponent)
+	@ConditionalGet
+	@CacheCompressed
 	public RestDynamicSemanticValidatorType[] getRestDynamicValidatorTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -338,8 +347,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestObjectChronologyTypeComponent)
+	@ConditionalGet
+	@CacheCompressed
 	public RestObjectChronologyType[] getRestObjectChronologyTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -354,8 +365,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestSemanticTypeComponent)
+	@ConditionalGet
+	@CacheCompressed
 	public RestSemanticType[] getRestSemanticVersionTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -370,8 +383,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestConcreteDomainOperatorTypes)
+	@ConditionalGet
+	@CacheCompressed
 	public RestConcreteDomainOperatorsType[] getRestConcreteDomainOperatorTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -386,8 +401,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestNodeSemanticTypes)
+	@ConditionalGet
+	@CacheCompressed
 	public RestNodeSemanticType[] getRestNodeSemanticTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -402,8 +419,10 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.enumerationRestSupportedIdTypes)
+	@ConditionalGet
+	@CacheCompressed
 	public RestSupportedIdType[] getRestSupportedIdTypes() throws RestException
 	{
 		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
@@ -421,7 +440,7 @@ public class SystemAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.systemInfoComponent)
 	public RestSystemInfo getSystemInfo() throws RestException
 	{
@@ -430,6 +449,28 @@ public class SystemAPIs
 		return ApplicationConfig.getInstance().getSystemInfo();
 	}
 
+	/**
+	 * Return the usage statistics (size, hits, misses, evictions) of the internal caches of the server. The counts are cumulative since
+	 * the server started.
+	 * @return the statistics, one entry per cache
+	 * 
+	 * @throws RestException
+	 */
+	@GET
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
+	@Path(RestPaths.cacheStatisticsComponent)
+	public RestCacheStatistics[] getCacheStatistics() throws RestException
+	{
+		RequestParameters.validateParameterNamesAgainstSupportedNames(RequestInfo.get().getParameters(), RequestParameters.COORDINATE_PARAM_NAMES);
+
+		ArrayList<RestCacheStatistics> results = new ArrayList<>();
+		for (StripedCache<?, ?> cache : StripedCache.getAllCaches())
+		{
+			results.add(new RestCacheStatistics(cache));
+		}
+		return results.toArray(new RestCacheStatistics[results.size()]);
+	}
+
 	/**
 	 * Return information about a particular user (utilized to tie back session information to what was passed via SSO)
 	 * 
@@ -438,7 +479,7 @@ public class SystemAPIs
 	 * @throws RestException if no user concept can be identified.
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.userComponent + "{" + RequestParameters.id + "}")
 	public RestUserInfo getUserInfo(@PathParam(RequestParameters.id) String id) throws RestException
 	{
@@ -455,7 +496,7 @@ public class SystemAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.terminologyTypes)
 	public RestTerminologyConcept[] getTerminologyTypes() throws RestException
 	{
@@ -487,7 +528,7 @@ public class SystemAPIs
 	 * @throws RestException 
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.modules)
 	public RestConceptVersion getAvailableModules(@QueryParam(RequestParameters.availableOnly) @DefaultValue("true") String availableOnly) throws RestException
 	{
@@ -541,7 +582,7 @@ public class SystemAPIs
 	 * @throws RestException if the input can't be identified, or if input parameters are incorrect
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.extendedDescriptionTypes + "{" + RequestParameters.id + "}")
 	public RestConceptChronology[] getExtendedDescriptionTypesForTerminology(@PathParam(RequestParameters.id) String id) throws RestException
 	{
@@ -593,7 +634,7 @@ public class SystemAPIs
 	 * @throws RestException if the input can't be identified, or if input parameters are incorrect
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.externalDescriptionTypes + "{" + RequestParameters.id + "}")
 	public RestConceptVersion[] getExternalDescriptionTypesForTerminology(@PathParam(RequestParameters.id) String id) throws RestException
 	{
@@ -697,7 +738,7 @@ public class SystemAPIs
 	 * @throws RestException  in any supplied parameters are invalid
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.descriptionTypes)
 	public RestConceptVersion[] getAllDescriptionTypes() throws RestException
 	{
@@ -785,7 +826,7 @@ public class SystemAPIs
 	 * @throws RestException if the input can't be identified, or if input parameters are incorrect
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.descriptionStyle + "{" + RequestParameters.id + "}")
 	public RestDescriptionStyle getDescriptionStyleForTerminology(@PathParam(RequestParameters.id) String id) throws RestException
 	{
@@ -19,8 +19,14 @@
 package net.sagebits.tmp.isaac.rest.api1.taxonomy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.DefaultValue;
@@ -41,8 +47,13 @@ import net.sagebits.tmp.isaac.rest.api1.concept.ConceptAPIs;
 import net.sagebits.tmp.isaac.rest.api1.data.RestIdentifiedObject;
 import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptVersionPage;
+import net.sagebits.tmp.isaac.rest.cache.CommitWatcher;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
+import net.sagebits.tmp.isaac.rest.session.filters.ConditionalGet;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
 import sh.isaac.MetaData;
 import sh.isaac.api.Get;
@@ -51,8 +62,10 @@ import sh.isaac.api.chronicle.LatestVersion;
 import sh.isaac.api.collections.NidSet;
 import sh.isaac.api.component.concept.ConceptChronology;
 import sh.isaac.api.component.concept.ConceptVersion;
+import sh.isaac.api.coordinate.LanguageCoordinate;
 import sh.isaac.api.coordinate.ManifoldCoordinate;
 import sh.isaac.api.coordinate.PremiseType;
+import sh.isaac.api.coordinate.StampCoordinate;
 import sh.isaac.api.util.AlphanumComparator;
 import sh.isaac.model.coordinate.ManifoldCoordinateImpl;
 
@@ -72,6 +85,9 @@ public class TaxonomyAPIs
 	public final static int MAX_PAGE_SIZE_DEFAULT = 5000;
 	public final static int PAGE_NUM_DEFAULT = 1;
 
+	// Levels with fewer children than this are built on the request thread, as they aren't worth the hand off.
+	private final static int PARALLEL_EXPANSION_THRESHOLD = 8;
+
 	@Context
 	private SecurityContext securityContext;
 
@@ -123,8 +139,9 @@ public class TaxonomyAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.versionComponent)
+	@ConditionalGet
 	public RestConceptVersion getConceptVersionTaxonomy(
 			// ISAAC_Root - any variable ref here breaks the compiler and/or enunciate
 			@QueryParam(RequestParameters.id) @DefaultValue(RequestParameters.ISAAC_ROOT_UUID) String id,
@@ -168,7 +185,11 @@ public class TaxonomyAPIs
 			{
 				//Sort all of the children or parents by the description we will be returning - this keeps the paged results being sane, 
 				//and since it is done way down in the TaxonomyRecord, our caches will work when the next page is requested.
-				((ManifoldCoordinateImpl)mc).setCustomSorter(new CustomSorter(mc));
+				//The sorter goes on a copy, as the manifold coordinate of the request is shared by every request with the same coordinates.
+				ManifoldCoordinateImpl sorted = new ManifoldCoordinateImpl(mc.getTaxonomyPremiseType(), mc.getStampCoordinate(), 
+						mc.getLanguageCoordinate(), mc.getLogicCoordinate());
+				sorted.setCustomSorter(new CustomSorter(mc));
+				mc = sorted;
 			}
 			TaxonomySnapshot tree = Get.taxonomyService().getSnapshotNoTree(mc);
 
@@ -202,6 +223,11 @@ public class TaxonomyAPIs
 	}
 
 	/**
+	 * Populate the children of the concept, to the requested depth.  The children are expanded one level at a time, with the children of 
+	 * each level built in parallel (see taxonomy_expansion_threads in uts-rest-api.properties).  If the expansion runs past the configured 
+	 * taxonomy_expansion_timeout, the children built so far are kept, and childExpansionIncomplete is set on rcv, and on each concept
+	 * whose children are incomplete.
+	 * 
 	 * @param conceptNid
 	 * @param rcv 
 	 * @param tree
@@ -233,90 +259,97 @@ public class TaxonomyAPIs
 			throw new RestException(RequestParameters.maxPageSize, maxPageSize + "", "maxPageSize (" + maxPageSize + ") should be >= 1");
 		}
 
-		if (alreadyAddedChildren.contains(conceptNid))
-		{
-			// Avoiding infinite loop
-			log.warn("addChildren(" + conceptNid + ") aborted potential infinite recursion");
-			return;
-		}
-		else
-		{
-			alreadyAddedChildren.add(conceptNid);
-		}
+		ChildExpansion expansion = new ChildExpansion(tree, populateParents, countParents, includeSemanticMembership, includeTerminologyType, 
+				System.currentTimeMillis() + RestConfig.getInstance().getTaxonomyExpansionTimeout());
 
-		int childCount = 0;
-		final int first = pageNum == 1 ? 0 : ((pageNum - 1) * maxPageSize + 1);
-		final int last = pageNum * maxPageSize;
-		final int[] totalChildrenNids = tree.getTaxonomyChildConceptNids(conceptNid);
-		List<RestConceptVersion> children = new ArrayList<>();
-		for (int childNid : totalChildrenNids)
+		List<ExpansionNode> level = new ArrayList<>();
+		level.add(new ExpansionNode(conceptNid, rcv, pageNum, maxPageSize));
+		for (int depth = remainingChildDepth; level.size() > 0; depth--)
 		{
-			childCount++;
-			if (childCount < first)
-			{
-				// Ignore unrequested pages prior to requested page
-				continue;
-			}
-			else if (childCount > last)
+			List<ChildSlot> toBuild = new ArrayList<>();
+			for (ExpansionNode node : level)
 			{
-				// Ignore unrequested pages subsequent to requested page
-				break;
-			}
+				if (alreadyAddedChildren.contains(node.conceptNid))
+				{
+					// Avoiding infinite loop
+					log.warn("addChildren(" + node.conceptNid + ") aborted potential infinite recursion");
+					continue;
+				}
+				alreadyAddedChildren.add(node.conceptNid);
 
-			ConceptChronology childConcept = null;
-			try
-			{
-				childConcept = ConceptAPIs.findConceptChronology(childNid + "");
-			}
-			catch (RestException e)
-			{
-				log.error("Failed finding concept for child concept SEQ=" + childNid + " of parent concept " + new RestIdentifiedObject(conceptNid)
-						+ ". Not including child.", e);
-				rcv.exceptionMessages
-						.add("Error adding child concept SEQ=" + childNid + " of parent concept SEQ=" + conceptNid + ": " + e.getLocalizedMessage());
+				int[] childNids = tree.getTaxonomyChildConceptNids(node.conceptNid);
+				node.totalChildren = childNids.length;
+				int first = (node.pageNum - 1) * node.maxPageSize;
+				int last = Math.min(node.pageNum * node.maxPageSize, childNids.length);
+				node.slots = new ChildSlot[Math.max(0, last - first)];
+				for (int i = 0; i < node.slots.length; i++)
+				{
+					node.slots[i] = new ChildSlot(node, childNids[first + i]);
+					toBuild.add(node.slots[i]);
+				}
 			}
-			if (childConcept != null)
+
+			expansion.build(toBuild);
+
+			List<ExpansionNode> nextLevel = new ArrayList<>();
+			for (ExpansionNode node : level)
 			{
-				try
+				if (node.slots == null)
 				{
-					LatestVersion<ConceptVersion> cv = childConcept.getLatestVersion(tree.getManifoldCoordinate().getDestinationStampCoordinate());
-					Util.logContradictions(log, cv);
-					if (cv.isPresent())
+					continue;
+				}
+				List<RestConceptVersion> children = new ArrayList<>(node.slots.length);
+				for (ChildSlot slot : node.slots)
+				{
+					if (slot.error != null)
 					{
-						// expand chronology of child even if unrequested, otherwise, you can't identify what the child is
-						// TODO handle contradictions
-						RestConceptVersion childVersion = new RestConceptVersion(cv.get(), true, populateParents, countParents, false, false,
-								tree.getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.STATED, 
-								includeSemanticMembership, includeTerminologyType, false);
-						children.add(childVersion);
-						if (remainingChildDepth > 0)
+						node.rcv.exceptionMessages.add("Error adding child concept " + new RestIdentifiedObject(slot.childNid) + " of parent concept SEQ=" 
+								+ node.conceptNid + ": " + slot.error.getLocalizedMessage());
+						if (slot.error instanceof RestException)
 						{
-							addChildren(childConcept.getNid(), childVersion, tree, countLeafChildren, populateParents, countParents, remainingChildDepth - 1,
-									includeSemanticMembership, includeTerminologyType, alreadyAddedChildren, 1, MAX_PAGE_SIZE_DEFAULT);
+							throw (RestException) slot.error;
 						}
-						else if (countLeafChildren)
+						throw (RuntimeException) slot.error;
+					}
+					if (slot.built == null)
+					{
+						if (!slot.attempted)
 						{
-							countChildren(childConcept.getNid(), childVersion, tree);
+							node.rcv.childExpansionIncomplete = true;
 						}
+						continue;
+					}
+					children.add(slot.built);
+					if (depth > 0)
+					{
+						nextLevel.add(new ExpansionNode(slot.childNid, slot.built, 1, MAX_PAGE_SIZE_DEFAULT));
 					}
-					else
+					else if (countLeafChildren)
 					{
-						log.warn("Taxonomy impl broken, not following coordinates on destination properly");
+						countChildren(slot.childNid, slot.built, tree);
 					}
 				}
-				catch (RestException | RuntimeException e)
+
+				final int first = node.pageNum == 1 ? 0 : ((node.pageNum - 1) * node.maxPageSize + 1);
+				final int last = node.pageNum * node.maxPageSize;
+				final String baseUrl = RestPaths.taxonomyAPIsPathComponent + RestPaths.versionComponent + "?" + RequestParameters.id + "=" + node.conceptNid;
+
+				node.rcv.children = new RestConceptVersionPage(node.pageNum, node.maxPageSize, node.totalChildren, true, (last - first) < node.totalChildren, 
+						baseUrl, children.toArray(new RestConceptVersion[children.size()]));
+			}
+
+			if (expansion.isTimedOut())
+			{
+				log.info("Taxonomy expansion of " + conceptNid + " exceeded the expansion timeout, returning a partial result");
+				rcv.childExpansionIncomplete = true;
+				for (ExpansionNode node : nextLevel)
 				{
-					rcv.exceptionMessages.add("Error adding child concept " + childConcept.getPrimordialUuid() + " of parent concept SEQ=" + conceptNid
-							+ ": " + e.getLocalizedMessage());
-					throw e;
+					node.rcv.childExpansionIncomplete = true;
 				}
+				break;
 			}
+			level = nextLevel;
 		}
-
-		final String baseUrl = RestPaths.taxonomyAPIsPathComponent + RestPaths.versionComponent + "?" + RequestParameters.id + "=" + conceptNid;
-
-		rcv.children = new RestConceptVersionPage(pageNum, maxPageSize, totalChildrenNids.length, true, (last - first) < totalChildrenNids.length, baseUrl,
-				children.toArray(new RestConceptVersion[children.size()]));
 	}
 
 	public static void countParents(int conceptNid, RestConceptVersion rcv, TaxonomySnapshot tree)
@@ -414,49 +447,308 @@ public class TaxonomyAPIs
 		}
 	}
 	
-	class CustomSorter implements Function<int[], int[]>
+	/**
+	 * A concept whose children are being populated by {@link TaxonomyAPIs#addChildren}, and the page of children to populate.
+	 */
+	private static class ExpansionNode
 	{
-		private ManifoldCoordinate mc;
-		
+		private final int conceptNid;
+		private final RestConceptVersion rcv;
+		private final int pageNum;
+		private final int maxPageSize;
+		private int totalChildren;
+		private ChildSlot[] slots;
+
+		private ExpansionNode(int conceptNid, RestConceptVersion rcv, int pageNum, int maxPageSize)
+		{
+			this.conceptNid = conceptNid;
+			this.rcv = rcv;
+			this.pageNum = pageNum;
+			this.maxPageSize = maxPageSize;
+		}
+	}
+
+	/**
+	 * A child to build for an {@link ExpansionNode}.  Each slot is written by a single worker, and read after all of the workers complete.
+	 */
+	private static class ChildSlot
+	{
+		private final ExpansionNode parent;
+		private final int childNid;
+		private boolean attempted = false;
+		private RestConceptVersion built;
+		private Exception error;
+
+		private ChildSlot(ExpansionNode parent, int childNid)
+		{
+			this.parent = parent;
+			this.childNid = childNid;
+		}
+	}
+
+	/**
+	 * Builds the children for one level of a taxonomy expansion, in parallel when there are enough of them, until the deadline passes.
+	 * 
+	 * The child concepts are constructed with the {@link RequestInfo} of the request, so each worker thread gets its own copy of the 
+	 * request, from {@link RequestInfo#forWorker()}, while the taxonomy (and its coordinates) is passed in explicitly.
+	 */
+	private static class ChildExpansion
+	{
+		private final TaxonomySnapshot tree;
+		private final boolean populateParents;
+		private final boolean countParents;
+		private final boolean includeSemanticMembership;
+		private final boolean includeTerminologyType;
+		private final long deadline;
+		private volatile boolean timedOut = false;
+
+		private ChildExpansion(TaxonomySnapshot tree, boolean populateParents, boolean countParents, boolean includeSemanticMembership, 
+				boolean includeTerminologyType, long deadline)
+		{
+			this.tree = tree;
+			this.populateParents = populateParents;
+			this.countParents = countParents;
+			this.includeSemanticMembership = includeSemanticMembership;
+			this.includeTerminologyType = includeTerminologyType;
+			this.deadline = deadline;
+		}
+
+		private boolean isTimedOut()
+		{
+			return timedOut;
+		}
+
+		private void build(List<ChildSlot> slots)
+		{
+			ForkJoinPool pool = getExpansionPool();
+			if (pool == null || slots.size() < PARALLEL_EXPANSION_THRESHOLD)
+			{
+				for (ChildSlot slot : slots)
+				{
+					build(slot);
+				}
+				return;
+			}
+
+			RequestInfo request = RequestInfo.get();
+			ConcurrentHashMap<Thread, RequestInfo> workerRequests = new ConcurrentHashMap<>();
+			List<Callable<Void>> tasks = new ArrayList<>(slots.size());
+			for (ChildSlot slot : slots)
+			{
+				tasks.add(() -> RequestInfo.callWith(workerRequests.computeIfAbsent(Thread.currentThread(), thread -> request.forWorker()), () -> 
+				{
+					build(slot);
+					return null;
+				}));
+			}
+			try
+			{
+				pool.invokeAll(tasks);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				timedOut = true;
+			}
+		}
+
+		private void build(ChildSlot slot)
+		{
+			if (timedOut || System.currentTimeMillis() > deadline)
+			{
+				timedOut = true;
+				return;
+			}
+			slot.attempted = true;
+
+			ConceptChronology childConcept = null;
+			try
+			{
+				childConcept = ConceptAPIs.findConceptChronology(slot.childNid + "");
+			}
+			catch (RestException e)
+			{
+				log.error("Failed finding concept for child concept SEQ=" + slot.childNid + " of parent concept " 
+						+ new RestIdentifiedObject(slot.parent.conceptNid) + ". Not including child.", e);
+				synchronized (slot.parent.rcv.exceptionMessages)
+				{
+					slot.parent.rcv.exceptionMessages.add("Error adding child concept SEQ=" + slot.childNid + " of parent concept SEQ=" 
+							+ slot.parent.conceptNid + ": " + e.getLocalizedMessage());
+				}
+				return;
+			}
+
+			try
+			{
+				LatestVersion<ConceptVersion> cv = childConcept.getLatestVersion(tree.getManifoldCoordinate().getDestinationStampCoordinate());
+				Util.logContradictions(log, cv);
+				if (cv.isPresent())
+				{
+					// expand chronology of child even if unrequested, otherwise, you can't identify what the child is
+					// TODO handle contradictions
+					slot.built = new RestConceptVersion(cv.get(), true, populateParents, countParents, false, false,
+							tree.getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.STATED, includeSemanticMembership, 
+							includeTerminologyType, false);
+				}
+				else
+				{
+					log.warn("Taxonomy impl broken, not following coordinates on destination properly");
+				}
+			}
+			catch (RestException | RuntimeException e)
+			{
+				slot.error = e;
+			}
+		}
+	}
+
+	private static volatile ForkJoinPool expansionPool;
+
+	private static ForkJoinPool getExpansionPool()
+	{
+		int threads = RestConfig.getInstance().getTaxonomyExpansionThreads();
+		if (threads <= 1)
+		{
+			return null;
+		}
+		if (expansionPool == null)
+		{
+			synchronized (TaxonomyAPIs.class)
+			{
+				if (expansionPool == null)
+				{
+					AtomicInteger threadCount = new AtomicInteger();
+					expansionPool = new ForkJoinPool(threads, pool -> 
+					{
+						ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+						thread.setName("taxonomy-expansion-" + threadCount.incrementAndGet());
+						return thread;
+					}, null, false);
+				}
+			}
+		}
+		return expansionPool;
+	}
+
+	/**
+	 * Sorts taxonomy child (or parent) nids by the description the tree will display for them, on the stamp and language coordinates of the 
+	 * request.  Concepts that share a description are ordered by nid, so none are lost, and the order is stable.
+	 * 
+	 * Sorters with the same coordinates are equal, so that a ManifoldCoordinate carrying a sorter has a real identity in the taxonomy caches.
+	 * The sorted nids are also cached (until the next commit), so each page of a sortFull request doesn't sort the same children again.
+	 */
+	static class CustomSorter implements Function<int[], int[]>
+	{
+		private static final StripedCache<SortedNidsKey, int[]> SORTED_NIDS_CACHE = new StripedCache<>("Sorted taxonomy nids", 1000);
+
+		static
+		{
+			CommitWatcher.addChangeListener(() -> SORTED_NIDS_CACHE.clear());
+		}
+
+		private final StampCoordinate sc;
+		private final LanguageCoordinate lc;
+		private final int hash;
+
 		private CustomSorter(ManifoldCoordinate mc)
 		{
-			this.mc = mc;
+			this.sc = mc.getStampCoordinate();
+			this.lc = mc.getLanguageCoordinate();
+			this.hash = Objects.hash(sc, lc);
 		}
-		
+
 		/**
 		 * @see java.util.function.Function#apply(java.lang.Object)
 		 */
 		@Override
 		public int[] apply(int[] inputNids)
 		{
-			//Sort the concept nids based on the description the tree will display
-			TreeMap<String, Integer> sorted = new TreeMap<>(new AlphanumComparator(true));
-			for (int conNid : inputNids)
+			int[] sorted = CommitWatcher.readThrough(SORTED_NIDS_CACHE, new SortedNidsKey(this, inputNids.clone()), key -> sort(key.nids));
+			System.arraycopy(sorted, 0, inputNids, 0, sorted.length);
+			return inputNids;
+		}
+
+		private int[] sort(int[] nids)
+		{
+			// Read each description once, rather than on each comparison
+			String[] sortKeys = new String[nids.length];
+			Integer[] order = new Integer[nids.length];
+			for (int i = 0; i < nids.length; i++)
 			{
-				sorted.put(Util.readBestDescription(conNid, mc.getStampCoordinate(), mc.getLanguageCoordinate()), conNid);
+				String description = Util.readBestDescription(nids[i], sc, lc);
+				sortKeys[i] = description == null ? "" : description;
+				order[i] = i;
 			}
-			
-			int i = 0;
-			for (int nid : sorted.values())
+
+			AlphanumComparator comparator = new AlphanumComparator(true);
+			Arrays.sort(order, (a, b) -> 
+			{
+				int result = comparator.compare(sortKeys[a], sortKeys[b]);
+				return result != 0 ? result : Integer.compare(nids[a], nids[b]);
+			});
+
+			int[] sorted = new int[nids.length];
+			for (int i = 0; i < order.length; i++)
 			{
-				inputNids[i++] = nid;
+				sorted[i] = nids[order[i]];
 			}
-			return inputNids;
+			return sorted;
 		}
 
 		@Override
 		public int hashCode()
 		{
-			// we need to override hashcode, so that when the ManifoldCoordinate computes a unique hashcode or key for itself, 
-			//it gets a consistent hashcode for this function.  It doesn't actually matter what the value is, we just need it 
-			//to be consistent.
-			return 42;
+			return hash;
 		}
 
 		@Override
 		public boolean equals(Object obj)
 		{
-			return this.hashCode() == obj.hashCode();
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof CustomSorter))
+			{
+				return false;
+			}
+			CustomSorter other = (CustomSorter) obj;
+			return hash == other.hash && sc.equals(other.sc) && lc.equals(other.lc);
+		}
+	}
+
+	private static class SortedNidsKey
+	{
+		private final CustomSorter sorter;
+		private final int[] nids;
+		private final int hash;
+
+		private SortedNidsKey(CustomSorter sorter, int[] nids)
+		{
+			this.sorter = sorter;
+			this.nids = nids;
+			this.hash = 31 * sorter.hashCode() + Arrays.hashCode(nids);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof SortedNidsKey))
+			{
+				return false;
+			}
+			SortedNidsKey other = (SortedNidsKey) obj;
+			return hash == other.hash && sorter.equals(other.sorter) && Arrays.equals(nids, other.nids);
 		}
 	}
 }
@@ -49,6 +49,7 @@ import org.apache.logging.log4j.Logger;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.user.RestUserData;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestInfo;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
 import net.sagebits.uts.auth.data.UserRole.SystemRoleConstants;
@@ -95,7 +96,7 @@ public class UserStoreAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.associationItemComponent + "{" + RequestParameters.id + "}")
 	public RestUserData getData(@PathParam(RequestParameters.id) String id, @QueryParam(RequestParameters.local)  @DefaultValue("false") String local, 
 			@QueryParam(RequestParameters.global) @DefaultValue("false") String global, @QueryParam(RequestParameters.editToken) String editToken, 
@@ -157,7 +158,7 @@ public class UserStoreAPIs
 	 * @throws RestException
 	 */
 	@GET
-	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+	@Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MyJacksonCborProvider.APPLICATION_CBOR })
 	@Path(RestPaths.itemsComponent)
 	public List<RestUserData> getAllData(@QueryParam(RequestParameters.local)  @DefaultValue("false") String local, 
 			@QueryParam(RequestParameters.global) @DefaultValue("false") String global, @QueryParam(RequestParameters.editToken) String editToken, 
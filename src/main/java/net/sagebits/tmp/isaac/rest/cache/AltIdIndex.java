@@ -0,0 +1,363 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.MetaData;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.chronicle.LatestVersion;
+import sh.isaac.api.chronicle.Version;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.StringVersion;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.utility.Frills;
+
+/**
+ * 
+ * {@link AltIdIndex}
+ * 
+ * Hash indexes over the identifier semantics of each identifier assemblage (the semantic based types of 
+ * {@link net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType}) - from the identifier string to the identifier semantics that 
+ * carry it, and from the identified component to its identifier semantics.  This makes translation of alternate ids, in either direction, 
+ * a map lookup rather than a query.
+ * 
+ * The indexes are built in the background, in parallel, at startup, and then maintained from the change listener.  They cover the value of 
+ * every version of each identifier semantic.  A lookup by identifier matches any version, on any path, as the lucene lookup of 
+ * {@link Frills#getNidForAltId(int, String)} does - so retired and inactive identifiers still resolve - while the identifier of a component 
+ * is read from the latest version on the requested coordinate.  Until the build of an identifier assemblage is complete (at startup, or when 
+ * an assemblage is newly marked as an identifier type), lookups in that assemblage fall back to {@link Frills}.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class AltIdIndex implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(AltIdIndex.class);
+
+	private static final Map<Integer, Assemblage> assemblages = new ConcurrentHashMap<>();
+	private static final Map<Integer, Boolean> isIdentifierAssemblage = new ConcurrentHashMap<>();
+	private static volatile boolean ready = false;
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	AltIdIndex()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Alternate id index starting");
+		ready = false;
+		assemblages.clear();
+		isIdentifierAssemblage.clear();
+		// Listen first, so that nothing committed during the build is missed.
+		Get.commitService().addChangeListener(this);
+		Get.workExecutors().getExecutor().execute(() -> build());
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Alternate id index stopping");
+		Get.commitService().removeChangeListener(this);
+		ready = false;
+		assemblages.clear();
+		isIdentifierAssemblage.clear();
+	}
+
+	private void build()
+	{
+		try
+		{
+			long start = System.currentTimeMillis();
+			for (ConceptChronology cc : Frills.getIdentifierAssemblages())
+			{
+				isIdentifierAssemblage.put(cc.getNid(), Boolean.TRUE);
+				assemblages.computeIfAbsent(cc.getNid(), key -> new Assemblage());
+			}
+			for (ConceptChronology cc : Frills.getIdentifierAssemblages())
+			{
+				indexAssemblage(cc.getNid());
+			}
+			ready = true;
+			log.info("Alternate id index built for {} identifier types with {} ids in {}ms", assemblages.size(), 
+					assemblages.values().stream().mapToInt(a -> a.byCode.size()).sum(), System.currentTimeMillis() - start);
+		}
+		catch (Exception e)
+		{
+			log.error("Failed to build the alternate id index, alternate id lookups will not be indexed", e);
+		}
+	}
+
+	private static void indexAssemblage(int assemblageNid)
+	{
+		Assemblage assemblage = assemblages.computeIfAbsent(assemblageNid, key -> new Assemblage());
+		Get.assemblageService().getSemanticNidsFromAssemblage(assemblageNid).stream().parallel()
+				.forEach(semanticNid -> assemblage.index(Get.assemblageService().getSemanticChronology(semanticNid)));
+		assemblage.complete = true;
+	}
+
+	private static boolean isIdentifierAssemblage(int assemblageNid)
+	{
+		return isIdentifierAssemblage.computeIfAbsent(assemblageNid, key -> Get.assemblageService()
+				.getSemanticChronologyStreamForComponentFromAssemblage(key, MetaData.IDENTIFIER_SOURCE____SOLOR.getNid()).findAny().isPresent());
+	}
+
+	/**
+	 * @param v a version of an identifier semantic
+	 * @return the identifier, or null, if the version doesn't carry a string
+	 */
+	private static String readCode(Version v)
+	{
+		return v instanceof StringVersion ? ((StringVersion) v).getString() : null;
+	}
+
+	/**
+	 * @return true, once the initial build of the index is complete
+	 */
+	public static boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * Find the components that carry an identifier, in any version of the identifier semantic - active or not, on any path.
+	 * @param assemblageNid the identifier assemblage (the enumId of a semantic based RestSupportedIdType)
+	 * @param code the identifier
+	 * @return the nids of the components that have (or had) the code as their identifier in the assemblage, sorted ascending
+	 */
+	public static List<Integer> getNids(int assemblageNid, String code)
+	{
+		Assemblage assemblage = assemblages.get(assemblageNid);
+		if (!ready || assemblage == null || !assemblage.complete)
+		{
+			return Frills.getNidForAltId(assemblageNid, code);
+		}
+		return assemblage.getNids(code);
+	}
+
+	/**
+	 * Find the components that carry an identifier of any identifier type, in any version of the identifier semantic - active or not, on 
+	 * any path.
+	 * @param code the identifier
+	 * @return the nids of the components which have (or had) the code as an identifier, sorted ascending within each identifier type
+	 */
+	public static List<Integer> getNids(String code)
+	{
+		ArrayList<Integer> results = new ArrayList<>();
+		if (!ready)
+		{
+			for (ConceptChronology cc : Frills.getIdentifierAssemblages())
+			{
+				results.addAll(Frills.getNidForAltId(cc.getNid(), code));
+			}
+		}
+		else
+		{
+			for (Map.Entry<Integer, Assemblage> assemblage : assemblages.entrySet())
+			{
+				results.addAll(assemblage.getValue().complete ? assemblage.getValue().getNids(code) 
+						: Frills.getNidForAltId(assemblage.getKey(), code));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Read the identifier of a component.
+	 * @param assemblageNid the identifier assemblage (the enumId of a semantic based RestSupportedIdType)
+	 * @param nid the identified component
+	 * @param stamp the coordinate to read the identifier semantic on
+	 * @return the identifier, if the component has one in the assemblage on the coordinate
+	 */
+	public static Optional<String> getAltId(int assemblageNid, int nid, StampCoordinate stamp)
+	{
+		Assemblage assemblage = assemblages.get(assemblageNid);
+		if (!ready || assemblage == null || !assemblage.complete)
+		{
+			Optional<SemanticChronology> item = Get.assemblageService().getSemanticChronologyStreamForComponentFromAssemblage(nid, assemblageNid)
+					.findAny();
+			if (item.isPresent())
+			{
+				LatestVersion<Version> latest = item.get().getLatestVersion(stamp);
+				if (latest.isPresent())
+				{
+					return Optional.ofNullable(readCode(latest.get()));
+				}
+			}
+			return Optional.empty();
+		}
+		return assemblage.getAltId(nid, stamp);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		// noop
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		try
+		{
+			if (sc.getAssemblageNid() == MetaData.IDENTIFIER_SOURCE____SOLOR.getNid())
+			{
+				// A new identifier type - pick up any ids that were loaded before it was marked as an identifier.  Lookups in the assemblage
+				// fall back to Frills until this is complete.
+				int assemblageNid = sc.getReferencedComponentNid();
+				if (isIdentifierAssemblage.put(assemblageNid, Boolean.TRUE) != Boolean.TRUE)
+				{
+					assemblages.computeIfAbsent(assemblageNid, key -> new Assemblage());
+					Get.workExecutors().getExecutor().execute(() -> indexAssemblage(assemblageNid));
+				}
+			}
+			else if (isIdentifierAssemblage(sc.getAssemblageNid()))
+			{
+				boolean[] created = new boolean[] {false};
+				assemblages.computeIfAbsent(sc.getAssemblageNid(), key -> 
+				{
+					created[0] = true;
+					return new Assemblage();
+				}).index(sc);
+				if (created[0] && ready)
+				{
+					// An identifier type that wasn't known at startup, or announced by a change
+					int assemblageNid = sc.getAssemblageNid();
+					Get.workExecutors().getExecutor().execute(() -> indexAssemblage(assemblageNid));
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Unexpected error updating the alternate id index for " + sc.getNid(), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		// noop - changes are indexed as they are seen, whether or not they are committed
+	}
+
+	private static class Assemblage
+	{
+		private final ConcurrentHashMap<String, Set<Integer>> byCode = new ConcurrentHashMap<>();
+		private final NidMultiMap byComponent = new NidMultiMap(1000);
+		private volatile boolean complete = false;
+
+		private void index(SemanticChronology sc)
+		{
+			byComponent.put(sc.getReferencedComponentNid(), sc.getNid());
+			for (Version v : sc.getVersionList())
+			{
+				String code = readCode(v);
+				if (code != null)
+				{
+					byCode.computeIfAbsent(code, key -> ConcurrentHashMap.newKeySet(2)).add(sc.getNid());
+				}
+			}
+		}
+
+		private List<Integer> getNids(String code)
+		{
+			Set<Integer> semanticNids = byCode.get(code);
+			if (semanticNids == null)
+			{
+				return Collections.emptyList();
+			}
+			ArrayList<Integer> results = new ArrayList<>(semanticNids.size());
+			for (int semanticNid : semanticNids)
+			{
+				int referencedComponentNid = Get.assemblageService().getSemanticChronology(semanticNid).getReferencedComponentNid();
+				if (!results.contains(referencedComponentNid))
+				{
+					results.add(referencedComponentNid);
+				}
+			}
+			Collections.sort(results);
+			return results;
+		}
+
+		private Optional<String> getAltId(int nid, StampCoordinate stamp)
+		{
+			for (int semanticNid : byComponent.get(nid))
+			{
+				LatestVersion<Version> latest = Get.assemblageService().getSemanticChronology(semanticNid).getLatestVersion(stamp);
+				if (latest.isPresent())
+				{
+					String code = readCode(latest.get());
+					if (code != null)
+					{
+						return Optional.of(code);
+					}
+				}
+			}
+			return Optional.empty();
+		}
+	}
+}
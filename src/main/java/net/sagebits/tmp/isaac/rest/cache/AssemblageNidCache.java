@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.Arrays;
+import java.util.Set;
+import sh.isaac.api.Get;
+import sh.isaac.api.collections.NidSet;
+
+/**
+ * 
+ * {@link AssemblageNidCache}
+ * 
+ * Caches the semantic nids of an assemblage as a sorted array, so that paged reads of large assemblages (refsets, map sets) can seek 
+ * directly to the start of a page, rather than materializing the assemblage members on every request.  The cache is small (the arrays
+ * can be large), and cleared on any change seen by the {@link CommitWatcher}.
+ */
+public class AssemblageNidCache
+{
+	private static final StripedCache<Integer, int[]> SORTED_NIDS_CACHE = new StripedCache<>("Sorted semantic nids by assemblage", 32);
+
+	static
+	{
+		CommitWatcher.addChangeListener(() -> SORTED_NIDS_CACHE.clear());
+	}
+
+	private AssemblageNidCache()
+	{
+		// static utility
+	}
+
+	/**
+	 * @param assemblageNid
+	 * @return the nids of all semantics in the assemblage, sorted ascending.  The returned array is shared, and must not be modified.
+	 */
+	public static int[] getSortedSemanticNids(int assemblageNid)
+	{
+		return CommitWatcher.readThrough(SORTED_NIDS_CACHE, assemblageNid, key -> 
+		{
+			int[] nids = Get.assemblageService().getSemanticNidsFromAssemblage(key).asArray();
+			Arrays.sort(nids);
+			return nids;
+		});
+	}
+
+	/**
+	 * @param assemblageNids
+	 * @return the nids of all semantics in any of the assemblages, sorted ascending.  The returned array must not be modified.
+	 */
+	public static int[] getSortedSemanticNids(Set<Integer> assemblageNids)
+	{
+		if (assemblageNids.size() == 1)
+		{
+			return getSortedSemanticNids(assemblageNids.iterator().next());
+		}
+		NidSet allSemanticNids = new NidSet();
+		for (int assemblageNid : assemblageNids)
+		{
+			allSemanticNids.addAll(Arrays.stream(getSortedSemanticNids(assemblageNid)));
+		}
+		int[] nids = allSemanticNids.asArray();
+		Arrays.sort(nids);
+		return nids;
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.chronicle.LatestVersion;
+import sh.isaac.api.chronicle.Version;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.DynamicVersion;
+import sh.isaac.api.component.semantic.version.dynamic.DynamicData;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicNid;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicUUID;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.misc.associations.AssociationInstance;
+import sh.isaac.misc.associations.AssociationUtilities;
+
+/**
+ * 
+ * {@link AssociationTargetIndex}
+ * 
+ * An inverted index from the target component of an association to the association semantics that carry that target.  The target of an 
+ * association is stored in the dynamic data of the semantic, rather than as the referenced component, so without this index, a lookup by 
+ * target requires a scan of the association semantics.
+ * 
+ * The index is built in the background, in parallel, at startup, and then maintained from the change listener.  The index covers the targets 
+ * of every version of each association, so it may return semantics whose latest version on a coordinate no longer has the target - those are 
+ * filtered out by {@link #getTargetAssociations(int, StampCoordinate)}.  Until the index is built, lookups fall back to 
+ * {@link AssociationUtilities#getTargetAssociations(int, StampCoordinate)}.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class AssociationTargetIndex implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(AssociationTargetIndex.class);
+
+	private static final NidMultiMap targetIndex = new NidMultiMap(100_000);
+	private static volatile boolean ready = false;
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	AssociationTargetIndex()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Association target index starting");
+		ready = false;
+		targetIndex.clear();
+		// Listen first, so that nothing committed during the build is missed.
+		Get.commitService().addChangeListener(this);
+		Get.workExecutors().getExecutor().execute(() -> build());
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Association target index stopping");
+		Get.commitService().removeChangeListener(this);
+		ready = false;
+		targetIndex.clear();
+	}
+
+	private void build()
+	{
+		try
+		{
+			long start = System.currentTimeMillis();
+			for (int associationTypeNid : AssociationUtilities.getAssociationConceptNids())
+			{
+				Get.assemblageService().getSemanticNidsFromAssemblage(associationTypeNid).stream().parallel()
+						.forEach(semanticNid -> index(Get.assemblageService().getSemanticChronology(semanticNid)));
+			}
+			ready = true;
+			log.info("Association target index built with {} targets in {}ms", targetIndex.size(), System.currentTimeMillis() - start);
+		}
+		catch (Exception e)
+		{
+			log.error("Failed to build the association target index, target lookups will not be indexed", e);
+		}
+	}
+
+	private static void index(SemanticChronology sc)
+	{
+		for (Version v : sc.getVersionList())
+		{
+			if (v instanceof DynamicVersion)
+			{
+				int targetNid = readTargetNid((DynamicVersion<?>) v);
+				if (targetNid != 0)
+				{
+					targetIndex.put(targetNid, sc.getNid());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param association a version of an association semantic
+	 * @return the nid of the target of the association, or 0, if it has no target, or the target is not in the database.
+	 */
+	private static int readTargetNid(DynamicVersion<?> association)
+	{
+		DynamicData[] data = association.getData();
+		if (data == null || data.length == 0 || data[0] == null)
+		{
+			return 0;
+		}
+		if (data[0] instanceof DynamicNid)
+		{
+			return ((DynamicNid) data[0]).getDataNid();
+		}
+		if (data[0] instanceof DynamicUUID)
+		{
+			UUID target = ((DynamicUUID) data[0]).getDataUUID();
+			return Get.identifierService().hasUuid(target) ? Get.identifierService().getNidForUuids(target) : 0;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return true, once the initial build of the index is complete
+	 */
+	public static boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * Find the associations which have the specified target component.
+	 * @param targetNid the nid of the target component
+	 * @param stamp the coordinate to read the associations on
+	 * @return the latest version of each association on the coordinate, which has the specified target
+	 */
+	public static List<AssociationInstance> getTargetAssociations(int targetNid, StampCoordinate stamp)
+	{
+		if (!ready)
+		{
+			return AssociationUtilities.getTargetAssociations(targetNid, stamp);
+		}
+
+		ArrayList<AssociationInstance> results = new ArrayList<>();
+		for (int semanticNid : targetIndex.get(targetNid))
+		{
+			LatestVersion<DynamicVersion<?>> latest = Get.assemblageService().getSemanticChronology(semanticNid).getLatestVersion(stamp);
+			if (latest.isPresent() && readTargetNid(latest.get()) == targetNid)
+			{
+				results.add(AssociationInstance.read(latest.get(), stamp));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		// noop
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		try
+		{
+			if (AssociationUtilities.isAssociation(sc))
+			{
+				index(sc);
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Unexpected error updating the association target index for " + sc.getNid(), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		// noop - changes are indexed as they are seen, whether or not they are committed
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+
+/**
+ * 
+ * {@link CommitWatcher}
+ * 
+ * Watches for changes and commits to the ISAAC datastore, so that data cached across requests can be discarded when the data it 
+ * was calculated from changes.  Also maintains a change sequence number, which increments on every change or commit.
+ * 
+ * Uncommitted changes are treated the same as commits, as they are visible to coordinates with a time of latest.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class CommitWatcher implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(CommitWatcher.class);
+
+	private static final AtomicLong changeSequence = new AtomicLong();
+	private static volatile long lastChangeTime = 0;
+	private static final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	CommitWatcher()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Commit watcher starting");
+		Get.commitService().addChangeListener(this);
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Commit watcher stopping");
+		Get.commitService().removeChangeListener(this);
+		changed();
+	}
+
+	/**
+	 * Register code to be run after any change or commit.  Listeners are held for the life of the JVM, so this is intended for use by 
+	 * static caches.
+	 * @param listener the code to run - typically, a cache clear.
+	 */
+	public static void addChangeListener(Runnable listener)
+	{
+		changeListeners.add(listener);
+	}
+
+	/**
+	 * @return A number which increments each time any change or commit happens in the datastore.
+	 */
+	public static long getChangeSequence()
+	{
+		return changeSequence.get();
+	}
+
+	/**
+	 * @return The time (System.currentTimeMillis()) of the most recent change or commit, or 0, if none has happened since startup.  
+	 *     Indexes are updated shortly after a change, so data read from an index may be stale until some time after this.
+	 */
+	public static long getLastChangeTime()
+	{
+		return lastChangeTime;
+	}
+
+	/**
+	 * Return the value from the cache, or, if not present, load it and put it in the cache - so long as no change happened while it was
+	 * being loaded (in which case, it may have been calculated from stale data).
+	 * @param cache the cache to read through
+	 * @param key the key
+	 * @param loader the code to calculate the value for a key that isn't cached.  Must not return null.
+	 * @return the cached or loaded value
+	 */
+	public static <K, V> V readThrough(StripedCache<K, V> cache, K key, Function<K, V> loader)
+	{
+		V value = cache.get(key);
+		if (value == null)
+		{
+			long sequence = changeSequence.get();
+			value = loader.apply(key);
+			if (sequence == changeSequence.get())
+			{
+				cache.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	private static void changed()
+	{
+		lastChangeTime = System.currentTimeMillis();
+		changeSequence.incrementAndGet();
+		for (Runnable r : changeListeners)
+		{
+			try
+			{
+				r.run();
+			}
+			catch (Exception e)
+			{
+				log.error("Unexpected error notifying change listener", e);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		changed();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		changed();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		changed();
+	}
+}
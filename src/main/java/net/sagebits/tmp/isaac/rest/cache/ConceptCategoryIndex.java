@@ -0,0 +1,358 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.MetaData;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.dynamic.DynamicUsageDescription;
+import sh.isaac.api.externalizable.IsaacObjectType;
+import sh.isaac.model.semantic.DynamicUsageDescriptionImpl;
+import sh.isaac.utility.Frills;
+
+/**
+ * 
+ * {@link ConceptCategoryIndex}
+ * 
+ * Precomputed sets of the concepts that define associations, mapsets, semantics, refsets and properties - the restrictTo categories of 
+ * the prefix search - and of the semantics (such as descriptions) on those concepts, including the semantics nested on those semantics, so a 
+ * hit is in the set when its nearest concept is in the category.  This turns the restrictTo filter of a search into a bit test on the nid 
+ * of each hit, rather than a walk to the nearest concept, and a read of its semantic definition, for each hit.
+ * 
+ * The sets are built in the background, in parallel, at startup.  Concepts that change (or have a semantic change) are queued, and 
+ * re-evaluated after each commit, and before any filter is handed out, so a search that follows a commit sees the change.  Until the 
+ * initial build is complete, {@link #filter(Category)} returns a filter that evaluates each hit directly.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class ConceptCategoryIndex implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(ConceptCategoryIndex.class);
+
+	/**
+	 * The kinds of concepts that a search can be restricted to
+	 */
+	public enum Category
+	{
+		ASSOCIATION, MAPSET, SEMANTIC, REFSET, PROPERTY
+	}
+
+	private static final EnumMap<Category, NidBitSet> concepts = new EnumMap<>(Category.class);
+	private static final EnumMap<Category, NidBitSet> semantics = new EnumMap<>(Category.class);
+	private static final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+	private static volatile boolean ready = false;
+
+	static
+	{
+		for (Category category : Category.values())
+		{
+			concepts.put(category, new NidBitSet());
+			semantics.put(category, new NidBitSet());
+		}
+	}
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	ConceptCategoryIndex()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Concept category index starting");
+		clear();
+		// Listen first, so that nothing committed during the build is missed.
+		Get.commitService().addChangeListener(this);
+		Get.workExecutors().getExecutor().execute(() -> build());
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Concept category index stopping");
+		Get.commitService().removeChangeListener(this);
+		clear();
+	}
+
+	private static void clear()
+	{
+		ready = false;
+		pending.clear();
+		for (Category category : Category.values())
+		{
+			concepts.get(category).clear();
+			semantics.get(category).clear();
+		}
+	}
+
+	private void build()
+	{
+		try
+		{
+			long start = System.currentTimeMillis();
+			EnumMap<Category, Set<Integer>> found = new EnumMap<>(Category.class);
+			for (Category category : Category.values())
+			{
+				found.put(category, ConcurrentHashMap.newKeySet());
+			}
+
+			Get.conceptService().getConceptNidStream().parallel().forEach(conceptNid -> {
+				for (Category category : Category.values())
+				{
+					if (defines(category, conceptNid))
+					{
+						found.get(category).add(conceptNid);
+					}
+				}
+			});
+
+			for (Category category : Category.values())
+			{
+				concepts.get(category).replace(found.get(category).stream().mapToInt(i -> i.intValue()).toArray());
+				semantics.get(category).replace(found.get(category).stream().flatMapToInt(conceptNid -> nestedSemantics(conceptNid)).toArray());
+			}
+			ready = true;
+			log.info("Concept category index built in {}ms - {}", System.currentTimeMillis() - start, summary());
+			drainPending();
+		}
+		catch (Exception e)
+		{
+			log.error("Failed to build the concept category index, restrictTo search filters will evaluate each hit", e);
+		}
+	}
+
+	private static String summary()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (Category category : Category.values())
+		{
+			sb.append(category.name().toLowerCase(Locale.ENGLISH)).append(": ").append(concepts.get(category).size()).append(" concepts ");
+		}
+		return sb.toString().trim();
+	}
+
+	/**
+	 * Re-evaluate the concepts that have changed since the last call.
+	 */
+	private static synchronized void drainPending()
+	{
+		if (!ready || pending.isEmpty())
+		{
+			return;
+		}
+		Integer[] changed = pending.toArray(new Integer[0]);
+		pending.removeAll(Arrays.asList(changed));
+		for (int conceptNid : changed)
+		{
+			int[] conceptSemantics = nestedSemantics(conceptNid).toArray();
+			for (Category category : Category.values())
+			{
+				boolean defines = defines(category, conceptNid);
+				concepts.get(category).set(new int[] {conceptNid}, defines);
+				semantics.get(category).set(conceptSemantics, defines);
+			}
+		}
+	}
+
+	/**
+	 * @param componentNid a concept or semantic
+	 * @return the semantics on the component, and (recursively) the semantics on those semantics - everything whose nearest concept is 
+	 *     the component, when it is a concept
+	 */
+	private static IntStream nestedSemantics(int componentNid)
+	{
+		return Arrays.stream(Get.assemblageService().getSemanticNidsForComponent(componentNid).asArray())
+				.flatMap(semanticNid -> IntStream.concat(IntStream.of(semanticNid), nestedSemantics(semanticNid)));
+	}
+
+	/**
+	 * @param category the restrictTo category
+	 * @return a filter, which accepts the nid of a search hit (such as a description) when the concept that the hit is on is in the category.
+	 */
+	public static Predicate<Integer> filter(Category category)
+	{
+		if (!ready)
+		{
+			return (nid -> {
+				Optional<Integer> conNid = Frills.getNearestConcept(nid);
+				return conNid.isPresent() && defines(category, conNid.get());
+			});
+		}
+		drainPending();
+		NidBitSet categorySemantics = semantics.get(category);
+		return (nid -> categorySemantics.contains(nid));
+	}
+
+	/**
+	 * @param category the restrictTo category
+	 * @param conceptNid the concept to evaluate
+	 * @return true, if the concept is in the category
+	 */
+	public static boolean isInCategory(Category category, int conceptNid)
+	{
+		if (!ready)
+		{
+			return defines(category, conceptNid);
+		}
+		drainPending();
+		return concepts.get(category).contains(conceptNid);
+	}
+
+	/**
+	 * Evaluate (without the index) whether a concept is in a category.
+	 */
+	private static boolean defines(Category category, int conceptNid)
+	{
+		switch (category)
+		{
+			case ASSOCIATION:
+				return Frills.definesAssociation(conceptNid);
+			case MAPSET:
+				return Frills.definesMapping(conceptNid);
+			case SEMANTIC:
+				return Frills.definesDynamicSemantic(conceptNid) || Frills.definesIdentifierSemantic(conceptNid)
+						|| Frills.getStaticSemanticType(conceptNid).isPresent();
+				//TODO handle other unannotated semantic types?
+			case REFSET:
+			case PROPERTY:
+				if (Frills.definesDynamicSemantic(conceptNid))
+				{
+					try
+					{
+						DynamicUsageDescription dud = DynamicUsageDescriptionImpl.read(conceptNid);
+						return category == Category.REFSET ? dud.getColumnInfo().length == 0 : dud.getColumnInfo().length > 0;
+					}
+					catch (Exception e)
+					{
+						// fall through to the static checks
+					}
+				}
+				//not a dynamic refset, probe for some static refset types....
+				if (Frills.definesIdentifierSemantic(conceptNid))
+				{
+					return category == Category.PROPERTY;
+				}
+				Optional<Integer> staticType = Frills.getStaticSemanticType(conceptNid);
+				if (staticType.isPresent())
+				{
+					//If it has this annotation, then it is a refset if it is a membership semantic, otherwise a property.
+					return (staticType.get() == MetaData.MEMBERSHIP_SEMANTIC____SOLOR.getNid()) == (category == Category.REFSET);
+				}
+				//TODO handle other unannotated semantic types?
+				return false;
+			default :
+				throw new RuntimeException("Unsupported category " + category);
+		}
+	}
+
+	/**
+	 * @return true, once the initial build of the index is complete
+	 */
+	public static boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		pending.add(cc.getNid());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		try
+		{
+			// Re-evaluate the concept that the semantic is (perhaps through other semantics) nested on, which picks up the new semantic
+			if (Get.identifierService().getObjectTypeForComponent(sc.getReferencedComponentNid()) == IsaacObjectType.CONCEPT)
+			{
+				pending.add(sc.getReferencedComponentNid());
+			}
+			else
+			{
+				Frills.getNearestConcept(sc.getReferencedComponentNid()).ifPresent(conceptNid -> pending.add(conceptNid));
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Unexpected error updating the concept category index for " + sc.getNid(), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		if (!pending.isEmpty())
+		{
+			Get.workExecutors().getExecutor().execute(() -> drainPending());
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
+import sh.isaac.api.coordinate.LanguageCoordinate;
+import sh.isaac.api.coordinate.StampCoordinate;
+
+/**
+ * 
+ * {@link DescriptionCache}
+ * 
+ * A request scoped cache of description text, keyed by concept nid, stamp coordinate and language coordinate.  A single response often
+ * resolves the description for the same concepts (modules, paths, authors, qualifiers) many times over.
+ * 
+ * Values that miss the request cache are read through an optional, bounded cache which is shared across requests, and cleared whenever
+ * the {@link CommitWatcher} sees a change.  The shared cache is sized with description_cache_size in uts-rest-api.properties, and may 
+ * be disabled by setting it to 0.
+ * 
+ * Instances are not thread safe - one is held by each {@link net.sagebits.tmp.isaac.rest.session.RequestInfo}.  As a RequestInfo may also 
+ * be created (and never cleaned up) on a worker thread, the request cache is also bounded, and cleared if a change happens while it is in use.
+ */
+public class DescriptionCache
+{
+	private static final int MAX_REQUEST_CACHE_SIZE = 10000;
+	private static final StripedCache<Key, Optional<String>> SHARED_CACHE;
+
+	static
+	{
+		int size = RestConfig.getInstance().getDescriptionCacheSize();
+		if (size > 0)
+		{
+			SHARED_CACHE = new StripedCache<>("Descriptions", size);
+			CommitWatcher.addChangeListener(() -> SHARED_CACHE.clear());
+		}
+		else
+		{
+			SHARED_CACHE = null;
+		}
+	}
+
+	private final HashMap<Key, Optional<String>> requestCache = new HashMap<>();
+	private long changeSequence = CommitWatcher.getChangeSequence();
+
+	/**
+	 * Return the cached description for the concept, or read (and cache) it with the passed in reader.
+	 * 
+	 * @param nid the concept the description is for
+	 * @param sc the stamp coordinate the description was read with - may be null, if the reader uses a system default coordinate.
+	 * @param lc the language coordinate the description was read with - may be null, if the reader uses a system default coordinate.
+	 * @param reader the code to read the description, if it isn't cached. May return null.
+	 * @return the description text, or null, if the reader returned null.
+	 */
+	public String get(int nid, StampCoordinate sc, LanguageCoordinate lc, Supplier<String> reader)
+	{
+		if (changeSequence != CommitWatcher.getChangeSequence() || requestCache.size() >= MAX_REQUEST_CACHE_SIZE)
+		{
+			requestCache.clear();
+			changeSequence = CommitWatcher.getChangeSequence();
+		}
+
+		Key key = new Key(nid, sc, lc);
+		Optional<String> result = requestCache.get(key);
+		if (result == null)
+		{
+			if (SHARED_CACHE == null)
+			{
+				result = Optional.ofNullable(reader.get());
+			}
+			else
+			{
+				result = SHARED_CACHE.get(key);
+				if (result == null)
+				{
+					result = Optional.ofNullable(reader.get());
+					// Don't put a value into the shared cache, if it may have been read from data that changed during the read.
+					if (changeSequence == CommitWatcher.getChangeSequence())
+					{
+						SHARED_CACHE.put(key, result);
+					}
+				}
+			}
+			requestCache.put(key, result);
+		}
+		return result.orElse(null);
+	}
+
+	private static class Key
+	{
+		private final int nid;
+		private final StampCoordinate sc;
+		private final LanguageCoordinate lc;
+		private final int hash;
+
+		private Key(int nid, StampCoordinate sc, LanguageCoordinate lc)
+		{
+			this.nid = nid;
+			this.sc = sc;
+			this.lc = lc;
+			this.hash = Objects.hash(nid, sc, lc);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return nid == other.nid && hash == other.hash && Objects.equals(sc, other.sc) && Objects.equals(lc, other.lc);
+		}
+	}
+}
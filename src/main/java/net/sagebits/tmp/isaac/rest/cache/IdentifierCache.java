@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import net.sagebits.tmp.isaac.rest.api1.data.RestId;
+import net.sagebits.tmp.isaac.rest.api1.data.enumerations.IdType;
+import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType;
+import sh.isaac.api.Get;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.api.externalizable.IsaacObjectType;
+
+/**
+ * 
+ * {@link IdentifierCache}
+ * 
+ * Caches the identifying data that is read to construct a {@link net.sagebits.tmp.isaac.rest.api1.data.RestIdentifiedObject} - the uuids
+ * and type of a nid, and the alternate ids for a nid, per stamp coordinate and set of requested id types.  The same metadata concepts
+ * (authors, modules, paths, types) are referenced from nearly every response.
+ * 
+ * Both caches are bounded, and cleared on any change seen by the {@link CommitWatcher}.  Cached values are immutable - callers get 
+ * new {@link RestId} instances for each call.
+ */
+public class IdentifierCache
+{
+	private static final StripedCache<Integer, Identity> IDENTITY_CACHE = new StripedCache<>("Identifier uuids and types", 20000);
+	private static final StripedCache<AltIdKey, String[]> ALT_ID_CACHE = new StripedCache<>("Alternate identifiers", 20000);
+
+	static
+	{
+		CommitWatcher.addChangeListener(() -> 
+		{
+			IDENTITY_CACHE.clear();
+			ALT_ID_CACHE.clear();
+		});
+	}
+
+	private IdentifierCache()
+	{
+		// static utility
+	}
+
+	/**
+	 * @param nid
+	 * @return the (unmodifiable) list of uuids for the nid, per {@link sh.isaac.api.IdentifierService#getUuidsForNid(int)}
+	 */
+	public static List<UUID> getUuids(int nid)
+	{
+		return getIdentity(nid).uuids;
+	}
+
+	/**
+	 * @param nid
+	 * @return the type of the nid, per {@link sh.isaac.api.IdentifierService#getObjectTypeForComponent(int)}
+	 */
+	public static IsaacObjectType getObjectType(int nid)
+	{
+		return getIdentity(nid).type;
+	}
+
+	/**
+	 * Read the alternate ids of the requested types for the nid.  Types of {@link IdType#NID} and {@link IdType#UUID} are ignored, as these
+	 * are always populated on an identified object.
+	 * 
+	 * @param nid the component to read ids for
+	 * @param sc the stamp coordinate to read the id semantics with
+	 * @param idTypes the id types to read
+	 * @return the ids that were found, in the order of the requested types, or an empty list, if none are found.
+	 */
+	public static List<RestId> getAltIds(int nid, StampCoordinate sc, List<RestSupportedIdType> idTypes)
+	{
+		ArrayList<RestSupportedIdType> semanticIdTypes = new ArrayList<>(idTypes.size());
+		for (RestSupportedIdType rsit : idTypes)
+		{
+			if (!rsit.enumName.equals(IdType.NID.name()) && !rsit.enumName.equals(IdType.UUID.name()))
+			{
+				semanticIdTypes.add(rsit);
+			}
+		}
+		if (semanticIdTypes.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		int[] assemblageNids = new int[semanticIdTypes.size()];
+		for (int i = 0; i < assemblageNids.length; i++)
+		{
+			assemblageNids[i] = semanticIdTypes.get(i).enumId;
+		}
+
+		String[] values = CommitWatcher.readThrough(ALT_ID_CACHE, new AltIdKey(nid, sc, assemblageNids), key -> readAltIds(key));
+
+		ArrayList<RestId> result = new ArrayList<>(values.length);
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] != null)
+			{
+				result.add(new RestId(semanticIdTypes.get(i), values[i]));
+			}
+		}
+		return result;
+	}
+
+	private static Identity getIdentity(int nid)
+	{
+		return CommitWatcher.readThrough(IDENTITY_CACHE, nid, key -> new Identity(Collections.unmodifiableList(Get.identifierService().getUuidsForNid(key)), 
+				Get.identifierService().getObjectTypeForComponent(key)));
+	}
+
+	private static String[] readAltIds(AltIdKey key)
+	{
+		String[] values = new String[key.assemblageNids.length];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = AltIdIndex.getAltId(key.assemblageNids[i], key.nid, key.sc).orElse(null);
+		}
+		return values;
+	}
+
+	private static class Identity
+	{
+		private final List<UUID> uuids;
+		private final IsaacObjectType type;
+
+		private Identity(List<UUID> uuids, IsaacObjectType type)
+		{
+			this.uuids = uuids;
+			this.type = type;
+		}
+	}
+
+	private static class AltIdKey
+	{
+		private final int nid;
+		private final StampCoordinate sc;
+		private final int[] assemblageNids;
+		private final int hash;
+
+		private AltIdKey(int nid, StampCoordinate sc, int[] assemblageNids)
+		{
+			this.nid = nid;
+			this.sc = sc;
+			this.assemblageNids = assemblageNids;
+			this.hash = 31 * (31 * nid + Objects.hashCode(sc)) + Arrays.hashCode(assemblageNids);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof AltIdKey))
+			{
+				return false;
+			}
+			AltIdKey other = (AltIdKey) obj;
+			return nid == other.nid && hash == other.hash && Arrays.equals(assemblageNids, other.assemblageNids) && Objects.equals(sc, other.sc);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.BitSet;
+
+/**
+ * 
+ * {@link NidBitSet}
+ * 
+ * A thread safe set of nids, held as bits, for membership tests in search filters.  Reads are a lock free bit test.  Writes copy the bits,
+ * so they should be batched, and are expected to be rare relative to reads.
+ */
+public class NidBitSet
+{
+	private volatile BitSet bits = new BitSet();
+
+	/**
+	 * @param nid
+	 * @return true, if the nid is in the set
+	 */
+	public boolean contains(int nid)
+	{
+		int index = index(nid);
+		return index >= 0 && bits.get(index);
+	}
+
+	/**
+	 * Add or remove the nids.
+	 * @param nids
+	 * @param present true to add the nids, false to remove them
+	 */
+	public synchronized void set(int[] nids, boolean present)
+	{
+		BitSet copy = null;
+		for (int nid : nids)
+		{
+			int index = index(nid);
+			if (index >= 0 && bits.get(index) != present)
+			{
+				if (copy == null)
+				{
+					copy = (BitSet) bits.clone();
+				}
+				copy.set(index, present);
+			}
+		}
+		if (copy != null)
+		{
+			bits = copy;
+		}
+	}
+
+	/**
+	 * Replace the contents of the set.
+	 * @param nids
+	 */
+	public synchronized void replace(int[] nids)
+	{
+		BitSet replacement = new BitSet();
+		for (int nid : nids)
+		{
+			int index = index(nid);
+			if (index >= 0)
+			{
+				replacement.set(index);
+			}
+		}
+		bits = replacement;
+	}
+
+	/**
+	 * @return the number of nids in the set
+	 */
+	public int size()
+	{
+		return bits.cardinality();
+	}
+
+	public synchronized void clear()
+	{
+		bits = new BitSet();
+	}
+
+	/**
+	 * nids are negative, counting up from Integer.MIN_VALUE, so shift them to count up from 0.
+	 */
+	private static int index(int nid)
+	{
+		return nid < 0 ? nid - Integer.MIN_VALUE : -1;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 
+ * {@link NidMultiMap}
+ * 
+ * A thread safe map from a nid to a set of nids, for use as an inverted index.  Additions may happen concurrently with reads.
+ */
+public class NidMultiMap
+{
+	private static final int[] EMPTY = new int[0];
+
+	private final ConcurrentHashMap<Integer, Set<Integer>> map;
+
+	/**
+	 * @param expectedKeys a sizing hint
+	 */
+	public NidMultiMap(int expectedKeys)
+	{
+		map = new ConcurrentHashMap<>(Math.max(16, expectedKeys));
+	}
+
+	/**
+	 * @param key
+	 * @param value
+	 */
+	public void put(int key, int value)
+	{
+		map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet(4)).add(value);
+	}
+
+	/**
+	 * @param key
+	 * @return the values for the key, sorted ascending.  Never null.
+	 */
+	public int[] get(int key)
+	{
+		Set<Integer> values = map.get(key);
+		if (values == null)
+		{
+			return EMPTY;
+		}
+		int[] result = values.stream().mapToInt(i -> i.intValue()).toArray();
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * @return the number of keys
+	 */
+	public int size()
+	{
+		return map.size();
+	}
+
+	public void clear()
+	{
+		map.clear();
+	}
+}
@@ -0,0 +1,739 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.chronicle.LatestVersion;
+import sh.isaac.api.chronicle.Version;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.DynamicVersion;
+import sh.isaac.api.component.semantic.version.dynamic.DynamicData;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicDouble;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicFloat;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicInteger;
+import sh.isaac.api.component.semantic.version.dynamic.types.DynamicLong;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.api.index.ComponentSearchResult;
+import sh.isaac.api.index.SearchResult;
+
+/**
+ * 
+ * {@link NumericColumnIndex}
+ * 
+ * A column oriented index of the numeric (integer, long, float and double) columns of dynamic semantics - for each assemblage and column, 
+ * a sorted array of values, with a parallel array of the semantic nids that carry them.  Numeric equality and range queries against an 
+ * assemblage become a binary search, rather than a lucene query.  Integer and long columns are held as a long[], and compared exactly, 
+ * float and double columns as a double[].
+ * 
+ * The columns of an assemblage are built together, on the first query of the assemblage.  The build runs on the querying thread, outside 
+ * of any lock on the index, and other queries of the same assemblage wait for it.  The change listener records the semantics that change 
+ * in a built assemblage, and the next query of the assemblage re-reads just those semantics, and merges them into the columns.  The index 
+ * covers the values of every version of each semantic, so candidates are checked against the latest version on the requested coordinate.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class NumericColumnIndex implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(NumericColumnIndex.class);
+
+	private static final ConcurrentHashMap<Integer, AssemblageColumns> assemblages = new ConcurrentHashMap<>();
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	NumericColumnIndex()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Numeric column index starting");
+		assemblages.clear();
+		Get.commitService().addChangeListener(this);
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Numeric column index stopping");
+		Get.commitService().removeChangeListener(this);
+		assemblages.clear();
+	}
+
+	/**
+	 * @param assemblageNids the assemblages a query is restricted to
+	 * @return true, if the query can be answered by the index - which requires the query to be restricted to specific assemblages
+	 */
+	public static boolean canQuery(int[] assemblageNids)
+	{
+		return assemblageNids != null && assemblageNids.length > 0;
+	}
+
+	/**
+	 * Find the semantics with a numeric value in a range.
+	 * @param assemblageNids the assemblages to search - see {@link #canQuery(int[])}
+	 * @param columns the (0 based) columns to search, or null, for all columns
+	 * @param low the low end of the range, or null, if unbounded
+	 * @param lowInclusive true, if the low value itself is in the range
+	 * @param high the high end of the range, or null, if unbounded
+	 * @param highInclusive true, if the high value itself is in the range
+	 * @param stamp the coordinate to read the semantics on
+	 * @param pageNum the page to return, 1 based
+	 * @param pageSize the size of a page
+	 * @return the page of matching semantic nids, ordered by value, all with a score of 1
+	 */
+	public static List<SearchResult> query(int[] assemblageNids, int[] columns, Number low, boolean lowInclusive, Number high, boolean highInclusive, 
+			StampCoordinate stamp, int pageNum, int pageSize)
+	{
+		ArrayList<Slice> slices = new ArrayList<>();
+		int candidateCount = 0;
+		for (int assemblageNid : assemblageNids)
+		{
+			for (Map.Entry<Integer, Column> column : getColumns(assemblageNid).entrySet())
+			{
+				if (columns == null || Arrays.stream(columns).anyMatch(c -> c == column.getKey().intValue()))
+				{
+					Slice slice = column.getValue().slice(column.getKey(), low, lowInclusive, high, highInclusive);
+					if (slice.end > slice.start)
+					{
+						slices.add(slice);
+						candidateCount += slice.end - slice.start;
+					}
+				}
+			}
+		}
+		if (candidateCount == 0)
+		{
+			return Collections.emptyList();
+		}
+
+		// Walk the candidates in value order (merging the sorted slices), verifying each against the coordinate, until the page is filled
+		int[] cursors = new int[slices.size()];
+		int skip = (pageNum - 1) * pageSize;
+		HashSet<Integer> seen = new HashSet<>();
+		ArrayList<SearchResult> results = new ArrayList<>(Math.min(pageSize, candidateCount));
+		while (results.size() < pageSize)
+		{
+			int next = -1;
+			for (int s = 0; s < slices.size(); s++)
+			{
+				Slice slice = slices.get(s);
+				if (slice.start + cursors[s] < slice.end && (next < 0 || slice.column.compare(slice.start + cursors[s], slices.get(next).column, 
+						slices.get(next).start + cursors[next]) < 0))
+				{
+					next = s;
+				}
+			}
+			if (next < 0)
+			{
+				break;
+			}
+			Slice slice = slices.get(next);
+			int semanticNid = slice.column.nids[slice.start + cursors[next]++];
+			if (!seen.contains(semanticNid) && isVisibleInRange(semanticNid, slice.columnNumber, low, lowInclusive, high, highInclusive, stamp))
+			{
+				seen.add(semanticNid);
+				if (skip > 0)
+				{
+					skip--;
+				}
+				else
+				{
+					results.add(new ComponentSearchResult(semanticNid, 1f));
+				}
+			}
+		}
+		return results;
+	}
+
+	private static boolean isVisibleInRange(int semanticNid, int column, Number low, boolean lowInclusive, Number high, boolean highInclusive, 
+			StampCoordinate stamp)
+	{
+		LatestVersion<Version> latest = Get.assemblageService().getSemanticChronology(semanticNid).getLatestVersion(stamp);
+		if (latest.isPresent() && latest.get() instanceof DynamicVersion)
+		{
+			DynamicData[] data = ((DynamicVersion<?>) latest.get()).getData();
+			if (data != null && column < data.length)
+			{
+				Number value = readValue(data[column]);
+				if (value == null)
+				{
+					return false;
+				}
+				if (low != null)
+				{
+					int c = compare(value, low);
+					if (lowInclusive ? c < 0 : c <= 0)
+					{
+						return false;
+					}
+				}
+				if (high != null)
+				{
+					int c = compare(value, high);
+					if (highInclusive ? c > 0 : c >= 0)
+					{
+						return false;
+					}
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the numeric value of the data - a Long for integer and long data, a Double for float and double data - or null, if it isn't 
+	 *     a numeric type
+	 */
+	private static Number readValue(DynamicData data)
+	{
+		if (data instanceof DynamicInteger)
+		{
+			return Long.valueOf(((DynamicInteger) data).getDataInteger());
+		}
+		if (data instanceof DynamicLong)
+		{
+			return Long.valueOf(((DynamicLong) data).getDataLong());
+		}
+		if (data instanceof DynamicFloat)
+		{
+			return Double.valueOf(((DynamicFloat) data).getDataFloat());
+		}
+		if (data instanceof DynamicDouble)
+		{
+			return Double.valueOf(((DynamicDouble) data).getDataDouble());
+		}
+		return null;
+	}
+
+	private static boolean isIntegral(Number n)
+	{
+		return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+	}
+
+	/**
+	 * Compare two numbers by their exact value - a long and a double are compared without rounding the long to a double.
+	 */
+	static int compare(Number a, Number b)
+	{
+		if (isIntegral(a))
+		{
+			return isIntegral(b) ? Long.compare(a.longValue(), b.longValue()) : compare(a.longValue(), b.doubleValue());
+		}
+		return isIntegral(b) ? -compare(b.longValue(), a.doubleValue()) : compare(a.doubleValue(), b.doubleValue());
+	}
+
+	static int compare(long a, double b)
+	{
+		if (Double.isNaN(b) || b >= 0x1p63)
+		{
+			return -1;
+		}
+		if (b < -0x1p63)
+		{
+			return 1;
+		}
+		long floor = (long) Math.floor(b);
+		if (a != floor)
+		{
+			return Long.compare(a, floor);
+		}
+		return floor == b ? 0 : -1;
+	}
+
+	static int compare(double a, double b)
+	{
+		// Unlike Double.compare, -0.0 and 0.0 are equal
+		return a == b ? 0 : Double.compare(a, b);
+	}
+
+	private static Map<Integer, Column> getColumns(int assemblageNid)
+	{
+		return assemblages.computeIfAbsent(assemblageNid, key -> new AssemblageColumns(key)).get();
+	}
+
+	/**
+	 * Add the numeric values of every version of a semantic to the column builders.
+	 */
+	private static void read(int semanticNid, Map<Integer, ColumnBuilder> builders)
+	{
+		for (Version v : Get.assemblageService().getSemanticChronology(semanticNid).getVersionList())
+		{
+			if (v instanceof DynamicVersion)
+			{
+				DynamicData[] data = ((DynamicVersion<?>) v).getData();
+				for (int col = 0; data != null && col < data.length; col++)
+				{
+					Number value = readValue(data[col]);
+					if (value != null)
+					{
+						builders.computeIfAbsent(col, key -> new ColumnBuilder()).add(value, semanticNid);
+					}
+				}
+			}
+		}
+	}
+
+	private static Map<Integer, Column> build(int assemblageNid)
+	{
+		long start = System.currentTimeMillis();
+		HashMap<Integer, ColumnBuilder> builders = new HashMap<>();
+		Get.assemblageService().getSemanticNidsFromAssemblage(assemblageNid).stream().forEach(semanticNid -> read(semanticNid, builders));
+
+		HashMap<Integer, Column> result = new HashMap<>(builders.size());
+		builders.forEach((col, builder) -> result.put(col, builder.build()));
+		log.debug("Built the numeric column index for {} with {} columns in {}ms", assemblageNid, result.size(), System.currentTimeMillis() - start);
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * @param columns the current columns
+	 * @param changed the nids of the semantics that changed, sorted
+	 * @return new columns, with the values of the changed semantics replaced by their current values
+	 */
+	private static Map<Integer, Column> update(Map<Integer, Column> columns, int[] changed)
+	{
+		HashMap<Integer, ColumnBuilder> builders = new HashMap<>();
+		for (int semanticNid : changed)
+		{
+			read(semanticNid, builders);
+		}
+
+		HashSet<Integer> columnNumbers = new HashSet<>(columns.keySet());
+		columnNumbers.addAll(builders.keySet());
+		HashMap<Integer, Column> result = new HashMap<>(columnNumbers.size());
+		for (Integer col : columnNumbers)
+		{
+			Column kept = columns.containsKey(col) ? columns.get(col).without(changed) : null;
+			Column added = builders.containsKey(col) ? builders.get(col).build() : null;
+			Column merged = kept == null ? added : (added == null ? kept : Column.merge(kept, added));
+			if (merged.size() > 0)
+			{
+				result.put(col, merged);
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		// noop
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		// Applied by the next query of the assemblage.  An assemblage that hasn't been queried yet reads the current values when it is built.
+		AssemblageColumns columns = assemblages.get(sc.getAssemblageNid());
+		if (columns != null)
+		{
+			columns.changed.add(sc.getNid());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		// noop - changes are applied as they are seen, whether or not they are committed
+	}
+
+	/**
+	 * The columns of one assemblage, with the semantics that have changed since the columns were read.
+	 */
+	private static class AssemblageColumns
+	{
+		private final int assemblageNid;
+		private final AtomicBoolean buildStarted = new AtomicBoolean(false);
+		private final CompletableFuture<Void> built = new CompletableFuture<>();
+		private final Set<Integer> changed = ConcurrentHashMap.newKeySet();
+		private volatile Map<Integer, Column> columns;
+
+		private AssemblageColumns(int assemblageNid)
+		{
+			this.assemblageNid = assemblageNid;
+		}
+
+		private Map<Integer, Column> get()
+		{
+			if (buildStarted.compareAndSet(false, true))
+			{
+				try
+				{
+					columns = build(assemblageNid);
+					built.complete(null);
+				}
+				catch (RuntimeException e)
+				{
+					// Let the next query try again
+					assemblages.remove(assemblageNid, this);
+					built.completeExceptionally(e);
+					throw e;
+				}
+			}
+			built.join();
+			if (!changed.isEmpty())
+			{
+				applyChanges();
+			}
+			return columns;
+		}
+
+		private synchronized void applyChanges()
+		{
+			if (changed.isEmpty())
+			{
+				return;
+			}
+			// Take each nid out of the set before it is read, so that a change made while this reads is applied by the next query.
+			ArrayList<Integer> nids = new ArrayList<>(changed.size());
+			Iterator<Integer> it = changed.iterator();
+			while (it.hasNext())
+			{
+				nids.add(it.next());
+				it.remove();
+			}
+			int[] sorted = nids.stream().mapToInt(i -> i).sorted().toArray();
+			long start = System.currentTimeMillis();
+			columns = update(columns, sorted);
+			log.debug("Updated the numeric column index for {} with {} changed semantics in {}ms", assemblageNid, sorted.length, 
+					System.currentTimeMillis() - start);
+		}
+	}
+
+	static class ColumnBuilder
+	{
+		private long[] longs = new long[16];
+		private double[] doubles = new double[16];
+		private boolean floating = false;
+		private int[] nids = new int[16];
+		private int size = 0;
+
+		/**
+		 * @param value a Long or Double, as returned by {@link NumericColumnIndex#readValue(DynamicData)}
+		 * @param nid the semantic with the value
+		 */
+		void add(Number value, int nid)
+		{
+			boolean integral = isIntegral(value);
+			// Skip repeats of a value across versions of the same semantic
+			for (int i = size - 1; i >= 0 && nids[i] == nid; i--)
+			{
+				if (integral ? (!floating && longs[i] == value.longValue()) : doubles[i] == value.doubleValue())
+				{
+					return;
+				}
+			}
+			if (size == nids.length)
+			{
+				longs = Arrays.copyOf(longs, size * 2);
+				doubles = Arrays.copyOf(doubles, size * 2);
+				nids = Arrays.copyOf(nids, size * 2);
+			}
+			longs[size] = value.longValue();
+			doubles[size] = value.doubleValue();
+			floating |= !integral;
+			nids[size] = nid;
+			size++;
+		}
+
+		/**
+		 * @return the column, sorted by value.  A column of only integer and long values is held as longs, any other column as doubles.
+		 */
+		Column build()
+		{
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++)
+			{
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> floating ? compare(doubles[a], doubles[b]) : Long.compare(longs[a], longs[b]));
+			int[] sortedNids = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				sortedNids[i] = nids[order[i]];
+			}
+			if (floating)
+			{
+				double[] sortedValues = new double[size];
+				for (int i = 0; i < size; i++)
+				{
+					sortedValues[i] = doubles[order[i]];
+				}
+				return new Column(null, sortedValues, sortedNids);
+			}
+			long[] sortedValues = new long[size];
+			for (int i = 0; i < size; i++)
+			{
+				sortedValues[i] = longs[order[i]];
+			}
+			return new Column(sortedValues, null, sortedNids);
+		}
+	}
+
+	static class Column
+	{
+		// Exactly one of longs and doubles is set
+		private final long[] longs;
+		private final double[] doubles;
+		private final int[] nids;
+
+		Column(long[] longs, double[] doubles, int[] nids)
+		{
+			this.longs = longs;
+			this.doubles = doubles;
+			this.nids = nids;
+		}
+
+		int size()
+		{
+			return nids.length;
+		}
+
+		/**
+		 * @return the value at the index compared to the number
+		 */
+		int compare(int index, Number value)
+		{
+			if (longs != null)
+			{
+				return isIntegral(value) ? Long.compare(longs[index], value.longValue()) : NumericColumnIndex.compare(longs[index], value.doubleValue());
+			}
+			return isIntegral(value) ? -NumericColumnIndex.compare(value.longValue(), doubles[index]) 
+					: NumericColumnIndex.compare(doubles[index], value.doubleValue());
+		}
+
+		/**
+		 * @return the value at the index compared to the value at the other index of the other column
+		 */
+		int compare(int index, Column other, int otherIndex)
+		{
+			if (longs != null)
+			{
+				return other.longs != null ? Long.compare(longs[index], other.longs[otherIndex]) : NumericColumnIndex.compare(longs[index], 
+						other.doubles[otherIndex]);
+			}
+			return other.doubles != null ? NumericColumnIndex.compare(doubles[index], other.doubles[otherIndex]) 
+					: -NumericColumnIndex.compare(other.longs[otherIndex], doubles[index]);
+		}
+
+		/**
+		 * @param low the low end of the range, or null, if unbounded
+		 * @param high the high end of the range, or null, if unbounded
+		 * @return the slice of the column in the range
+		 */
+		Slice slice(int columnNumber, Number low, boolean lowInclusive, Number high, boolean highInclusive)
+		{
+			int start = low == null ? 0 : (lowInclusive ? firstAtLeast(low) : firstAbove(low));
+			int end = high == null ? size() : (highInclusive ? firstAbove(high) : firstAtLeast(high));
+			return new Slice(this, columnNumber, start, Math.max(start, end));
+		}
+
+		/**
+		 * @return the index of the first value >= the value, or the length, if none
+		 */
+		int firstAtLeast(Number value)
+		{
+			int low = 0;
+			int high = size();
+			while (low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if (compare(mid, value) < 0)
+				{
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @return the index of the first value > the value, or the length, if none
+		 */
+		int firstAbove(Number value)
+		{
+			int low = 0;
+			int high = size();
+			while (low < high)
+			{
+				int mid = (low + high) >>> 1;
+				if (compare(mid, value) <= 0)
+				{
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @param sortedNids the nids to remove
+		 * @return this column, without the values of the nids
+		 */
+		Column without(int[] sortedNids)
+		{
+			int[] keep = new int[size()];
+			int kept = 0;
+			for (int i = 0; i < size(); i++)
+			{
+				if (Arrays.binarySearch(sortedNids, nids[i]) < 0)
+				{
+					keep[kept++] = i;
+				}
+			}
+			if (kept == size())
+			{
+				return this;
+			}
+			int[] keptNids = new int[kept];
+			long[] keptLongs = longs == null ? null : new long[kept];
+			double[] keptDoubles = doubles == null ? null : new double[kept];
+			for (int i = 0; i < kept; i++)
+			{
+				keptNids[i] = nids[keep[i]];
+				if (longs != null)
+				{
+					keptLongs[i] = longs[keep[i]];
+				}
+				else
+				{
+					keptDoubles[i] = doubles[keep[i]];
+				}
+			}
+			return new Column(keptLongs, keptDoubles, keptNids);
+		}
+
+		/**
+		 * @return the two sorted columns merged into one sorted column - held as longs, if both columns are
+		 */
+		static Column merge(Column a, Column b)
+		{
+			int size = a.size() + b.size();
+			boolean asLongs = a.longs != null && b.longs != null;
+			long[] longs = asLongs ? new long[size] : null;
+			double[] doubles = asLongs ? null : new double[size];
+			int[] nids = new int[size];
+			int i = 0;
+			int j = 0;
+			for (int k = 0; k < size; k++)
+			{
+				Column from;
+				int index;
+				if (j == b.size() || (i < a.size() && a.compare(i, b, j) <= 0))
+				{
+					from = a;
+					index = i++;
+				}
+				else
+				{
+					from = b;
+					index = j++;
+				}
+				nids[k] = from.nids[index];
+				if (asLongs)
+				{
+					longs[k] = from.longs[index];
+				}
+				else
+				{
+					doubles[k] = from.longs != null ? from.longs[index] : from.doubles[index];
+				}
+			}
+			return new Column(longs, doubles, nids);
+		}
+	}
+
+	static class Slice
+	{
+		final Column column;
+		final int columnNumber;
+		final int start;
+		final int end;
+
+		private Slice(Column column, int columnNumber, int start, int end)
+		{
+			this.column = column;
+			this.columnNumber = columnNumber;
+			this.start = start;
+			this.end = end;
+		}
+	}
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link StripedCache}
+ * 
+ * A bounded, thread safe cache, intended to replace the pattern of a synchronized, access-ordered {@link java.util.LinkedHashMap}
+ * that we had scattered about the code.
+ * 
+ * The keyspace is split into a power-of-two number of stripes, each of which is a {@link ConcurrentHashMap} with its own share of the
+ * total capacity. Reads never take a lock - they just stamp the entry with an access time. Writes only lock the stripe they land in, and
+ * only when that stripe has gone over capacity, at which point the least recently accessed entry(s) of the stripe are evicted. The LRU
+ * behavior is therefore per-stripe, rather than global, which is plenty good for the small, hot caches we use this for.
+ * 
+ * Hit, miss and eviction counts are tracked, and every cache constructed registers itself, so the counters can be reported via
+ * {@link #getAllCaches()}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class StripedCache<K, V>
+{
+	private static final List<StripedCache<?, ?>> ALL_CACHES = new CopyOnWriteArrayList<>();
+
+	private final String name_;
+	private final int maxEntries_;
+	private final Stripe<K, V>[] stripes_;
+	private final int stripeMask_;
+
+	private final LongAdder hits_ = new LongAdder();
+	private final LongAdder misses_ = new LongAdder();
+	private final LongAdder evictions_ = new LongAdder();
+
+	private static class Node<V>
+	{
+		private final V value;
+		private volatile long lastAccess;
+
+		private Node(V value)
+		{
+			this.value = value;
+			this.lastAccess = System.nanoTime();
+		}
+	}
+
+	private static class Stripe<K, V>
+	{
+		private final ConcurrentHashMap<K, Node<V>> map;
+		private final int capacity;
+
+		private Stripe(int capacity)
+		{
+			this.capacity = capacity;
+			this.map = new ConcurrentHashMap<>(Math.min(capacity, 64));
+		}
+	}
+
+	/**
+	 * @param name - a name for this cache, used in statistics reporting
+	 * @param maxEntries - the maximum number of entries to hold, across all stripes. Must be at least 1.
+	 */
+	@SuppressWarnings("unchecked")
+	public StripedCache(String name, int maxEntries)
+	{
+		if (maxEntries < 1)
+		{
+			throw new IllegalArgumentException("maxEntries must be at least 1");
+		}
+		name_ = name;
+		maxEntries_ = maxEntries;
+
+		// Aim for a few stripes per core, but never let a stripe get too small to be a useful LRU
+		int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+		while (stripeCount > 1 && (maxEntries / stripeCount) < 16)
+		{
+			stripeCount = stripeCount >>> 1;
+		}
+
+		stripes_ = new Stripe[stripeCount];
+		int perStripe = maxEntries / stripeCount;
+		int remainder = maxEntries % stripeCount;
+		for (int i = 0; i < stripeCount; i++)
+		{
+			stripes_[i] = new Stripe<>(perStripe + (i < remainder ? 1 : 0));
+		}
+		stripeMask_ = stripeCount - 1;
+		ALL_CACHES.add(this);
+	}
+
+	private Stripe<K, V> stripeFor(Object key)
+	{
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return stripes_[h & stripeMask_];
+	}
+
+	/**
+	 * @param key the key to look up
+	 * @return the cached value, or null, if not present
+	 */
+	public V get(K key)
+	{
+		Node<V> node = stripeFor(key).map.get(key);
+		if (node == null)
+		{
+			misses_.increment();
+			return null;
+		}
+		node.lastAccess = System.nanoTime();
+		hits_.increment();
+		return node.value;
+	}
+
+	/**
+	 * Store a value, replacing any existing value for the key.
+	 * 
+	 * @param key the key
+	 * @param value the value - may not be null
+	 */
+	public void put(K key, V value)
+	{
+		Stripe<K, V> stripe = stripeFor(key);
+		if (stripe.map.put(key, new Node<>(value)) == null)
+		{
+			evictIfNecessary(stripe);
+		}
+	}
+
+	/**
+	 * Store a value, only if there isn't already a value for the key.
+	 * 
+	 * @param key the key
+	 * @param value the value - may not be null
+	 * @return the value that is cached for the key, after this call - either the pre-existing value, or the passed value.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		Stripe<K, V> stripe = stripeFor(key);
+		Node<V> existing = stripe.map.putIfAbsent(key, new Node<>(value));
+		if (existing == null)
+		{
+			evictIfNecessary(stripe);
+			return value;
+		}
+		existing.lastAccess = System.nanoTime();
+		return existing.value;
+	}
+
+	/**
+	 * Return the cached value, or calculate, cache and return the value with the passed function. Unlike
+	 * {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}, the function is executed without holding any lock, so it is safe
+	 * for the function to recursively use this cache - at the cost of the function possibly being executed more than once for a key,
+	 * if multiple threads race on it. The first value stored wins.
+	 * 
+	 * @param key the key
+	 * @param loader the function to calculate the value, if it isn't cached. If this returns null, nothing is cached, and null is returned.
+	 * @return the value
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> loader)
+	{
+		V value = get(key);
+		if (value == null)
+		{
+			value = loader.apply(key);
+			if (value != null)
+			{
+				value = putIfAbsent(key, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @param key the key to remove
+	 */
+	public void remove(K key)
+	{
+		stripeFor(key).map.remove(key);
+	}
+
+	/**
+	 * Remove all entries. Statistics are not reset.
+	 */
+	public void clear()
+	{
+		for (Stripe<K, V> stripe : stripes_)
+		{
+			stripe.map.clear();
+		}
+	}
+
+	private void evictIfNecessary(Stripe<K, V> stripe)
+	{
+		if (stripe.map.size() <= stripe.capacity)
+		{
+			return;
+		}
+		synchronized (stripe)
+		{
+			while (stripe.map.size() > stripe.capacity)
+			{
+				Map.Entry<K, Node<V>> eldest = null;
+				for (Map.Entry<K, Node<V>> entry : stripe.map.entrySet())
+				{
+					if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess)
+					{
+						eldest = entry;
+					}
+				}
+				if (eldest == null)
+				{
+					break;
+				}
+				if (stripe.map.remove(eldest.getKey(), eldest.getValue()))
+				{
+					evictions_.increment();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the name of this cache
+	 */
+	public String getName()
+	{
+		return name_;
+	}
+
+	/**
+	 * @return the current number of entries in the cache
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Stripe<K, V> stripe : stripes_)
+		{
+			size += stripe.map.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the maximum number of entries this cache will hold
+	 */
+	public int getMaxSize()
+	{
+		return maxEntries_;
+	}
+
+	/**
+	 * @return the number of stripes the keyspace is split into
+	 */
+	public int getStripeCount()
+	{
+		return stripes_.length;
+	}
+
+	/**
+	 * @return the number of {@link #get(Object)} calls that found a value
+	 */
+	public long getHitCount()
+	{
+		return hits_.sum();
+	}
+
+	/**
+	 * @return the number of {@link #get(Object)} calls that did not find a value
+	 */
+	public long getMissCount()
+	{
+		return misses_.sum();
+	}
+
+	/**
+	 * @return the number of entries that were removed to keep the cache within its bounds
+	 */
+	public long getEvictionCount()
+	{
+		return evictions_.sum();
+	}
+
+	/**
+	 * @return every cache that has been constructed, in construction order
+	 */
+	public static List<StripedCache<?, ?>> getAllCaches()
+	{
+		return Collections.unmodifiableList(new ArrayList<>(ALL_CACHES));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return "StripedCache [name=" + name_ + ", size=" + size() + ", maxSize=" + maxEntries_ + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + "]";
+	}
+}
@@ -0,0 +1,689 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.glassfish.hk2.runlevel.RunLevel;
+import org.jvnet.hk2.annotations.Service;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.chronicle.LatestVersion;
+import sh.isaac.api.chronicle.Version;
+import sh.isaac.api.chronicle.VersionType;
+import sh.isaac.api.commit.ChronologyChangeListener;
+import sh.isaac.api.commit.CommitRecord;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.DescriptionVersion;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.api.index.ComponentSearchResult;
+import sh.isaac.api.index.SearchResult;
+
+/**
+ * 
+ * {@link TypeaheadIndex}
+ * 
+ * An in-memory index from the (lower cased) words of description text to the descriptions that contain them, held in a sorted map, so that
+ * a prefix of a word can be resolved with a range read, rather than a query through the lucene index.  This serves the typeahead search, 
+ * which is called on each keystroke.  
+ * 
+ * The descriptions of each word are held as a sorted long[] of rank keys - the length of the shortest text of the description in the 
+ * high 32 bits, and the description nid in the low 32 bits.  As the score of a match falls with the length of the description, reading 
+ * the keys in order reads the candidates from the best possible score down, so a search can stop as soon as it holds enough concepts 
+ * that no later candidate can beat.  The key of a description is the same in every word, so the words of a query can still be intersected, 
+ * and the words under a prefix merged, without sorting or boxing at query time.
+ * 
+ * The index is built in the background, in parallel, at startup, and then maintained from the change listener, which buffers the keys 
+ * of the changed descriptions per word, and merges the buffer of each word into its array in one copy, on commit (or at the next search, 
+ * for changes that haven't been committed), so that a bulk load doesn't copy the array of a common word once per description.  The index covers the text of every version of each description, on every path, so it may return descriptions 
+ * whose latest version on a coordinate no longer has the text - those are filtered out by {@link #search(String, int, StampCoordinate)}, which also scopes the results to the path and modules 
+ * of the coordinate.  A change that shortens a description adds a new key for it, and leaves the old key in place, which only costs 
+ * a repeated candidate.  Callers should use the lucene index until {@link #isReady()}.
+ */
+@RunLevel(LookupService.SL_L6_ISAAC_DEPENDENTS_RUNLEVEL)
+@Service
+public class TypeaheadIndex implements ChronologyChangeListener
+{
+	private static Logger log = LogManager.getLogger(TypeaheadIndex.class);
+
+	private static final ConcurrentSkipListMap<String, long[]> wordIndex = new ConcurrentSkipListMap<>();
+	private static final ConcurrentHashMap<String, LongBuffer> pending = new ConcurrentHashMap<>();
+	private static volatile boolean ready = false;
+
+	private final UUID listenerUuid = UUID.randomUUID();
+
+	TypeaheadIndex()
+	{
+		// For HK2
+	}
+
+	@PostConstruct
+	private void startup()
+	{
+		log.info("Typeahead index starting");
+		ready = false;
+		wordIndex.clear();
+		pending.clear();
+		// Listen first, so that nothing committed during the build is missed.
+		Get.commitService().addChangeListener(this);
+		Get.workExecutors().getExecutor().execute(() -> build());
+	}
+
+	@PreDestroy
+	private void shutdown()
+	{
+		log.info("Typeahead index stopping");
+		Get.commitService().removeChangeListener(this);
+		ready = false;
+		wordIndex.clear();
+		pending.clear();
+	}
+
+	private void build()
+	{
+		try
+		{
+			long start = System.currentTimeMillis();
+			ConcurrentHashMap<String, LongBuffer> building = new ConcurrentHashMap<>();
+			Get.assemblageService().getSemanticChronologyStream().parallel().filter(sc -> sc.getVersionType() == VersionType.DESCRIPTION)
+					.forEach(sc -> 
+					{
+						long key = rankKey(sc);
+						for (String word : words(sc))
+						{
+							building.computeIfAbsent(word, w -> new LongBuffer()).add(key);
+						}
+					});
+			// Union with anything the change listener has already put in the index, while this was building.
+			building.forEach((word, keys) -> wordIndex.merge(word, keys.toSortedSet(), TypeaheadIndex::union));
+			ready = true;
+			log.info("Typeahead index built with {} words in {}ms", wordIndex.size(), System.currentTimeMillis() - start);
+		}
+		catch (Exception e)
+		{
+			log.error("Failed to build the typeahead index, typeahead searches will use the lucene index", e);
+		}
+	}
+
+	/**
+	 * @return the distinct words of every version of the description
+	 */
+	private static List<String> words(SemanticChronology sc)
+	{
+		ArrayList<String> words = new ArrayList<>();
+		for (Version v : sc.getVersionList())
+		{
+			if (v instanceof DescriptionVersion)
+			{
+				for (String word : tokenize(((DescriptionVersion) v).getText()))
+				{
+					if (!words.contains(word))
+					{
+						words.add(word);
+					}
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * @return the key that orders the description in the index - the length of its shortest text (of any version), then its nid
+	 */
+	private static long rankKey(SemanticChronology sc)
+	{
+		int length = Integer.MAX_VALUE;
+		for (Version v : sc.getVersionList())
+		{
+			if (v instanceof DescriptionVersion && ((DescriptionVersion) v).getText() != null)
+			{
+				length = Math.min(length, ((DescriptionVersion) v).getText().length());
+			}
+		}
+		return ((long) length << 32) | (sc.getNid() & 0xFFFFFFFFL);
+	}
+
+	private static int nid(long rankKey)
+	{
+		return (int) rankKey;
+	}
+
+	/**
+	 * @return the best score that any version of the description of the key can have, for a query of the given length
+	 */
+	private static float bestScore(float queryLength, long rankKey)
+	{
+		return score(queryLength, (int) (rankKey >>> 32));
+	}
+
+	private static float score(float queryLength, int textLength)
+	{
+		return Math.min(1f, queryLength / textLength);
+	}
+
+	private static void index(SemanticChronology sc)
+	{
+		long key = rankKey(sc);
+		for (String word : words(sc))
+		{
+			// compute, rather than computeIfAbsent, so that a buffer can't be added to after flush() has removed it
+			pending.compute(word, (w, keys) -> 
+			{
+				LongBuffer buffer = keys == null ? new LongBuffer() : keys;
+				buffer.add(key);
+				return buffer;
+			});
+		}
+	}
+
+	/**
+	 * Merge the buffered changes into the index, with one merge per changed word.
+	 */
+	private static void flush()
+	{
+		for (String word : pending.keySet())
+		{
+			LongBuffer keys = pending.remove(word);
+			if (keys != null)
+			{
+				wordIndex.merge(word, keys.toSortedSet(), TypeaheadIndex::union);
+			}
+		}
+	}
+
+	/**
+	 * @return the sorted union of two sorted arrays without duplicates.  Returns the first array, without copying, if it already holds 
+	 *     every key of the second.
+	 */
+	private static long[] union(long[] a, long[] b)
+	{
+		int missing = 0;
+		for (long key : b)
+		{
+			if (Arrays.binarySearch(a, key) < 0)
+			{
+				missing++;
+			}
+		}
+		if (missing == 0)
+		{
+			return a;
+		}
+		long[] result = new long[a.length + missing];
+		int i = 0, j = 0, size = 0;
+		while (i < a.length || j < b.length)
+		{
+			if (j == b.length || (i < a.length && a[i] < b[j]))
+			{
+				result[size++] = a[i++];
+			}
+			else if (i == a.length || b[j] < a[i])
+			{
+				result[size++] = b[j++];
+			}
+			else
+			{
+				result[size++] = a[i++];
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Split text into lower case words, on any character that isn't a letter or a digit.
+	 * @param text the text to split
+	 * @return the words, in the order they occur.
+	 */
+	public static List<String> tokenize(String text)
+	{
+		ArrayList<String> words = new ArrayList<>();
+		if (text == null)
+		{
+			return words;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++)
+		{
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0)
+			{
+				start = i;
+			}
+			else if (!wordChar && start >= 0)
+			{
+				words.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * @return true, once the initial build of the index is complete
+	 */
+	public static boolean isReady()
+	{
+		return ready;
+	}
+
+	/**
+	 * A bare prefix - a single word, not followed by whitespace - matches every word that it starts, so a short one selects a large part 
+	 * of the index, which is better left to lucene.
+	 * 
+	 * @param query the query text
+	 * @param minLength the shortest bare prefix that should be answered from this index
+	 * @return true if the query is a bare prefix of fewer than minLength characters
+	 */
+	public static boolean isShortPrefix(String query, int minLength)
+	{
+		List<String> words = tokenize(query);
+		return words.size() == 1 && !Character.isWhitespace(query.charAt(query.length() - 1)) && words.get(0).length() < minLength;
+	}
+
+	/**
+	 * Find the descriptions that contain every word of the query.  Following the rules of the prefix search, the last word of the query 
+	 * is only required as a prefix, unless the query ends with whitespace.
+	 * 
+	 * Matches are ranked by the length of the query relative to the length of the description, so the closest matches come first, 
+	 * keeping only the best {@code limit} concepts as it goes.  Candidates are read shortest first, so the search stops once no 
+	 * remaining candidate can beat the concepts it holds.  Only the best description is returned per concept.
+	 * 
+	 * @param query the query text
+	 * @param limit the max number of results (concepts) to return
+	 * @param stamp the coordinate to read the descriptions on
+	 * @return the matching descriptions, best first, with a score between 0 and 1.
+	 */
+	public static List<SearchResult> search(String query, int limit, StampCoordinate stamp)
+	{
+		if (!pending.isEmpty())
+		{
+			flush();
+		}
+		List<String> words = tokenize(query);
+		if (words.isEmpty() || limit < 1)
+		{
+			return Collections.emptyList();
+		}
+
+		String prefix = Character.isWhitespace(query.charAt(query.length() - 1)) ? null : words.remove(words.size() - 1);
+
+		long[][] postings = new long[words.size()][];
+		for (int i = 0; i < words.size(); i++)
+		{
+			postings[i] = wordIndex.get(words.get(i));
+			if (postings[i] == null)
+			{
+				return Collections.emptyList();
+			}
+		}
+
+		RankedKeys candidates = postings.length == 0 ? new PrefixKeys(wordIndex.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values())
+				: new IntersectedKeys(postings);
+		TopConcepts top = new TopConcepts(limit);
+		float queryLength = query.trim().length();
+		for (long key = candidates.next(); key >= 0; key = candidates.next())
+		{
+			if (top.isFull() && top.worstScore() > bestScore(queryLength, key))
+			{
+				// Every remaining candidate is at least as long as this one
+				break;
+			}
+			SemanticChronology sc = Get.assemblageService().getSemanticChronology(nid(key));
+			LatestVersion<DescriptionVersion> latest = sc.getLatestVersion(stamp);
+			if (latest.isPresent())
+			{
+				String text = latest.get().getText();
+				if (matches(tokenize(text), words, prefix))
+				{
+					top.offer(new Match(sc.getNid(), sc.getReferencedComponentNid(), score(queryLength, text.length())));
+				}
+			}
+		}
+		return top.results();
+	}
+
+	private static boolean matches(List<String> textWords, List<String> words, String prefix)
+	{
+		if (!textWords.containsAll(words))
+		{
+			return false;
+		}
+		if (prefix == null)
+		{
+			return true;
+		}
+		for (String textWord : textWords)
+		{
+			if (textWord.startsWith(prefix))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UUID getListenerUuid()
+	{
+		return listenerUuid;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(ConceptChronology cc)
+	{
+		// noop
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleChange(SemanticChronology sc)
+	{
+		try
+		{
+			if (sc.getVersionType() == VersionType.DESCRIPTION)
+			{
+				index(sc);
+			}
+		}
+		catch (Exception e)
+		{
+			log.error("Unexpected error updating the typeahead index for " + sc.getNid(), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void handleCommit(CommitRecord commitRecord)
+	{
+		flush();
+	}
+
+	/**
+	 * A source of rank keys, in ascending order.
+	 */
+	private interface RankedKeys
+	{
+		/**
+		 * @return the next key, or -1 when there are no more
+		 */
+		long next();
+	}
+
+	/**
+	 * The keys that are in every one of the sorted arrays, read lazily from the shortest array, so that a search which stops early 
+	 * doesn't pay for the whole intersection.
+	 */
+	private static class IntersectedKeys implements RankedKeys
+	{
+		private final long[][] postings;
+		private final int[] from;
+		private int next = 0;
+
+		private IntersectedKeys(long[][] postings)
+		{
+			this.postings = postings.clone();
+			Arrays.sort(this.postings, Comparator.comparingInt(keys -> keys.length));
+			this.from = new int[postings.length];
+		}
+
+		@Override
+		public long next()
+		{
+			long[] driver = postings[0];
+			candidate: while (next < driver.length)
+			{
+				long key = driver[next++];
+				for (int i = 1; i < postings.length; i++)
+				{
+					int found = Arrays.binarySearch(postings[i], from[i], postings[i].length, key);
+					if (found < 0)
+					{
+						from[i] = -found - 1;
+						if (from[i] == postings[i].length)
+						{
+							next = driver.length;
+						}
+						continue candidate;
+					}
+					from[i] = found + 1;
+				}
+				return key;
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * The keys of every word under a prefix, merged lazily from the sorted array of each word, without duplicates.
+	 */
+	private static class PrefixKeys implements RankedKeys
+	{
+		private final PriorityQueue<Cursor> cursors;
+		private long last = -1;
+
+		private PrefixKeys(Collection<long[]> postings)
+		{
+			cursors = new PriorityQueue<>(Math.max(1, postings.size()), Comparator.comparingLong(Cursor::key));
+			for (long[] keys : postings)
+			{
+				cursors.add(new Cursor(keys));
+			}
+		}
+
+		@Override
+		public long next()
+		{
+			while (!cursors.isEmpty())
+			{
+				Cursor cursor = cursors.poll();
+				long key = cursor.key();
+				if (++cursor.position < cursor.keys.length)
+				{
+					cursors.add(cursor);
+				}
+				if (key != last)
+				{
+					last = key;
+					return key;
+				}
+			}
+			return -1;
+		}
+
+		private static class Cursor
+		{
+			private final long[] keys;
+			private int position = 0;
+
+			private Cursor(long[] keys)
+			{
+				this.keys = keys;
+			}
+
+			private long key()
+			{
+				return keys[position];
+			}
+		}
+	}
+
+	private static class Match
+	{
+		private final int descriptionNid;
+		private final int conceptNid;
+		private final float score;
+
+		private Match(int descriptionNid, int conceptNid, float score)
+		{
+			this.descriptionNid = descriptionNid;
+			this.conceptNid = conceptNid;
+			this.score = score;
+		}
+
+		/**
+		 * @return true if this ranks ahead of the other match - a higher score, then the lower description nid
+		 */
+		private boolean beats(Match other)
+		{
+			return score == other.score ? descriptionNid < other.descriptionNid : score > other.score;
+		}
+	}
+
+	/**
+	 * The best match of each of the best {@code limit} concepts, held in a heap with the worst of them on top, so that a match which 
+	 * can't make the results is dropped with one comparison.
+	 */
+	private static class TopConcepts
+	{
+		private final int limit;
+		private final PriorityQueue<Match> heap;
+		private final HashMap<Integer, Match> byConcept = new HashMap<>();
+
+		private TopConcepts(int limit)
+		{
+			this.limit = limit;
+			this.heap = new PriorityQueue<>(limit + 1, (a, b) -> a.beats(b) ? 1 : (b.beats(a) ? -1 : 0));
+		}
+
+		private boolean isFull()
+		{
+			return heap.size() == limit;
+		}
+
+		/**
+		 * @return the score of the worst match held
+		 */
+		private float worstScore()
+		{
+			return heap.peek().score;
+		}
+
+		private void offer(Match match)
+		{
+			Match current = byConcept.get(match.conceptNid);
+			if (current != null)
+			{
+				if (match.beats(current))
+				{
+					heap.remove(current);
+					heap.add(match);
+					byConcept.put(match.conceptNid, match);
+				}
+			}
+			else if (heap.size() < limit || match.beats(heap.peek()))
+			{
+				if (heap.size() == limit)
+				{
+					byConcept.remove(heap.poll().conceptNid);
+				}
+				heap.add(match);
+				byConcept.put(match.conceptNid, match);
+			}
+		}
+
+		/**
+		 * @return the results, best first
+		 */
+		private List<SearchResult> results()
+		{
+			ArrayList<Match> matches = new ArrayList<>(heap);
+			matches.sort((a, b) -> a.beats(b) ? -1 : (b.beats(a) ? 1 : 0));
+			ArrayList<SearchResult> results = new ArrayList<>(matches.size());
+			for (Match match : matches)
+			{
+				results.add(new ComponentSearchResult(match.descriptionNid, match.score));
+			}
+			return results;
+		}
+	}
+
+	/**
+	 * A growable array of rank keys, for building the index.
+	 */
+	private static class LongBuffer
+	{
+		private long[] keys = new long[4];
+		private int size = 0;
+
+		private synchronized void add(long key)
+		{
+			if (size == keys.length)
+			{
+				keys = Arrays.copyOf(keys, size * 2);
+			}
+			keys[size++] = key;
+		}
+
+		/**
+		 * @return the keys, sorted, without duplicates
+		 */
+		private synchronized long[] toSortedSet()
+		{
+			long[] sorted = Arrays.copyOf(keys, size);
+			Arrays.sort(sorted);
+			int distinct = 0;
+			for (int i = 0; i < sorted.length; i++)
+			{
+				if (distinct == 0 || sorted[distinct - 1] != sorted[i])
+				{
+					sorted[distinct++] = sorted[i];
+				}
+			}
+			return distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+		}
+	}
+}
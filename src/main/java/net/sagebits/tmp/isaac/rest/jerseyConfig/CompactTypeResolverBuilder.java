@@ -0,0 +1,276 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.jerseyConfig;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.jsontype.impl.AsPropertyTypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.impl.AsPropertyTypeSerializer;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * {@link CompactTypeResolverBuilder}
+ * 
+ * The type handling of the compact JSON profile.  Objects are written without a type id when their class is the type declared 
+ * for them (the return type of the API, or the declared type of the field) - as the client already knows the type.  Subclasses of 
+ * the declared type are written with their simple class name as the type id, rather than the full class name - as long as the class is 
+ * one of the registered subtypes (XmlSeeAlso) of the declared type, so that the simple name can be read back.  Other classes are 
+ * written with their full class name.
+ * 
+ * Deserialization reads what the compact profile writes - a missing type id is read as the declared type, when that type is concrete, 
+ * and a simple class name is resolved against the registered subtypes of the declared type.  Full class names are still accepted.
+ */
+class CompactTypeResolverBuilder implements TypeResolverBuilder<CompactTypeResolverBuilder>
+{
+	private final TypeResolverBuilder<?> delegate;
+	private boolean typeIdVisible = false;
+
+	private CompactTypeResolverBuilder(TypeResolverBuilder<?> delegate)
+	{
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @param delegate the builder created from the type annotations, may be null
+	 * @return the compact builder, or null, if delegate was null
+	 */
+	static TypeResolverBuilder<?> wrap(TypeResolverBuilder<?> delegate)
+	{
+		return delegate == null ? null : new CompactTypeResolverBuilder(delegate);
+	}
+
+	@Override
+	public Class<?> getDefaultImpl()
+	{
+		return delegate.getDefaultImpl();
+	}
+
+	@Override
+	public TypeSerializer buildTypeSerializer(SerializationConfig config, JavaType baseType, Collection<NamedType> subtypes)
+	{
+		TypeSerializer ts = delegate.buildTypeSerializer(config, baseType, subtypes);
+		if (ts == null || ts.getClass() != AsPropertyTypeSerializer.class)
+		{
+			return ts;
+		}
+		return new StaticTypeOmittingSerializer(new SimpleNameIdResolver(baseType, config.getTypeFactory(), subtypes, null), null, 
+				ts.getPropertyName(), baseType.getRawClass());
+	}
+
+	@Override
+	public TypeDeserializer buildTypeDeserializer(DeserializationConfig config, JavaType baseType, Collection<NamedType> subtypes)
+	{
+		TypeDeserializer td = delegate.buildTypeDeserializer(config, baseType, subtypes);
+		if (td == null || td.getClass() != AsPropertyTypeDeserializer.class)
+		{
+			return td;
+		}
+		// The compact profile omits the id of a value of the declared type, so read a missing id as the declared type, when it can be built.
+		JavaType defaultImpl = td.getDefaultImpl() != null ? config.constructType(td.getDefaultImpl()) : (baseType.isConcrete() ? baseType : null);
+		return new AsPropertyTypeDeserializer(baseType, new SimpleNameIdResolver(baseType, config.getTypeFactory(), subtypes, 
+				td.getTypeIdResolver()), td.getPropertyName(), typeIdVisible, defaultImpl, td.getTypeInclusion());
+	}
+
+	@Override
+	public CompactTypeResolverBuilder init(JsonTypeInfo.Id idType, TypeIdResolver res)
+	{
+		delegate.init(idType, res);
+		return this;
+	}
+
+	@Override
+	public CompactTypeResolverBuilder inclusion(JsonTypeInfo.As includeAs)
+	{
+		delegate.inclusion(includeAs);
+		return this;
+	}
+
+	@Override
+	public CompactTypeResolverBuilder typeProperty(String propName)
+	{
+		delegate.typeProperty(propName);
+		return this;
+	}
+
+	@Override
+	public CompactTypeResolverBuilder defaultImpl(Class<?> defaultImpl)
+	{
+		delegate.defaultImpl(defaultImpl);
+		return this;
+	}
+
+	@Override
+	public CompactTypeResolverBuilder typeIdVisibility(boolean isVisible)
+	{
+		typeIdVisible = isVisible;
+		delegate.typeIdVisibility(isVisible);
+		return this;
+	}
+
+	/**
+	 * Writes the type id property only when the class of the value differs from the declared type.
+	 */
+	private static class StaticTypeOmittingSerializer extends AsPropertyTypeSerializer
+	{
+		private final Class<?> staticType;
+
+		StaticTypeOmittingSerializer(TypeIdResolver idRes, BeanProperty property, String propName, Class<?> staticType)
+		{
+			super(idRes, property, propName);
+			this.staticType = staticType;
+		}
+
+		@Override
+		public AsPropertyTypeSerializer forProperty(BeanProperty prop)
+		{
+			return (_property == prop) ? this : new StaticTypeOmittingSerializer(_idResolver, prop, _typePropertyName, staticType);
+		}
+
+		@Override
+		public WritableTypeId writeTypePrefix(JsonGenerator g, WritableTypeId idMetadata) throws IOException
+		{
+			if (idMetadata.forValue != null && idMetadata.forValue.getClass() == staticType)
+			{
+				// Open the value the same way the generator would, but without the id.  The generator closes it in writeTypeSuffix.
+				idMetadata.wrapperWritten = false;
+				if (idMetadata.valueShape == JsonToken.START_OBJECT)
+				{
+					g.writeStartObject(idMetadata.forValue);
+				}
+				else if (idMetadata.valueShape == JsonToken.START_ARRAY)
+				{
+					g.writeStartArray();
+				}
+				return idMetadata;
+			}
+			return super.writeTypePrefix(g, idMetadata);
+		}
+	}
+
+	/**
+	 * Uses the simple name of the class as the type id, for the declared type and its registered subtypes.  Any other class is written, 
+	 * and read, by its full class name.
+	 */
+	private static class SimpleNameIdResolver extends TypeIdResolverBase
+	{
+		private final HashMap<String, Class<?>> bySimpleName = new HashMap<>();
+		private final TypeIdResolver fullNames;
+
+		/**
+		 * @param baseType the declared type
+		 * @param typeFactory
+		 * @param subtypes the registered subtypes of the declared type, may be null
+		 * @param fullNames the resolver to read full class names with, null if this is only used for writing
+		 */
+		SimpleNameIdResolver(JavaType baseType, TypeFactory typeFactory, Collection<NamedType> subtypes, TypeIdResolver fullNames)
+		{
+			super(baseType, typeFactory);
+			this.fullNames = fullNames;
+			add(baseType.getRawClass());
+			if (subtypes != null)
+			{
+				for (NamedType subtype : subtypes)
+				{
+					add(subtype.getType());
+				}
+			}
+		}
+
+		private void add(Class<?> type)
+		{
+			// A simple name shared by two classes maps to neither, so both are written with their full name.
+			if (bySimpleName.containsKey(type.getSimpleName()) && bySimpleName.get(type.getSimpleName()) != type)
+			{
+				bySimpleName.put(type.getSimpleName(), null);
+			}
+			else
+			{
+				bySimpleName.put(type.getSimpleName(), type);
+			}
+		}
+
+		private String idFor(Class<?> type)
+		{
+			return bySimpleName.get(type.getSimpleName()) == type ? type.getSimpleName() : type.getName();
+		}
+
+		@Override
+		public String idFromValue(Object value)
+		{
+			return idFor(value.getClass());
+		}
+
+		@Override
+		public String idFromValueAndType(Object value, Class<?> suggestedType)
+		{
+			return idFor(suggestedType == null ? value.getClass() : suggestedType);
+		}
+
+		@Override
+		public JavaType typeFromId(DatabindContext context, String id) throws IOException
+		{
+			Class<?> type = bySimpleName.get(id);
+			if (type != null)
+			{
+				return context.constructSpecializedType(_baseType, type);
+			}
+			return fullNames == null ? null : fullNames.typeFromId(context, id);
+		}
+
+		@Override
+		public String getDescForKnownTypeIds()
+		{
+			return bySimpleName.keySet().toString();
+		}
+
+		@Override
+		public JsonTypeInfo.Id getMechanism()
+		{
+			return JsonTypeInfo.Id.CUSTOM;
+		}
+	}
+}
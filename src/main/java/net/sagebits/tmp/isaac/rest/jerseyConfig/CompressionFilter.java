@@ -0,0 +1,430 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.jerseyConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import net.sagebits.tmp.isaac.rest.cache.CommitWatcher;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
+import net.sagebits.uts.auth.rest.session.AuthRequestParameters;
+
+/**
+ * {@link CompressionFilter}
+ * 
+ * Compresses responses with gzip or deflate, as negotiated by the Accept-Encoding header of the request.  The compression is streamed - 
+ * the output of the writer (or of a StreamingOutput) is compressed as it is written, with each flush sending the data compressed so far.
+ * 
+ * Responses smaller than compression_min_size (from uts-rest-api.properties) are sent uncompressed, as compressing them costs more 
+ * than it saves.  Up to that many bytes are held back while the decision is made - so a streamed response that flushes before reaching 
+ * that size is delayed until it does.
+ * 
+ * For methods marked with {@link CacheCompressed}, the compressed bytes are cached by request and media type (regardless of size), and 
+ * sent directly for the same request, until the next commit.  The request is keyed by its path and its sorted parameters, without the 
+ * sso and edit tokens, which differ per user and session.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionFilter implements ContainerResponseFilter, WriterInterceptor
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String ENCODING_PROPERTY = CompressionFilter.class.getName() + ".encoding";
+	private static final String CACHE_KEY_PROPERTY = CompressionFilter.class.getName() + ".cacheKey";
+
+	private static final StripedCache<String, byte[]> COMPRESSED_CACHE = new StripedCache<>("Compressed responses", 256);
+
+	static
+	{
+		CommitWatcher.addChangeListener(() -> COMPRESSED_CACHE.clear());
+	}
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	/**
+	 * Choose the encoding for the response, and decide if it may be cached.  The response isn't written yet, so nothing is 
+	 * compressed here.
+	 */
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException
+	{
+		if (RestConfig.getInstance().getCompressionMinSize() < 0 || !responseContext.hasEntity() 
+				|| responseContext.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING))
+		{
+			return;
+		}
+
+		responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		String encoding = negotiate(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding != null)
+		{
+			requestContext.setProperty(ENCODING_PROPERTY, encoding);
+			if (responseContext.getStatus() == 200 && resourceInfo.getResourceMethod() != null 
+					&& resourceInfo.getResourceMethod().isAnnotationPresent(CacheCompressed.class))
+			{
+				requestContext.setProperty(CACHE_KEY_PROPERTY, cacheKey(encoding, requestContext, responseContext));
+			}
+		}
+	}
+
+	private static String cacheKey(String encoding, ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(encoding).append('\n');
+		key.append(responseContext.getMediaType()).append('\n');
+		key.append(requestContext.getUriInfo().getPath(true)).append('\n');
+
+		TreeMap<String, List<String>> sorted = new TreeMap<>(requestContext.getUriInfo().getQueryParameters());
+		sorted.remove(AuthRequestParameters.ssoToken);
+		sorted.remove(RequestParameters.editToken);
+		for (Map.Entry<String, List<String>> parameter : sorted.entrySet())
+		{
+			key.append(parameter.getKey()).append('=').append(parameter.getValue()).append('\n');
+		}
+		return key.toString();
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException
+	{
+		String encoding = (String) context.getProperty(ENCODING_PROPERTY);
+		if (encoding == null)
+		{
+			context.proceed();
+			return;
+		}
+
+		String cacheKey = (String) context.getProperty(CACHE_KEY_PROPERTY);
+		if (cacheKey != null)
+		{
+			byte[] cached = COMPRESSED_CACHE.get(cacheKey);
+			if (cached != null)
+			{
+				context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+				context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+				context.getOutputStream().write(cached);
+				return;
+			}
+		}
+
+		long changeSequence = CommitWatcher.getChangeSequence();
+		ByteArrayOutputStream capture = cacheKey == null ? null : new ByteArrayOutputStream();
+		OutputStream original = context.getOutputStream();
+		CompressingOutputStream compressing = new CompressingOutputStream(original, context.getHeaders(), encoding, 
+				cacheKey == null ? RestConfig.getInstance().getCompressionMinSize() : 0, capture);
+		context.setOutputStream(compressing);
+		boolean completed = false;
+		try
+		{
+			context.proceed();
+			compressing.finish();
+			completed = true;
+		}
+		finally
+		{
+			if (!completed)
+			{
+				// The response is incomplete - don't finish the compressed data, which would make it look complete, but do release the 
+				// native compressor.
+				compressing.abort();
+			}
+			context.setOutputStream(original);
+		}
+
+		if (capture != null && compressing.isCompressed() && changeSequence == CommitWatcher.getChangeSequence())
+		{
+			log.trace("Caching {} compressed bytes for {}", capture.size(), cacheKey);
+			COMPRESSED_CACHE.put(cacheKey, capture.toByteArray());
+		}
+	}
+
+	/**
+	 * @param acceptEncoding the Accept-Encoding header of the request
+	 * @return the supported encoding with the highest quality value (preferring gzip on a tie), or null, if none is acceptable.  A '*' 
+	 *     only applies to the encodings that aren't named - so "gzip;q=0, *" refuses gzip.
+	 */
+	static String negotiate(String acceptEncoding)
+	{
+		if (acceptEncoding == null)
+		{
+			return null;
+		}
+		float gzip = -1;
+		float deflate = -1;
+		float any = 0;
+		for (String part : acceptEncoding.split(","))
+		{
+			String[] tokens = part.split(";");
+			String name = tokens[0].trim().toLowerCase(Locale.ENGLISH);
+			float q = 1;
+			for (int i = 1; i < tokens.length; i++)
+			{
+				String param = tokens[i].trim();
+				if (param.startsWith("q="))
+				{
+					try
+					{
+						q = Float.parseFloat(param.substring(2).trim());
+					}
+					catch (NumberFormatException e)
+					{
+						q = 0;
+					}
+				}
+			}
+			if (name.equals(GZIP) || name.equals("x-gzip"))
+			{
+				gzip = Math.max(gzip, q);
+			}
+			else if (name.equals(DEFLATE))
+			{
+				deflate = Math.max(deflate, q);
+			}
+			else if (name.equals("*"))
+			{
+				any = Math.max(any, q);
+			}
+		}
+		// A coding that wasn't named (still -1) takes the quality of '*'
+		gzip = gzip < 0 ? any : gzip;
+		deflate = deflate < 0 ? any : deflate;
+		if (gzip > 0 && gzip >= deflate)
+		{
+			return GZIP;
+		}
+		return deflate > 0 ? DEFLATE : null;
+	}
+
+	/**
+	 * Holds back the first threshold bytes - if the response ends before that, they are written as is.  Otherwise, the Content-Encoding 
+	 * header is set (the response isn't committed until the first byte is written through), and the rest is compressed as it is written.
+	 */
+	private static class CompressingOutputStream extends OutputStream
+	{
+		private final OutputStream out;
+		private final MultivaluedMap<String, Object> headers;
+		private final String encoding;
+		private final ByteArrayOutputStream capture;
+		private byte[] buffer;
+		private int count = 0;
+		private DeflaterOutputStream compressor;
+		private Deflater deflater;
+		private boolean finished = false;
+
+		CompressingOutputStream(OutputStream out, MultivaluedMap<String, Object> headers, String encoding, int threshold, ByteArrayOutputStream capture)
+		{
+			this.out = out;
+			this.headers = headers;
+			this.encoding = encoding;
+			this.capture = capture;
+			this.buffer = new byte[threshold];
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (compressor == null)
+			{
+				if (count + len <= buffer.length)
+				{
+					System.arraycopy(b, off, buffer, count, len);
+					count += len;
+					return;
+				}
+				startCompression();
+			}
+			compressor.write(b, off, len);
+		}
+
+		private void startCompression() throws IOException
+		{
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+			headers.remove(HttpHeaders.CONTENT_LENGTH);
+			// Copies to the capture (if caching), and doesn't pass on the close of the compressor - jersey closes the response stream.
+			OutputStream target = new OutputStream()
+			{
+				@Override
+				public void write(int b) throws IOException
+				{
+					out.write(b);
+					if (capture != null)
+					{
+						capture.write(b);
+					}
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException
+				{
+					out.write(b, off, len);
+					if (capture != null)
+					{
+						capture.write(b, off, len);
+					}
+				}
+
+				@Override
+				public void flush() throws IOException
+				{
+					out.flush();
+				}
+			};
+			// sync flush, so that a flush by a streaming writer sends everything compressed so far
+			if (encoding.equals(GZIP))
+			{
+				compressor = new GZIPOutputStream(target, 8192, true)
+				{
+					{
+						// kept, so it can be released on abort
+						deflater = def;
+					}
+				};
+			}
+			else
+			{
+				deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+				compressor = new DeflaterOutputStream(target, deflater, 8192, true)
+				{
+					@Override
+					public void close() throws IOException
+					{
+						try
+						{
+							super.close();
+						}
+						finally
+						{
+							def.end();
+						}
+					}
+				};
+			}
+			compressor.write(buffer, 0, count);
+			buffer = null;
+		}
+
+		/**
+		 * A flush before the threshold is reached is ignored - the writers flush at the end of each value, which would otherwise 
+		 * commit every small response uncompressed, or compressed.
+		 */
+		@Override
+		public void flush() throws IOException
+		{
+			if (compressor != null && !finished)
+			{
+				compressor.flush();
+			}
+		}
+
+		/**
+		 * Write out anything held back, and complete the compressed data, without closing the underlying stream.
+		 */
+		void finish() throws IOException
+		{
+			if (finished)
+			{
+				return;
+			}
+			finished = true;
+			if (compressor == null)
+			{
+				// The threshold is 0 for cached responses, so even an empty cached response is compressed, and cached.
+				if (capture != null)
+				{
+					startCompression();
+				}
+				else
+				{
+					out.write(buffer, 0, count);
+					return;
+				}
+			}
+			// Completes the compressed data, and releases the native compressor
+			compressor.close();
+		}
+
+		/**
+		 * Give up on the response, releasing the native compressor (if any) without writing anything more.
+		 */
+		void abort()
+		{
+			finished = true;
+			if (deflater != null)
+			{
+				deflater.end();
+			}
+		}
+
+		boolean isCompressed()
+		{
+			return compressor != null;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			finish();
+			out.close();
+		}
+	}
+}
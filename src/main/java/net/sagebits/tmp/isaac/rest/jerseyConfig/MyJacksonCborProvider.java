@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.jerseyConfig;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
+
+/**
+ * 
+ * {@link MyJacksonCborProvider}
+ * 
+ * Reads and writes CBOR (application/cbor), a binary encoding of the same data model as JSON, for clients that don't need a human 
+ * readable format.  Any call that produces JSON will produce CBOR, when requested with an Accept header of application/cbor.  The 
+ * structure of the CBOR is identical to the JSON of the default profile of {@link MyJacksonMapperConfig} - including the '@class' 
+ * type ids - so a decoded CBOR response is equivalent to the JSON response.
+ */
+@Provider
+@Consumes(MyJacksonCborProvider.APPLICATION_CBOR)
+@Produces(MyJacksonCborProvider.APPLICATION_CBOR)
+public class MyJacksonCborProvider extends JacksonCBORProvider
+{
+	public static final String APPLICATION_CBOR = "application/cbor";
+	public static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(APPLICATION_CBOR);
+
+	private static final ObjectMapper MAPPER = MyJacksonMapperConfig.createCborMapper();
+
+	public MyJacksonCborProvider()
+	{
+		super(MAPPER);
+	}
+
+	/**
+	 * @param headers the headers of a request
+	 * @return true, if the client prefers CBOR to JSON
+	 */
+	public static boolean isPreferred(HttpHeaders headers)
+	{
+		for (MediaType mt : headers.getAcceptableMediaTypes())
+		{
+			if (mt.isCompatible(MediaType.APPLICATION_JSON_TYPE))
+			{
+				return false;
+			}
+			if (mt.isCompatible(APPLICATION_CBOR_TYPE))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the mapper used for CBOR, for code that writes a response directly
+	 */
+	public static ObjectMapper getMapper()
+	{
+		return MAPPER;
+	}
+}
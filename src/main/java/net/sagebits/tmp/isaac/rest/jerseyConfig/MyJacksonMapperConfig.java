@@ -34,15 +34,31 @@ import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.Provider;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
 
 /**
  * 
  * {@link MyJacksonMapperConfig}
+ * 
+ * Supplies the ObjectMapper used for the JSON requests and responses.  The default (pretty) profile indents the output, and writes the 
+ * full class name of each object in its '@class' property.  The compact profile, selected with json_profile=compact in 
+ * uts-rest-api.properties, writes no whitespace, omits '@class' when the class of the object is the type declared by the API, writes 
+ * the simple class name otherwise (see {@link CompactTypeResolverBuilder}), and uses afterburner generated serializers.  The compact 
+ * profile reads back what it writes, as well as requests with full class names.
+ * 
+ * CBOR responses are written by {@link MyJacksonCborProvider}, with a mapper from {@link #createCborMapper()}.
  *
  * @author <a href="mailto:daniel.armbrust.list@sagebits.net">Dan Armbrust</a>
  */
@@ -53,7 +69,7 @@ public class MyJacksonMapperConfig implements ContextResolver<ObjectMapper>
 
 	public MyJacksonMapperConfig()
 	{
-		defaultObjectMapper = createDefaultMapper();
+		defaultObjectMapper = createMapper(RestConfig.getInstance().isCompactJson());
 	}
 
 	@Override
@@ -62,22 +78,73 @@ public class MyJacksonMapperConfig implements ContextResolver<ObjectMapper>
 		return defaultObjectMapper;
 	}
 
-	private static ObjectMapper createDefaultMapper()
+	/**
+	 * @param compact true for the compact profile, false for the default (pretty) profile
+	 * @return a new mapper configured for the specified profile
+	 */
+	public static ObjectMapper createMapper(boolean compact)
 	{
 		final ObjectMapper result = new ObjectMapper();
-		result.enable(SerializationFeature.INDENT_OUTPUT);
+		if (!compact)
+		{
+			result.enable(SerializationFeature.INDENT_OUTPUT);
+		}
+		else
+		{
+			result.registerModule(new AfterburnerModule());
+		}
+		result.setSerializationInclusion(Include.NON_NULL);
+		result.setAnnotationIntrospector(createJaxbJacksonAnnotationIntrospector(compact));
+
+		return result;
+	}
+
+	/**
+	 * @return a new mapper for CBOR, which writes the same structure (and type ids) as the default JSON profile, so a CBOR response 
+	 *     decodes to the same tree as the JSON response.
+	 */
+	public static ObjectMapper createCborMapper()
+	{
+		final ObjectMapper result = new ObjectMapper(new CBORFactory());
+		result.registerModule(new AfterburnerModule());
 		result.setSerializationInclusion(Include.NON_NULL);
-		result.setAnnotationIntrospector(createJaxbJacksonAnnotationIntrospector());
+		result.setAnnotationIntrospector(createJaxbJacksonAnnotationIntrospector(false));
 
 		return result;
 	}
 
-	private static AnnotationIntrospector createJaxbJacksonAnnotationIntrospector()
+	private static AnnotationIntrospector createJaxbJacksonAnnotationIntrospector(boolean compact)
 	{
 
 		final AnnotationIntrospector jaxbIntrospector = new JaxbAnnotationIntrospector(TypeFactory.defaultInstance());
-		final AnnotationIntrospector jacksonIntrospector = new JacksonAnnotationIntrospector();
+		final AnnotationIntrospector jacksonIntrospector = compact ? new CompactTypeIntrospector() : new JacksonAnnotationIntrospector();
 
 		return AnnotationIntrospector.pair(jacksonIntrospector, jaxbIntrospector);
 	}
+
+	/**
+	 * Wraps the type handling declared by the JsonTypeInfo annotations in a {@link CompactTypeResolverBuilder}.
+	 */
+	private static class CompactTypeIntrospector extends JacksonAnnotationIntrospector
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public TypeResolverBuilder<?> findTypeResolver(MapperConfig<?> config, AnnotatedClass ac, JavaType baseType)
+		{
+			return CompactTypeResolverBuilder.wrap(super.findTypeResolver(config, ac, baseType));
+		}
+
+		@Override
+		public TypeResolverBuilder<?> findPropertyTypeResolver(MapperConfig<?> config, AnnotatedMember am, JavaType baseType)
+		{
+			return CompactTypeResolverBuilder.wrap(super.findPropertyTypeResolver(config, am, baseType));
+		}
+
+		@Override
+		public TypeResolverBuilder<?> findPropertyContentTypeResolver(MapperConfig<?> config, AnnotatedMember am, JavaType containerType)
+		{
+			return CompactTypeResolverBuilder.wrap(super.findPropertyContentTypeResolver(config, am, containerType));
+		}
+	}
 }
@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -49,6 +50,7 @@ import net.sagebits.tmp.isaac.rest.ExpandUtil;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.enumerations.RestSupportedIdType;
+import net.sagebits.tmp.isaac.rest.cache.DescriptionCache;
 import net.sagebits.tmp.isaac.rest.tokens.CoordinatesToken;
 import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
 import net.sagebits.tmp.isaac.rest.tokens.EditToken;
@@ -91,6 +93,8 @@ public class RequestInfo
 	private Map<String, List<String>> parameters_ = new HashMap<>();
 
 	private String coordinatesToken_ = null;
+	// The resolved token for coordinatesToken_, so that the many coordinate lookups during a request don't go back to the token cache.
+	private CoordinatesToken coordinatesTokenObject_ = null;
 
 	private Optional<RestUser> user_ = null;
 	private EditToken editToken_ = null;
@@ -100,6 +104,8 @@ public class RequestInfo
 
 	private EditCoordinate editCoordinate_ = null;
 
+	private DescriptionCache descriptionCache_ = null;
+
 	// just a cache
 //	private static WorkflowProvider wfp_;
 
@@ -146,6 +152,52 @@ public class RequestInfo
 		return ri;
 	}
 
+	/**
+	 * Create a copy of this request, for a worker thread that builds part of the response for this request.  The copy shares the 
+	 * parameters, user, coordinates and expansions of this request, but has its own request caches, as those are not thread safe.
+	 * @return the copy, which should be installed on the worker thread with {@link #callWith(RequestInfo, Callable)}
+	 */
+	public RequestInfo forWorker()
+	{
+		// Make sure the coordinates are resolved once, here, rather than by each worker.
+		getCoordinatesToken();
+		RequestInfo copy = new RequestInfo();
+		copy.createTime_ = createTime_;
+		copy.requestId_ = requestId_;
+		copy.parameters_ = parameters_;
+		copy.coordinatesToken_ = coordinatesToken_;
+		copy.coordinatesTokenObject_ = coordinatesTokenObject_;
+		copy.user_ = user_;
+		copy.editToken_ = editToken_;
+		copy.editCoordinate_ = editCoordinate_;
+		copy.requestedAdditionalIds_ = requestedAdditionalIds_;
+		copy.expandablesForDirectExpansion_ = expandablesForDirectExpansion_;
+		copy.returnExpandableLinks_ = returnExpandableLinks_;
+		return copy;
+	}
+
+	/**
+	 * Run the passed code with the passed request set as the request for the current thread, restoring the prior request of the thread
+	 * when the code completes.
+	 * @param ri the request to run the code with - typically, created by {@link #forWorker()}
+	 * @param code the code to run
+	 * @return the value returned by the code
+	 * @throws Exception if the code throws an exception
+	 */
+	public static <T> T callWith(RequestInfo ri, Callable<T> code) throws Exception
+	{
+		RequestInfo prior = requestInfo.get();
+		requestInfo.set(ri);
+		try
+		{
+			return code.call();
+		}
+		finally
+		{
+			requestInfo.set(prior);
+		}
+	}
+
 	public RequestInfo readExpandables(Map<String, List<String>> parameters) throws RestException
 	{
 		requestInfo.get().expandablesForDirectExpansion_ = new HashSet<>(10);
@@ -261,6 +313,7 @@ public class RequestInfo
 			{
 				log.debug("Applying CoordinatesToken {} parameter \"{}\"", RequestParameters.coordToken, token.get().getSerialized());
 				requestInfo.get().coordinatesToken_ = token.get().getSerialized();
+				requestInfo.get().coordinatesTokenObject_ = token.get();
 			}
 			else
 			{
@@ -321,6 +374,7 @@ public class RequestInfo
 						logicClassifierSeq);
 
 				requestInfo.get().coordinatesToken_ = tokenObj.getSerialized();
+				requestInfo.get().coordinatesTokenObject_ = tokenObj;
 
 				CoordinatesTokens.put(CoordinatesUtil.getCoordinateParameters(parameters), tokenObj);
 
@@ -382,7 +436,15 @@ public class RequestInfo
 	// Until we actually put workflow in, however, it won't matter..
 	public StampCoordinate getStampCoordinate()
 	{
-		return getCoordinatesToken().getManifoldCoordinate().getStampCoordinate();
+		return getCoordinatesToken().getStampCoordinate();
+	}
+
+	/**
+	 * @return the stamp coordinate as requested by the user, but with the allowed states changed to {@link Status#ACTIVE} and {@link Status#INACTIVE}
+	 */
+	public StampCoordinate getActiveInactiveStampCoordinate()
+	{
+		return getCoordinatesToken().getActiveInactiveStampCoordinate();
 	}
 
 	public boolean hasUser()
@@ -476,12 +538,12 @@ public class RequestInfo
 
 	public LanguageCoordinate getLanguageCoordinate()
 	{
-		return getCoordinatesToken().getManifoldCoordinate().getLanguageCoordinate();
+		return getCoordinatesToken().getLanguageCoordinate();
 	}
 
 	public LogicCoordinate getLogicCoordinate()
 	{
-		return getCoordinatesToken().getManifoldCoordinate().getLogicCoordinate();
+		return getCoordinatesToken().getLogicCoordinate();
 	}
 
 	public ManifoldCoordinate getManifoldCoordinate()
@@ -491,16 +553,7 @@ public class RequestInfo
 
 	public ManifoldCoordinate getManifoldCoordinate(boolean stated)
 	{
-		if (stated)
-		{
-			return getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.STATED ? getManifoldCoordinate()
-					: getManifoldCoordinate().makeCoordinateAnalog(PremiseType.STATED);
-		}
-		else // (! stated)
-		{
-			return getManifoldCoordinate().getTaxonomyPremiseType() == PremiseType.INFERRED ? getManifoldCoordinate()
-					: getManifoldCoordinate().makeCoordinateAnalog(PremiseType.INFERRED);
-		}
+		return getCoordinatesToken().getManifoldCoordinate(stated ? PremiseType.STATED : PremiseType.INFERRED);
 	}
 
 	public boolean getStated()
@@ -515,9 +568,14 @@ public class RequestInfo
 	{
 		if (coordinatesToken_ != null)
 		{
+			if (coordinatesTokenObject_ != null && coordinatesTokenObject_.getSerialized().equals(coordinatesToken_))
+			{
+				return coordinatesTokenObject_;
+			}
 			try
 			{
-				return CoordinatesTokens.getOrCreate(coordinatesToken_);
+				coordinatesTokenObject_ = CoordinatesTokens.getOrCreate(coordinatesToken_);
+				return coordinatesTokenObject_;
 			}
 			catch (Exception e)
 			{
@@ -530,6 +588,7 @@ public class RequestInfo
 		{
 			CoordinatesToken ct = CoordinatesTokens.getDefaultCoordinatesToken();
 			coordinatesToken_ = ct.getSerialized();
+			coordinatesTokenObject_ = ct;
 			return ct;
 		}
 	}
@@ -561,4 +620,16 @@ public class RequestInfo
 	{
 		return requestedAdditionalIds_;
 	}
+
+	/**
+	 * @return the description cache for the duration of this request
+	 */
+	public DescriptionCache getDescriptionCache()
+	{
+		if (descriptionCache_ == null)
+		{
+			descriptionCache_ = new DescriptionCache();
+		}
+		return descriptionCache_;
+	}
 }
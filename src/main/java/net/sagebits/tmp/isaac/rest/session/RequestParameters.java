@@ -143,6 +143,8 @@ public class RequestParameters {
 	public final static String maxPageSize = "maxPageSize";
 	public final static String maxPageSizeDefault = "10";
 	public final static Set<String> PAGINATION_PARAM_NAMES = unmodifiableSet(pageNum, maxPageSize);
+	// Only supported by some paged methods, so not part of PAGINATION_PARAM_NAMES
+	public final static String cursor = "cursor";
 	
 	public final static String assemblage = "assemblage";
 	public final static String includeDescriptions = "includeDescriptions";
@@ -256,6 +258,7 @@ public class RequestParameters {
 			includeDescriptions,
 			includeAttributes,
 			includeAllVersions,
+			cursor,
 
 			query,
 			treatAsString,
@@ -54,6 +54,13 @@ public class RestConfig
 	
 	private String authURL;
 	private boolean allowAnonRead = false;
+	private int descriptionCacheSize = 10000;
+	private int taxonomyExpansionThreads = Runtime.getRuntime().availableProcessors();
+	private long taxonomyExpansionTimeout = 30000;
+	private int typeaheadMaxQueryLength = 32;
+	private int typeaheadMinPrefixLength = 3;
+	private boolean compactJson = false;
+	private int compressionMinSize = 1024;
 	
 	private RestConfig()
 	{
@@ -97,6 +104,34 @@ public class RestConfig
 			{
 				allowAnonRead = Boolean.parseBoolean(props.getProperty("anonymous_read"));
 			}
+			if (props.getProperty("description_cache_size") != null)
+			{
+				descriptionCacheSize = Integer.parseInt(props.getProperty("description_cache_size").trim());
+			}
+			if (props.getProperty("taxonomy_expansion_threads") != null)
+			{
+				taxonomyExpansionThreads = Integer.parseInt(props.getProperty("taxonomy_expansion_threads").trim());
+			}
+			if (props.getProperty("taxonomy_expansion_timeout") != null)
+			{
+				taxonomyExpansionTimeout = Long.parseLong(props.getProperty("taxonomy_expansion_timeout").trim());
+			}
+			if (props.getProperty("typeahead_max_query_length") != null)
+			{
+				typeaheadMaxQueryLength = Integer.parseInt(props.getProperty("typeahead_max_query_length").trim());
+			}
+			if (props.getProperty("typeahead_min_prefix_length") != null)
+			{
+				typeaheadMinPrefixLength = Integer.parseInt(props.getProperty("typeahead_min_prefix_length").trim());
+			}
+			if (props.getProperty("json_profile") != null)
+			{
+				compactJson = props.getProperty("json_profile").trim().equalsIgnoreCase("compact");
+			}
+			if (props.getProperty("compression_min_size") != null)
+			{
+				compressionMinSize = Integer.parseInt(props.getProperty("compression_min_size").trim());
+			}
 		}
 		catch (Exception e)
 		{
@@ -174,4 +209,61 @@ public class RestConfig
 	{
 		return allowAnonRead;
 	}
+
+	/**
+	 * @return the max number of descriptions to cache across requests. 0 disables the cross-request cache.
+	 */
+	public int getDescriptionCacheSize()
+	{
+		return descriptionCacheSize;
+	}
+
+	/**
+	 * @return the number of threads used to build the children of a taxonomy request.  1 (or less) builds the children on the request thread.
+	 */
+	public int getTaxonomyExpansionThreads()
+	{
+		return taxonomyExpansionThreads;
+	}
+
+	/**
+	 * @return the max number of milliseconds to spend expanding the children of a taxonomy request, before returning a partial result.
+	 */
+	public long getTaxonomyExpansionTimeout()
+	{
+		return taxonomyExpansionTimeout;
+	}
+
+	/**
+	 * @return the longest query (in characters) that the typeahead search answers from the in-memory index.  Longer queries are sent to lucene.
+	 */
+	public int getTypeaheadMaxQueryLength()
+	{
+		return typeaheadMaxQueryLength;
+	}
+
+	/**
+	 * @return the shortest single word prefix that the typeahead search answers from the in-memory index.  Shorter prefixes are sent to lucene.
+	 */
+	public int getTypeaheadMinPrefixLength()
+	{
+		return typeaheadMinPrefixLength;
+	}
+
+	/**
+	 * @return true if JSON responses should be written with the compact profile (no indentation, short or omitted type ids), 
+	 *     false for the default (pretty) profile.
+	 */
+	public boolean isCompactJson()
+	{
+		return compactJson;
+	}
+
+	/**
+	 * @return the smallest response (in bytes) that is compressed, when the client accepts gzip or deflate.  Negative disables compression.
+	 */
+	public int getCompressionMinSize()
+	{
+		return compressionMinSize;
+	}
 }
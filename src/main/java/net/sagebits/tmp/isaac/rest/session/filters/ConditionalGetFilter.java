@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.session.filters;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Provider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptVersion;
+import net.sagebits.tmp.isaac.rest.cache.CommitWatcher;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.uts.auth.rest.session.AuthRequestParameters;
+
+/**
+ * 
+ * {@link ConditionalGetFilter}
+ *
+ * Handles conditional GET requests for the methods marked with {@link ConditionalGet}.  The ETag of a response is a hash of the request 
+ * path, the (sorted) query parameters, the resolved coordinates token, the requested representation (Accept and Accept-Encoding), and 
+ * the commit sequence of the datastore - so it changes when anything that could change the response does.  When the If-None-Match 
+ * header of a request matches, the request is answered with a 304 (Not Modified) before the method runs.
+ * 
+ * The commit sequence restarts at 0 with the server, so a random value chosen at startup is included as well.  The sso and edit tokens 
+ * are left out, as they don't change the content of a read, and are replaced periodically.
+ * 
+ * Priority is set after {@link Priorities#AUTHORIZATION}, so the user is authenticated and authorized for the method, and the
+ * {@link RequestInfo} is populated (by {@link RestContainerRequestFilter}), before a 304 is returned.
+ */
+@Priority(Priorities.USER)
+@Provider
+public class ConditionalGetFilter implements ContainerRequestFilter, ContainerResponseFilter
+{
+	private static Logger log = LogManager.getLogger();
+
+	private static final String ETAG_PROPERTY = ConditionalGetFilter.class.getName() + ".etag";
+	private static final String SERVER_INSTANCE = UUID.randomUUID().toString();
+
+	@Context
+	private ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext) throws IOException
+	{
+		if (!HttpMethod.GET.equals(requestContext.getMethod()) || resourceInfo.getResourceMethod() == null 
+				|| !resourceInfo.getResourceMethod().isAnnotationPresent(ConditionalGet.class))
+		{
+			return;
+		}
+
+		EntityTag etag = computeETag(requestContext);
+		requestContext.setProperty(ETAG_PROPERTY, etag);
+
+		ResponseBuilder notModified = requestContext.getRequest().evaluatePreconditions(etag);
+		if (notModified != null)
+		{
+			log.trace("{} - ETag {} matched, returning {}", RequestInfo.get().getUniqueId(), etag.getValue(), 
+					Response.Status.NOT_MODIFIED.getStatusCode());
+			requestContext.abortWith(notModified.build());
+		}
+	}
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException
+	{
+		EntityTag etag = (EntityTag) requestContext.getProperty(ETAG_PROPERTY);
+		if (etag != null && responseContext.getStatus() == Response.Status.OK.getStatusCode())
+		{
+			// A streamed body is only produced after this filter runs, and a failure part way through truncates it - so it can't be tagged 
+			// as complete.  Streamed methods shouldn't be marked with ConditionalGet, this is just a guard.
+			if (responseContext.getEntity() instanceof StreamingOutput)
+			{
+				log.debug("Not tagging the streamed response of {}", resourceInfo.getResourceMethod());
+				return;
+			}
+			// A taxonomy expansion that ran out of time may be complete on the next request, so it must not be tagged
+			if (responseContext.getEntity() instanceof RestConceptVersion 
+					&& Boolean.TRUE.equals(((RestConceptVersion) responseContext.getEntity()).childExpansionIncomplete))
+			{
+				return;
+			}
+			responseContext.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+		}
+	}
+
+	private EntityTag computeETag(ContainerRequestContext requestContext)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(SERVER_INSTANCE).append('\n');
+		// Read before anything is built - if a commit happens while the response is built, the tag is stale, rather than the content.
+		key.append(CommitWatcher.getChangeSequence()).append('\n');
+		key.append(requestContext.getUriInfo().getPath(true)).append('\n');
+
+		TreeMap<String, List<String>> sorted = new TreeMap<>(requestContext.getUriInfo().getQueryParameters());
+		sorted.remove(AuthRequestParameters.ssoToken);
+		sorted.remove(RequestParameters.editToken);
+		for (Map.Entry<String, List<String>> parameter : sorted.entrySet())
+		{
+			key.append(parameter.getKey()).append('=').append(parameter.getValue()).append('\n');
+		}
+
+		key.append(RequestInfo.get().getCoordinatesToken().getSerialized()).append('\n');
+		key.append(requestContext.getHeaderString(HttpHeaders.ACCEPT)).append('\n');
+		key.append(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+
+		try
+		{
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+			return new EntityTag(Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every JVM is required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -30,9 +30,13 @@
 
 package net.sagebits.tmp.isaac.rest.tokens;
 
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.EnumSet;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import net.sagebits.tmp.isaac.rest.ApplicationConfig;
@@ -59,6 +63,9 @@ import sh.isaac.model.coordinate.StampPositionImpl;
 /**
  * 
  * {@link CoordinatesToken}
+ * 
+ * Version 2 tokens are serialized as the base64 encoded coordinate data, followed by a '.', followed by a truncated HmacSHA256 of
+ * the data. Version 1 tokens (which were authenticated with a (slow) password hash prefix) are still accepted on read.
  *
  * @author <a href="mailto:daniel.armbrust.list@sagebits.net">Dan Armbrust</a>
  */
@@ -66,10 +73,20 @@ public class CoordinatesToken
 {
 	private static final transient Logger log = LoggerFactory.getLogger(CoordinatesToken.class);
 
-	private static final byte tokenVersion = 1;
-	private static final int hashRounds = 128;
-	private static final int hashLength = 64;
-	private static final int encodedHashLength = (int) Math.ceil(hashLength / 8f / 3f) * 4;  // http://stackoverflow.com/a/4715480
+	private static final byte tokenVersion = 2;
+	private static final String macAlgorithm = "HmacSHA256";
+	private static final int macLength = 16;  // bytes of the mac that we keep
+	private static final char macSeparator = '.';  // not part of the base64 url alphabet, so it can't occur in a version 1 token
+
+	// Mac instances aren't thread safe, and are somewhat expensive to init, so keep one per thread, along with the secret it was keyed with.
+	private static final ThreadLocal<Mac> threadMac = new ThreadLocal<>();
+	private static final ThreadLocal<byte[]> threadMacKey = new ThreadLocal<>();
+
+	// Version 1 token parameters - only used for reading old tokens
+	private static final byte legacyTokenVersion = 1;
+	private static final int legacyHashRounds = 128;
+	private static final int legacyHashLength = 64;
+	private static final int legacyEncodedHashLength = (int) Math.ceil(legacyHashLength / 8f / 3f) * 4;  // http://stackoverflow.com/a/4715480
 
 	private final long stampTime;
 	private final int stampPath;
@@ -88,10 +105,14 @@ public class CoordinatesToken
 	private final int logicDescLogicProfile;
 	private final int logicClassifier;
 
-	private transient ManifoldCoordinate manifoldCoordinate = null;
-	private transient StampCoordinate stampCoordinate = null;
-	private transient LanguageCoordinate languageCoordinate = null;
-	private transient LogicCoordinate logicCoordinate = null;
+	// The resolved coordinates are built lazily, and then memoized, as tokens are shared across requests / threads from the token cache.
+	private transient volatile ManifoldCoordinate manifoldCoordinate = null;
+	private transient volatile ManifoldCoordinate statedManifoldCoordinate = null;
+	private transient volatile ManifoldCoordinate inferredManifoldCoordinate = null;
+	private transient volatile StampCoordinate stampCoordinate = null;
+	private transient volatile StampCoordinate activeInactiveStampCoordinate = null;
+	private transient volatile LanguageCoordinate languageCoordinate = null;
+	private transient volatile LogicCoordinate logicCoordinate = null;
 
 	private final transient String serialization;
 
@@ -183,21 +204,49 @@ public class CoordinatesToken
 			serialization = encodedData;
 
 			long time = System.currentTimeMillis();
-			String readHash = serialization.substring(0, encodedHashLength);
-			String calculatedHash = PasswordHasher.hash(serialization.substring(encodedHashLength, serialization.length()).toCharArray(), ApplicationConfig.getSecret(),
-					hashRounds, hashLength);
-
-			if (!readHash.equals(calculatedHash))
+			byte[] readBytes;
+			byte expectedVersion;
+			int separator = serialization.indexOf(macSeparator);
+			if (separator >= 0)
 			{
-				throw new RestException("Invalid token!");
+				try
+				{
+					readBytes = Base64.getUrlDecoder().decode(serialization.substring(0, separator));
+					byte[] readMac = Base64.getUrlDecoder().decode(serialization.substring(separator + 1));
+					if (!MessageDigest.isEqual(readMac, calculateMac(readBytes)))
+					{
+						throw new RestException("Invalid token!");
+					}
+				}
+				catch (IllegalArgumentException e)
+				{
+					throw new RestException("Invalid token!");
+				}
+				expectedVersion = tokenVersion;
+			}
+			else
+			{
+				if (serialization.length() < legacyEncodedHashLength)
+				{
+					throw new RestException("Invalid token!");
+				}
+				String readHash = serialization.substring(0, legacyEncodedHashLength);
+				String calculatedHash = PasswordHasher.hash(serialization.substring(legacyEncodedHashLength, serialization.length()).toCharArray(),
+						ApplicationConfig.getSecret(), legacyHashRounds, legacyHashLength);
+
+				if (!readHash.equals(calculatedHash))
+				{
+					throw new RestException("Invalid token!");
+				}
+				readBytes = Base64.getUrlDecoder().decode(serialization.substring(legacyEncodedHashLength, serialization.length()));
+				expectedVersion = legacyTokenVersion;
 			}
 
-			byte[] readBytes = Base64.getUrlDecoder().decode(serialization.substring(encodedHashLength, serialization.length()));
 			ByteArrayDataBuffer buffer = new ByteArrayDataBuffer(readBytes);
 			byte version = buffer.getByte();
-			if (version != tokenVersion)
+			if (version != expectedVersion)
 			{
-				log.warn("Expected token version " + tokenVersion + " but read " + version);
+				log.warn("Expected token version " + expectedVersion + " but read " + version);
 				throw new RestException("Invalid token - old token?");
 			}
 			stampTime = buffer.getLong();
@@ -256,6 +305,35 @@ public class CoordinatesToken
 		return manifoldCoordinate;
 	}
 
+	/**
+	 * @param premiseType the taxonomy premise type that the returned coordinate should have
+	 * @return the manifold coordinate of this token, if its premise type matches, otherwise, a (memoized) analog of it with the requested premise type
+	 */
+	public ManifoldCoordinate getManifoldCoordinate(PremiseType premiseType)
+	{
+		ManifoldCoordinate mc = getManifoldCoordinate();
+		if (mc.getTaxonomyPremiseType() == premiseType)
+		{
+			return mc;
+		}
+		if (premiseType == PremiseType.STATED)
+		{
+			if (statedManifoldCoordinate == null)
+			{
+				statedManifoldCoordinate = mc.makeCoordinateAnalog(PremiseType.STATED);
+			}
+			return statedManifoldCoordinate;
+		}
+		else
+		{
+			if (inferredManifoldCoordinate == null)
+			{
+				inferredManifoldCoordinate = mc.makeCoordinateAnalog(PremiseType.INFERRED);
+			}
+			return inferredManifoldCoordinate;
+		}
+	}
+
 	public StampCoordinate getStampCoordinate()
 	{
 		if (stampCoordinate == null)
@@ -267,6 +345,20 @@ public class CoordinatesToken
 		return stampCoordinate;
 	}
 
+	/**
+	 * @return A (memoized) analog of the stamp coordinate of this token, which allows both {@link Status#ACTIVE} and {@link Status#INACTIVE}, 
+	 *     regardless of the states allowed by the token.
+	 */
+	public StampCoordinate getActiveInactiveStampCoordinate()
+	{
+		if (activeInactiveStampCoordinate == null)
+		{
+			activeInactiveStampCoordinate = getStampCoordinate().makeCoordinateAnalog(Status.ACTIVE, Status.INACTIVE);
+		}
+
+		return activeInactiveStampCoordinate;
+	}
+
 	public LanguageCoordinate getLanguageCoordinate()
 	{
 		if (languageCoordinate == null)
@@ -409,8 +501,9 @@ public class CoordinatesToken
 	{
 		try
 		{
-			String data = Base64.getUrlEncoder().encodeToString(token.getBytesToWrite());
-			return PasswordHasher.hash(data.toCharArray(), ApplicationConfig.getSecret(), hashRounds, hashLength) + data;
+			byte[] data = token.getBytesToWrite();
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(data) + macSeparator
+					+ Base64.getUrlEncoder().withoutPadding().encodeToString(calculateMac(data));
 		}
 		catch (Exception e)
 		{
@@ -418,6 +511,20 @@ public class CoordinatesToken
 		}
 	}
 
+	private static byte[] calculateMac(byte[] data) throws GeneralSecurityException
+	{
+		byte[] secret = ApplicationConfig.getSecret();
+		Mac mac = threadMac.get();
+		if (mac == null || threadMacKey.get() != secret)
+		{
+			mac = Mac.getInstance(macAlgorithm);
+			mac.init(new SecretKeySpec(secret, macAlgorithm));
+			threadMac.set(mac);
+			threadMacKey.set(secret);
+		}
+		return Arrays.copyOf(mac.doFinal(data), macLength);
+	}
+
 	private byte[] getBytesToWrite()
 	{
 		ByteArrayDataBuffer buffer = new ByteArrayDataBuffer();
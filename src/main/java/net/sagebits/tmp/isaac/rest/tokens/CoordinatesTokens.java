@@ -30,10 +30,10 @@
 
 package net.sagebits.tmp.isaac.rest.tokens;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
 import net.sagebits.tmp.isaac.rest.session.CoordinatesUtil;
 import sh.isaac.api.coordinate.LanguageCoordinate;
 import sh.isaac.api.coordinate.LogicCoordinate;
@@ -47,59 +47,20 @@ import sh.isaac.model.configuration.StampCoordinates;
 /**
  * 
  * {@link CoordinatesTokens}
+ * 
+ * Caches of parsed {@link CoordinatesToken} objects, keyed by their serialized form, and of serialized tokens keyed by the
+ * coordinate parameters that were used to create them. Every request passes through here, so these are backed by
+ * {@link StripedCache}, which doesn't serialize readers on a global lock.
  *
  * @author <a href="mailto:joel.kniaz.list@gmail.com">Joel Kniaz</a>
  *
  */
 public class CoordinatesTokens
 {
-	private final static Object OBJECT_BY_TOKEN_CACHE_LOCK = new Object();
-	private final static Object TOKEN_BY_PARAMS_CACHE_LOCK = new Object();
-
 	private static final int DEFAULT_MAX_SIZE = 1024;
-	private static CoordinatesToken defaultCoordinatesToken = null;
-	private static Map<String, CoordinatesToken> OBJECT_BY_TOKEN_CACHE = null;
-	private static Map<String, String> TOKEN_BY_PARAMS_CACHE = null;
-
-	private static void init(final int maxEntries)
-	{
-		synchronized (TOKEN_BY_PARAMS_CACHE_LOCK)
-		{
-			synchronized (OBJECT_BY_TOKEN_CACHE_LOCK)
-			{
-				if (OBJECT_BY_TOKEN_CACHE == null)
-				{
-					OBJECT_BY_TOKEN_CACHE = new LinkedHashMap<String, CoordinatesToken>(maxEntries, 0.75F, true)
-					{
-						private static final long serialVersionUID = -1236481390177598762L;
-
-						@Override
-						protected boolean removeEldestEntry(Map.Entry<String, CoordinatesToken> eldest)
-						{
-							return size() > maxEntries;
-						}
-					};
-
-					ManifoldCoordinate mc = getDefaultManifoldCoordinate();
-					defaultCoordinatesToken = CoordinatesTokens.getOrCreate(mc.getStampCoordinate(),
-							mc.getLanguageCoordinate(), mc.getLogicCoordinate(),mc.getTaxonomyPremiseType());
-				}
-			}
-			if (TOKEN_BY_PARAMS_CACHE == null)
-			{
-				TOKEN_BY_PARAMS_CACHE = new LinkedHashMap<String, String>(maxEntries, 0.75F, true)
-				{
-					private static final long serialVersionUID = -2638577900934193146L;
-
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
-					{
-						return size() > maxEntries;
-					}
-				};
-			}
-		}
-	}
+	private static volatile CoordinatesToken defaultCoordinatesToken = null;
+	private static final StripedCache<String, CoordinatesToken> OBJECT_BY_TOKEN_CACHE = new StripedCache<>("CoordinatesToken by token", DEFAULT_MAX_SIZE);
+	private static final StripedCache<String, String> TOKEN_BY_PARAMS_CACHE = new StripedCache<>("CoordinatesToken by parameters", DEFAULT_MAX_SIZE);
 
 	private static ManifoldCoordinate getDefaultManifoldCoordinate()
 	{
@@ -107,22 +68,20 @@ public class CoordinatesTokens
 				LanguageCoordinates.getUsEnglishLanguageFullySpecifiedNameCoordinate());
 	}
 
+	private static CoordinatesToken createDefaultCoordinatesToken()
+	{
+		ManifoldCoordinate mc = getDefaultManifoldCoordinate();
+		return CoordinatesTokens.getOrCreate(mc.getStampCoordinate(), mc.getLanguageCoordinate(), mc.getLogicCoordinate(), mc.getTaxonomyPremiseType());
+	}
+
 	/**
 	 * This may need to be cleared after loading new content at runtime, due to language types having dynamic expansion
 	 */
 	public static void clearCache()
 	{
-		synchronized (OBJECT_BY_TOKEN_CACHE_LOCK)
-		{
-			OBJECT_BY_TOKEN_CACHE.clear();
-		}
-		synchronized (TOKEN_BY_PARAMS_CACHE_LOCK)
-		{
-			TOKEN_BY_PARAMS_CACHE.clear();
-		}
-		defaultCoordinatesToken = CoordinatesTokens.getOrCreate(getDefaultManifoldCoordinate().getStampCoordinate(),
-				getDefaultManifoldCoordinate().getLanguageCoordinate(), getDefaultManifoldCoordinate().getLogicCoordinate(),
-				getDefaultManifoldCoordinate().getTaxonomyPremiseType());
+		OBJECT_BY_TOKEN_CACHE.clear();
+		TOKEN_BY_PARAMS_CACHE.clear();
+		defaultCoordinatesToken = createDefaultCoordinatesToken();
 	}
 	
 	/**
@@ -130,35 +89,20 @@ public class CoordinatesTokens
 	 */
 	public static CoordinatesToken getDefaultCoordinatesToken()
 	{
-		if (OBJECT_BY_TOKEN_CACHE == null)
+		if (defaultCoordinatesToken == null)
 		{
-			init(DEFAULT_MAX_SIZE);
+			synchronized (CoordinatesTokens.class)
+			{
+				if (defaultCoordinatesToken == null)
+				{
+					defaultCoordinatesToken = createDefaultCoordinatesToken();
+				}
+			}
 		}
 
 		return defaultCoordinatesToken;
 	}
 
-	/**
-	 * 
-	 * This method caches a CoordinatesToken object,
-	 * automatically serializing itself to generate its key
-	 * 
-	 * @param value CoordinatesToken object
-	 * @throws Exception
-	 */
-	private static void put(CoordinatesToken value)
-	{
-		if (OBJECT_BY_TOKEN_CACHE == null)
-		{
-			init(DEFAULT_MAX_SIZE);
-		}
-
-		synchronized (OBJECT_BY_TOKEN_CACHE_LOCK)
-		{
-			OBJECT_BY_TOKEN_CACHE.put(value.getSerialized(), value);
-		}
-	}
-
 	/**
 	 * 
 	 * This method caches a CoordinatesToken object by the provided key
@@ -170,63 +114,33 @@ public class CoordinatesTokens
 	 */
 	public static void put(Map<String, List<String>> params, CoordinatesToken value)
 	{
-		if (OBJECT_BY_TOKEN_CACHE == null)
-		{
-			init(DEFAULT_MAX_SIZE);
-		}
-		synchronized (TOKEN_BY_PARAMS_CACHE_LOCK)
-		{
-			TOKEN_BY_PARAMS_CACHE.put(CoordinatesUtil.encodeCoordinateParameters(params), value.getSerialized());
-		}
+		TOKEN_BY_PARAMS_CACHE.put(CoordinatesUtil.encodeCoordinateParameters(params), value.getSerialized());
 	}
 
 	/**
-	 * 
-	 * This method attempts to retrieve the CoordinatesToken object
-	 * corresponding to the passed serialized CoordinatesToken string key.
+	 * This method returns the CoordinatesToken object corresponding to the passed serialized CoordinatesToken string key,
+	 * parsing (and validating) the string, if it isn't already cached.
 	 * 
 	 * @param key serialized CoordinatesToken string
 	 * @return CoordinatesToken object
-	 * @throws Exception
+	 * @throws RestException if the key isn't a valid token
 	 */
-	private static CoordinatesToken get(String key)
-	{
-		if (OBJECT_BY_TOKEN_CACHE == null)
-		{
-			init(DEFAULT_MAX_SIZE);
-		}
-		synchronized (OBJECT_BY_TOKEN_CACHE_LOCK)
-		{
-			return OBJECT_BY_TOKEN_CACHE.get(key);
-		}
-	}
-
 	public static CoordinatesToken getOrCreate(String key) throws RestException
 	{
-		CoordinatesToken token = get(key);
+		CoordinatesToken token = OBJECT_BY_TOKEN_CACHE.get(key);
 
 		if (token == null)
 		{
-			token = new CoordinatesToken(key);
-			put(token);
+			token = OBJECT_BY_TOKEN_CACHE.putIfAbsent(key, new CoordinatesToken(key));
 		}
 
-		return get(key);
+		return token;
 	}
 
 	public static CoordinatesToken getOrCreate(StampCoordinate stamp, LanguageCoordinate lang, LogicCoordinate logic, PremiseType taxType)
 	{
 		CoordinatesToken constructedToken = new CoordinatesToken(stamp, lang, logic, taxType);
-
-		CoordinatesToken cachedToken = get(constructedToken.getSerialized());
-
-		if (cachedToken == null)
-		{
-			cachedToken = constructedToken;
-			put(cachedToken);
-		}
-
-		return get(cachedToken.getSerialized());
+		return OBJECT_BY_TOKEN_CACHE.putIfAbsent(constructedToken.getSerialized(), constructedToken);
 	}
 
 	public static CoordinatesToken getOrCreate(long stampTime, int stampPath, byte stampPrecedence, int[] stampModules, byte[] stampStates, int langCoord,
@@ -237,15 +151,7 @@ public class CoordinatesTokens
 		CoordinatesToken constructedToken = new CoordinatesToken(stampTime, stampPath, stampPrecedence, stampModules, stampStates, langCoord, langDialects,
 				langDescTypePrefs, taxonomyType, logicStatedAssemblage, logicInferredAssemblage, logicDescLogicProfile, logicClassifier);
 
-		CoordinatesToken cachedToken = get(constructedToken.getSerialized());
-
-		if (cachedToken == null)
-		{
-			cachedToken = constructedToken;
-			put(cachedToken);
-		}
-
-		return get(cachedToken.getSerialized());
+		return OBJECT_BY_TOKEN_CACHE.putIfAbsent(constructedToken.getSerialized(), constructedToken);
 	}
 
 	/**
@@ -253,24 +159,10 @@ public class CoordinatesTokens
 	 * by a hash of the parameters presumably used to generate the object
 	 * 
 	 * @param params parameter name to value-list map provided in UriInfo by ContainerRequestContext
-	 * @return the serialized token
+	 * @return the serialized token, or null, if no token has been cached for these parameters
 	 */
 	public static String get(Map<String, List<String>> params)
 	{
-		if (OBJECT_BY_TOKEN_CACHE == null)
-		{
-			return null;
-		}
-		else
-		{
-			synchronized (TOKEN_BY_PARAMS_CACHE_LOCK)
-			{
-				if (TOKEN_BY_PARAMS_CACHE != null)
-				{
-					return TOKEN_BY_PARAMS_CACHE.get(CoordinatesUtil.encodeCoordinateParameters(params));
-				}
-				return null;
-			}
-		}
+		return TOKEN_BY_PARAMS_CACHE.get(CoordinatesUtil.encodeCoordinateParameters(params));
 	}
 }
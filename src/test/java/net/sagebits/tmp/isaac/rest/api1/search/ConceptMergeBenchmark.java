@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.search;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.jetty.server.Server;
+import net.sagebits.tmp.isaac.rest.benchmark.BenchmarkUtil;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.index.AuthorModulePathRestriction;
+import sh.isaac.api.index.ConceptSearchResult;
+import sh.isaac.api.index.SearchResult;
+import sh.isaac.convert.mojo.turtle.TurtleImportHK2Direct;
+import sh.isaac.provider.query.lucene.indexers.DescriptionIndexer;
+
+/**
+ * {@link ConceptMergeBenchmark}
+ * 
+ * Compares merging prefix search results on concept after paging (a lucene page, then {@link DescriptionIndexer#mergeResultsOnConcept(List)}) 
+ * with collapsing on concept while the hits are collected ({@link SearchResultCache#getConceptPage(String, int, int, SearchResultCache.HitQuery)}).
+ * For the first pages of each query, it prints the distinct concepts returned per page, and the total number of hits the index had to collect 
+ * to serve those pages, and then times each approach.  Lives in the search package, as the hit cache is package private.
+ * 
+ * Pass a second argument of 'loadBeer' to import the beer ontology test data (src/test/resources/turtle) before running - the default queries 
+ * are chosen for that data.  Any further arguments replace the default queries.
+ */
+public class ConceptMergeBenchmark
+{
+	private static final String[] DEFAULT_QUERIES = new String[] {"b", "be", "ale", "s", "hop"};
+	private static final int PAGE_SIZE = 10;
+	private static final int PAGES = 3;
+	private static final int ITERATIONS = 2_000;
+
+	private static final AtomicInteger keyCounter = new AtomicInteger();
+
+	public static void main(String[] args) throws Exception
+	{
+		Server server = BenchmarkUtil.startServer(args);
+		try
+		{
+			String[] queries = DEFAULT_QUERIES;
+			if (args.length > 1 && args[1].equals("loadBeer"))
+			{
+				TurtleImportHK2Direct timd = Get.service(TurtleImportHK2Direct.class);
+				timd.configure(null, new File("src/test/resources/turtle/bevontology-0.8.ttl").toPath(), "0.8", null);
+				timd.convertContent(update -> {}, (work, total) -> {});
+				Get.indexDescriptionService().refreshQueryEngine();
+				CoordinatesTokens.clearCache();
+				// Hits aren't cached for a short time after a change, while the indexes catch up
+				Thread.sleep(11_000);
+			}
+			if (args.length > 2)
+			{
+				queries = new String[args.length - 2];
+				System.arraycopy(args, 2, queries, 0, queries.length);
+			}
+
+			RequestInfo.get().readAll(new HashMap<>(), "");
+			DescriptionIndexer indexer = LookupService.get().getService(DescriptionIndexer.class);
+
+			for (String query : queries)
+			{
+				AtomicLong collected = new AtomicLong();
+				SearchResultCache.HitQuery hitQuery = (page, pageSize) -> 
+				{
+					// lucene collects the top page * pageSize hits to return a page
+					collected.addAndGet((long) page * pageSize);
+					return indexer.query(query, true, null, null, AuthorModulePathRestriction.restrict(RequestInfo.get().getStampCoordinate()), false, 
+							(int[])null, (int[])null, page, pageSize, Long.MAX_VALUE);
+				};
+
+				StringBuilder afterPaging = new StringBuilder();
+				HashSet<Integer> concepts = new HashSet<>();
+				for (int page = 1; page <= PAGES; page++)
+				{
+					List<ConceptSearchResult> merged = indexer.mergeResultsOnConcept(hitQuery.query(page, PAGE_SIZE));
+					merged.forEach(csr -> concepts.add(csr.getConceptNid()));
+					afterPaging.append(merged.size()).append(' ');
+				}
+				System.out.println("'" + query + "' merge after paging - concepts per page: " + afterPaging + "distinct concepts: " + concepts.size() 
+						+ ", hits collected: " + collected.get());
+
+				collected.set(0);
+				StringBuilder whileCollecting = new StringBuilder();
+				String key = SearchResultCache.key("conceptMergeBenchmark" + keyCounter.incrementAndGet(), query);
+				for (int page = 1; page <= PAGES; page++)
+				{
+					whileCollecting.append(SearchResultCache.getConceptPage(key, page, PAGE_SIZE, hitQuery).hits.size()).append(' ');
+				}
+				System.out.println("'" + query + "' collapse while collecting - concepts per page: " + whileCollecting + "hits collected: " 
+						+ collected.get());
+
+				BenchmarkUtil.time("'" + query + "' merge after paging", ITERATIONS, () -> 
+				{
+					int total = 0;
+					for (int page = 1; page <= PAGES; page++)
+					{
+						total += indexer.mergeResultsOnConcept(hitQuery.query(page, PAGE_SIZE)).size();
+					}
+					return total;
+				});
+				BenchmarkUtil.time("'" + query + "' collapse while collecting", ITERATIONS, () -> 
+				{
+					// A new key for each run, so the hits are collected each time, but shared across the pages of the run, as for a client
+					String runKey = SearchResultCache.key("conceptMergeBenchmark" + keyCounter.incrementAndGet(), query);
+					int total = 0;
+					for (int page = 1; page <= PAGES; page++)
+					{
+						List<SearchResult> hits = SearchResultCache.getConceptPage(runKey, page, PAGE_SIZE, hitQuery).hits;
+						total += hits.size();
+					}
+					return total;
+				});
+			}
+		}
+		finally
+		{
+			RequestInfo.remove();
+			server.stop();
+			System.exit(0);
+		}
+	}
+}
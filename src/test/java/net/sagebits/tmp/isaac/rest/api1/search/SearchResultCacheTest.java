@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.api1.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import net.sagebits.tmp.isaac.rest.api1.search.SearchResultCache.HitQuery;
+import net.sagebits.tmp.isaac.rest.api1.search.SearchResultCache.Page;
+import sh.isaac.api.index.ComponentSearchResult;
+import sh.isaac.api.index.SearchResult;
+
+/**
+ * {@link SearchResultCacheTest}
+ * 
+ * Checks the paging, and the total and hasMore values, of the {@link SearchResultCache}, against a fake index query.  Lives in the search 
+ * package, as the hit cache is package private.
+ */
+public class SearchResultCacheTest
+{
+	private static final AtomicInteger keyCounter = new AtomicInteger();
+
+	/**
+	 * An index query over hits with the nids 1 to total, in rank order, which counts its calls.
+	 */
+	private static class FakeQuery implements HitQuery
+	{
+		private final int total;
+		private int calls = 0;
+
+		FakeQuery(int total)
+		{
+			this.total = total;
+		}
+
+		@Override
+		public List<SearchResult> query(int pageNum, int maxPageSize)
+		{
+			calls++;
+			ArrayList<SearchResult> results = new ArrayList<>();
+			for (long i = (long) (pageNum - 1) * maxPageSize; i < Math.min(total, (long) pageNum * maxPageSize); i++)
+			{
+				results.add(new ComponentSearchResult((int) i + 1, total - i));
+			}
+			return results;
+		}
+	}
+
+	/**
+	 * @return a key that no other test uses, so nothing is read from the cache of another test
+	 */
+	private static String key()
+	{
+		return "test|" + keyCounter.incrementAndGet();
+	}
+
+	private static void assertPage(Page page, int firstNid, int size, int total, boolean totalIsExact, boolean hasMore)
+	{
+		Assert.assertEquals("page size", size, page.hits.size());
+		for (int i = 0; i < size; i++)
+		{
+			Assert.assertEquals("nid at " + i, firstNid + i, page.hits.get(i).getNid());
+		}
+		Assert.assertEquals("total", total, page.total);
+		Assert.assertEquals("totalIsExact", totalIsExact, page.totalIsExact);
+		Assert.assertEquals("hasMore", hasMore, page.hasMore);
+	}
+
+	@Test
+	public void testSmallResultIsExact() throws Exception
+	{
+		String key = key();
+		FakeQuery query = new FakeQuery(37);
+		assertPage(SearchResultCache.getPage(key, 1, 10, query), 1, 10, 37, true, true);
+		assertPage(SearchResultCache.getPage(key, 3, 10, query), 21, 10, 37, true, true);
+		assertPage(SearchResultCache.getPage(key, 4, 10, query), 31, 7, 37, true, false);
+		assertPage(SearchResultCache.getPage(key, 5, 10, query), 0, 0, 37, true, false);
+		Assert.assertEquals("The later pages should be read from the cache", 1, query.calls);
+
+		// A result that fills a page exactly has no next page
+		assertPage(SearchResultCache.getPage(key(), 4, 10, new FakeQuery(40)), 31, 10, 40, true, false);
+	}
+
+	@Test
+	public void testLargeResultIsLowerBound() throws Exception
+	{
+		String key = key();
+		FakeQuery query = new FakeQuery(5000);
+		// The first block is read, so the total is a lower bound, until a block reaches the end of the hits
+		assertPage(SearchResultCache.getPage(key, 1, 10, query), 1, 10, 100, false, true);
+		assertPage(SearchResultCache.getPage(key, 10, 10, query), 91, 10, 200, false, true);
+		Assert.assertEquals(2, query.calls);
+	}
+
+	@Test
+	public void testAcrossCacheLimit() throws Exception
+	{
+		// Hits up to the cache limit are read in blocks, and cached.  Past the limit, each page is read directly.
+		String key = key();
+		FakeQuery query = new FakeQuery(1999);
+		assertPage(SearchResultCache.getPage(key, 19, 100, query), 1801, 100, 1999, true, true);
+		assertPage(SearchResultCache.getPage(key, 20, 100, query), 1901, 99, 1999, true, false);
+
+		key = key();
+		query = new FakeQuery(2550);
+		assertPage(SearchResultCache.getPage(key, 19, 100, query), 1801, 100, 2000, false, true);
+		assertPage(SearchResultCache.getPage(key, 20, 100, query), 1901, 100, 2000, false, true);
+		assertPage(SearchResultCache.getPage(key, 25, 100, query), 2401, 100, 2500, false, true);
+		assertPage(SearchResultCache.getPage(key, 26, 100, query), 2501, 50, 2550, true, false);
+
+		// A full last page is found by the look ahead
+		key = key();
+		query = new FakeQuery(2600);
+		assertPage(SearchResultCache.getPage(key, 25, 100, query), 2401, 100, 2500, false, true);
+		assertPage(SearchResultCache.getPage(key, 26, 100, query), 2501, 100, 2600, true, false);
+		assertPage(SearchResultCache.getPage(key, 27, 100, query), 2601, 0, 2600, false, false);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.eclipse.jetty.server.Server;
+import net.sagebits.tmp.isaac.rest.cache.AssociationTargetIndex;
+import net.sagebits.tmp.isaac.rest.cache.NidMultiMap;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
+import sh.isaac.api.Get;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.convert.mojo.turtle.TurtleImportHK2Direct;
+import sh.isaac.misc.associations.AssociationInstance;
+import sh.isaac.misc.associations.AssociationUtilities;
+
+/**
+ * {@link AssociationTargetIndexBenchmark}
+ * 
+ * Compares association lookups by target via a scan of the association semantics with lookups via the {@link AssociationTargetIndex}.
+ * 
+ * The first benchmark is synthetic, and doesn't need a database - it compares a scan of a large set of (association, target) pairs with a 
+ * probe of a {@link NidMultiMap} holding the same pairs.  The second runs against the database - pass a second argument of 'loadBeer' to 
+ * import the beer ontology test data (src/test/resources/turtle) before running.
+ */
+public class AssociationTargetIndexBenchmark
+{
+	private static final int SYNTHETIC_ASSOCIATIONS = 1_000_000;
+	private static final int SYNTHETIC_TARGETS = 100_000;
+
+	public static void main(String[] args) throws Exception
+	{
+		synthetic();
+
+		Server server = BenchmarkUtil.startServer(args);
+		try
+		{
+			if (args.length > 1 && args[1].equals("loadBeer"))
+			{
+				TurtleImportHK2Direct timd = Get.service(TurtleImportHK2Direct.class);
+				timd.configure(null, new File("src/test/resources/turtle/bevontology-0.8.ttl").toPath(), "0.8", null);
+				timd.convertContent(update -> {}, (work, total) -> {});
+				Get.indexDescriptionService().refreshQueryEngine();
+				CoordinatesTokens.clearCache();
+			}
+
+			System.out.println("Waiting for the association target index");
+			while (!AssociationTargetIndex.isReady())
+			{
+				Thread.sleep(100);
+			}
+
+			RequestInfo.get().readAll(new HashMap<>(), "");
+			StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+
+			List<Integer> targets = new ArrayList<>();
+			for (int associationTypeNid : AssociationUtilities.getAssociationConceptNids())
+			{
+				Get.assemblageService().getSemanticNidsFromAssemblage(associationTypeNid).stream().forEach(semanticNid -> {
+					Optional<AssociationInstance> ai = AssociationUtilities.getAssociation(semanticNid, stamp);
+					if (ai.isPresent() && ai.get().getTargetComponent().isPresent())
+					{
+						targets.add(ai.get().getTargetComponent().get().getNid());
+					}
+				});
+			}
+			System.out.println("Found " + targets.size() + " association targets");
+			if (targets.isEmpty())
+			{
+				return;
+			}
+
+			long iterations = Math.max(100, Math.min(10_000, targets.size()));
+			int[] position = new int[1];
+			BenchmarkUtil.time("target associations - scan", iterations,
+					() -> AssociationUtilities.getTargetAssociations(targets.get(position[0]++ % targets.size()), stamp));
+			BenchmarkUtil.time("target associations - index", iterations,
+					() -> AssociationTargetIndex.getTargetAssociations(targets.get(position[0]++ % targets.size()), stamp));
+		}
+		finally
+		{
+			RequestInfo.remove();
+			server.stop();
+			System.exit(0);
+		}
+	}
+
+	private static void synthetic() throws Exception
+	{
+		Random r = new Random(42);
+		int[] associationTargets = new int[SYNTHETIC_ASSOCIATIONS];
+		NidMultiMap index = new NidMultiMap(SYNTHETIC_TARGETS);
+		for (int i = 0; i < associationTargets.length; i++)
+		{
+			associationTargets[i] = Integer.MIN_VALUE + 1 + r.nextInt(SYNTHETIC_TARGETS);
+			index.put(associationTargets[i], i);
+		}
+
+		BenchmarkUtil.time("synthetic " + SYNTHETIC_ASSOCIATIONS + " associations - scan", 200, () -> {
+			int target = associationTargets[r.nextInt(associationTargets.length)];
+			List<Integer> found = new ArrayList<>();
+			for (int i = 0; i < associationTargets.length; i++)
+			{
+				if (associationTargets[i] == target)
+				{
+					found.add(i);
+				}
+			}
+			return found;
+		});
+		BenchmarkUtil.time("synthetic " + SYNTHETIC_ASSOCIATIONS + " associations - index", 1_000_000,
+				() -> index.get(associationTargets[r.nextInt(associationTargets.length)]));
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.glassfish.jersey.jetty.JettyHttpContainerFactory;
+import org.glassfish.jersey.servlet.ServletContainer;
+import net.sagebits.tmp.isaac.rest.ApplicationConfig;
+import net.sagebits.tmp.isaac.rest.LocalServerRunner;
+import sh.isaac.api.constants.SystemPropertyConstants;
+
+/**
+ * {@link BenchmarkUtil}
+ * 
+ * Helpers for the main() based micro benchmarks in this package.  These are not unit tests - they need an ISAAC database, and are intended 
+ * to be run by hand, with an argument of isaacDatabaseLocation=... in the same way as {@link LocalServerRunner}.
+ */
+public class BenchmarkUtil
+{
+	private static final URI BASE_URI = URI.create("http://0.0.0.0:8181");
+	private static volatile long sink;
+
+	private BenchmarkUtil()
+	{
+	}
+
+	/**
+	 * Start a local jetty server with the rest APIs, and wait for ISAAC to be ready.
+	 * @param args the args passed to main
+	 * @return the server, which should be stopped when the benchmark is complete
+	 * @throws Exception
+	 */
+	public static Server startServer(String[] args) throws Exception
+	{
+		if (args != null && args.length >= 1 && args[0].startsWith("isaacDatabaseLocation="))
+		{
+			System.setProperty(SystemPropertyConstants.DATA_STORE_ROOT_LOCATION_PROPERTY, args[0].substring("isaacDatabaseLocation=".length()));
+		}
+
+		ServletHolder holder = new ServletHolder(new ServletContainer(LocalServerRunner.configureJerseyServer()));
+		holder.setInitOrder(1);  // So that ApplicationConfig starts ISAAC now, rather than on the first request
+		ServletContextHandler restContext = new ServletContextHandler();
+		restContext.setContextPath("/rest/");
+		restContext.addServlet(holder, "/*");
+
+		final Server server = JettyHttpContainerFactory.createServer(BASE_URI, false);
+		server.setHandler(restContext);
+		server.start();
+
+		System.out.println("Waiting for ISAAC to start");
+		while (ApplicationConfig.getInstance() == null || !ApplicationConfig.getInstance().isIsaacReady())
+		{
+			Thread.sleep(1000);
+		}
+		System.out.println("ISAAC is ready");
+		return server;
+	}
+
+	/**
+	 * Run the passed in code for a warmup round, and then a timed round, and print the calls per second of the timed round.
+	 * @param label what to call the benchmark in the output
+	 * @param iterations how many times to call the code in each round
+	 * @param code the code to time
+	 * @return the calls per second
+	 * @throws Exception
+	 */
+	public static double time(String label, long iterations, BenchmarkCode code) throws Exception
+	{
+		for (long i = 0; i < iterations; i++)
+		{
+			consume(code.run());
+		}
+
+		long start = System.nanoTime();
+		for (long i = 0; i < iterations; i++)
+		{
+			consume(code.run());
+		}
+		long elapsed = System.nanoTime() - start;
+
+		double perSecond = iterations / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+		System.out.println(String.format("%-60s %,15.0f calls/second (%,d calls in %,d ms)", label, perSecond, iterations,
+				TimeUnit.NANOSECONDS.toMillis(elapsed)));
+		return perSecond;
+	}
+
+	/**
+	 * Keep the JIT from discarding the result of benchmarked code.
+	 * @param o
+	 */
+	public static void consume(Object o)
+	{
+		sink += System.identityHashCode(o);
+	}
+
+	@FunctionalInterface
+	public interface BenchmarkCode
+	{
+		Object run() throws Exception;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.benchmark;
+
+import java.util.HashMap;
+import org.eclipse.jetty.server.Server;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
+import sh.isaac.api.Status;
+import sh.isaac.api.coordinate.ManifoldCoordinate;
+import sh.isaac.api.coordinate.PremiseType;
+
+/**
+ * {@link CoordinateResolutionBenchmark}
+ * 
+ * Compares the cost of resolving the request coordinates the way it used to be done (a token cache lookup, and a new analog, on every call) 
+ * with the memoized coordinates now held by the request / token.
+ */
+public class CoordinateResolutionBenchmark
+{
+	private static final long ITERATIONS = 5_000_000;
+
+	public static void main(String[] args) throws Exception
+	{
+		Server server = BenchmarkUtil.startServer(args);
+		try
+		{
+			RequestInfo.get().readAll(new HashMap<>(), "");
+			String serialized = RequestInfo.get().getCoordinatesToken().getSerialized();
+
+			BenchmarkUtil.time("stamp coordinate - lookup per call", ITERATIONS,
+					() -> CoordinatesTokens.getOrCreate(serialized).getManifoldCoordinate().getStampCoordinate());
+			BenchmarkUtil.time("stamp coordinate - memoized", ITERATIONS, () -> RequestInfo.get().getStampCoordinate());
+
+			BenchmarkUtil.time("language coordinate - lookup per call", ITERATIONS,
+					() -> CoordinatesTokens.getOrCreate(serialized).getManifoldCoordinate().getLanguageCoordinate());
+			BenchmarkUtil.time("language coordinate - memoized", ITERATIONS, () -> RequestInfo.get().getLanguageCoordinate());
+
+			for (boolean stated : new boolean[] { true, false })
+			{
+				PremiseType premiseType = stated ? PremiseType.STATED : PremiseType.INFERRED;
+				BenchmarkUtil.time(premiseType + " manifold coordinate - analog per call", ITERATIONS, () -> {
+					ManifoldCoordinate mc = CoordinatesTokens.getOrCreate(serialized).getManifoldCoordinate();
+					return mc.getTaxonomyPremiseType() == premiseType ? mc : mc.makeCoordinateAnalog(premiseType);
+				});
+				BenchmarkUtil.time(premiseType + " manifold coordinate - memoized", ITERATIONS, () -> RequestInfo.get().getManifoldCoordinate(stated));
+			}
+
+			BenchmarkUtil.time("active / inactive stamp coordinate - analog per call", ITERATIONS,
+					() -> RequestInfo.get().getStampCoordinate().makeCoordinateAnalog(Status.ACTIVE, Status.INACTIVE));
+			BenchmarkUtil.time("active / inactive stamp coordinate - memoized", ITERATIONS, () -> RequestInfo.get().getActiveInactiveStampCoordinate());
+		}
+		finally
+		{
+			RequestInfo.remove();
+			server.stop();
+			System.exit(0);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.benchmark;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.eclipse.jetty.server.Server;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import net.sagebits.tmp.isaac.rest.api1.search.SearchAPIs;
+import net.sagebits.tmp.isaac.rest.api1.semantic.SemanticAPIs;
+import net.sagebits.tmp.isaac.rest.api1.taxonomy.TaxonomyAPIs;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
+import sh.isaac.api.Get;
+import sh.isaac.api.bootstrap.TermAux;
+import sh.isaac.convert.mojo.turtle.TurtleImportHK2Direct;
+
+/**
+ * {@link JsonProfileBenchmark}
+ * 
+ * Compares the size, and the serialization time, of the default (pretty) and compact JSON profiles of {@link MyJacksonMapperConfig}, on 
+ * a taxonomy tree, a page of semantics with nested semantics, and a page of search results.  The payloads are built once, and then 
+ * serialized repeatedly, so the times are for the serialization alone.  Pass a second argument of 'loadBeer' to import the beer ontology 
+ * test data (src/test/resources/turtle) before running.  A third argument replaces the default search query.
+ */
+public class JsonProfileBenchmark
+{
+	private static final int ITERATIONS = 2_000;
+
+	public static void main(String[] args) throws Exception
+	{
+		Server server = BenchmarkUtil.startServer(args);
+		try
+		{
+			String query = "be";
+			if (args.length > 1 && args[1].equals("loadBeer"))
+			{
+				TurtleImportHK2Direct timd = Get.service(TurtleImportHK2Direct.class);
+				timd.configure(null, new File("src/test/resources/turtle/bevontology-0.8.ttl").toPath(), "0.8", null);
+				timd.convertContent(update -> {}, (work, total) -> {});
+				Get.indexDescriptionService().refreshQueryEngine();
+				CoordinatesTokens.clearCache();
+			}
+			if (args.length > 2)
+			{
+				query = args[2];
+			}
+
+			Map<String, Object> payloads = new LinkedHashMap<>();
+
+			RequestInfo.get().readAll(new HashMap<>(), "");
+			payloads.put("taxonomy (childDepth 3)", new TaxonomyAPIs().getConceptVersionTaxonomy(RequestParameters.ISAAC_ROOT_UUID, 0, "false", 3, 
+					"true", "false", "false", null, null, 1, 1000, null, "false"));
+
+			payloads.put("search/prefix (100 hits)", new SearchAPIs().prefixSearch(query, 1, 100, null, "false", null, null, null));
+
+			HashMap<String, List<String>> params = new HashMap<>();
+			params.put(RequestParameters.expand, Arrays.asList("nestedSemantics,referencedDetails"));
+			RequestInfo.get().readAll(params, "");
+			payloads.put("semantic/forAssemblage (500 descriptions)", new SemanticAPIs().getForAssemblage(
+					TermAux.ENGLISH_DESCRIPTION_ASSEMBLAGE.getPrimordialUuid().toString(), 1, 500, null, "nestedSemantics,referencedDetails", "false", 
+					null, null));
+
+			ObjectMapper pretty = MyJacksonMapperConfig.createMapper(false);
+			ObjectMapper compact = MyJacksonMapperConfig.createMapper(true);
+
+			for (Entry<String, Object> payload : payloads.entrySet())
+			{
+				ObjectWriter prettyWriter = pretty.writerFor(payload.getValue().getClass());
+				ObjectWriter compactWriter = compact.writerFor(payload.getValue().getClass());
+
+				int prettyBytes = prettyWriter.writeValueAsBytes(payload.getValue()).length;
+				int compactBytes = compactWriter.writeValueAsBytes(payload.getValue()).length;
+				System.out.println(String.format("%s - pretty: %,d bytes, compact: %,d bytes (%.1f%%)", payload.getKey(), prettyBytes, compactBytes,
+						100.0 * compactBytes / prettyBytes));
+
+				double prettyPerSecond = BenchmarkUtil.time(payload.getKey() + " - pretty", ITERATIONS, () -> prettyWriter.writeValueAsBytes(payload.getValue()));
+				double compactPerSecond = BenchmarkUtil.time(payload.getKey() + " - compact", ITERATIONS, 
+						() -> compactWriter.writeValueAsBytes(payload.getValue()));
+				System.out.println(String.format("%s - pretty: %,.1f µs per response, compact: %,.1f µs per response", payload.getKey(), 
+						1_000_000 / prettyPerSecond, 1_000_000 / compactPerSecond));
+			}
+		}
+		finally
+		{
+			RequestInfo.remove();
+			server.stop();
+			System.exit(0);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import org.eclipse.jetty.server.Server;
+import net.sagebits.tmp.isaac.rest.api1.search.SearchAPIs;
+import net.sagebits.tmp.isaac.rest.cache.TypeaheadIndex;
+import net.sagebits.tmp.isaac.rest.session.RequestInfo;
+import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
+import sh.isaac.api.Get;
+import sh.isaac.api.LookupService;
+import sh.isaac.api.coordinate.StampCoordinate;
+import sh.isaac.api.index.AuthorModulePathRestriction;
+import sh.isaac.convert.mojo.turtle.TurtleImportHK2Direct;
+import sh.isaac.provider.query.lucene.indexers.DescriptionIndexer;
+
+/**
+ * {@link TypeaheadBenchmark}
+ * 
+ * Compares the latency of search/prefix (merged on concept) with search/typeahead, for a set of short queries, as typed one character at 
+ * a time.  The queries are timed at the REST method level (including building the results), and at the index level (lucene vs the 
+ * {@link TypeaheadIndex}).  Pass a second argument of 'loadBeer' to import the beer ontology test data (src/test/resources/turtle) 
+ * before running - the default queries are chosen for that data.  Any further arguments replace the default queries.
+ */
+public class TypeaheadBenchmark
+{
+	private static final String[] DEFAULT_QUERIES = new String[] {"beer", "pale ale", "stout", "lager", "wheat", "hops"};
+	private static final int RESULTS = 10;
+	private static final int ITERATIONS = 2_000;
+
+	public static void main(String[] args) throws Exception
+	{
+		Server server = BenchmarkUtil.startServer(args);
+		try
+		{
+			String[] queries = DEFAULT_QUERIES;
+			if (args.length > 1 && args[1].equals("loadBeer"))
+			{
+				TurtleImportHK2Direct timd = Get.service(TurtleImportHK2Direct.class);
+				timd.configure(null, new File("src/test/resources/turtle/bevontology-0.8.ttl").toPath(), "0.8", null);
+				timd.convertContent(update -> {}, (work, total) -> {});
+				Get.indexDescriptionService().refreshQueryEngine();
+				CoordinatesTokens.clearCache();
+			}
+			if (args.length > 2)
+			{
+				queries = new String[args.length - 2];
+				System.arraycopy(args, 2, queries, 0, queries.length);
+			}
+
+			System.out.println("Waiting for the typeahead index");
+			while (!TypeaheadIndex.isReady())
+			{
+				Thread.sleep(100);
+			}
+
+			RequestInfo.get().readAll(new HashMap<>(), "");
+			StampCoordinate stamp = RequestInfo.get().getStampCoordinate();
+			SearchAPIs searchAPIs = new SearchAPIs();
+			DescriptionIndexer indexer = LookupService.get().getService(DescriptionIndexer.class);
+
+			for (String query : queries)
+			{
+				for (int length = 1; length <= query.length(); length++)
+				{
+					String typed = query.substring(0, length);
+					if (typed.endsWith(" "))
+					{
+						continue;
+					}
+					System.out.println("'" + typed + "' - prefix returned " + searchAPIs.prefixSearch(typed, 1, RESULTS, null, "true", null, null, null)
+							.getResults().length + ", typeahead returned " + searchAPIs.typeaheadSearch(typed, RESULTS, null, null, null).getResults().length);
+					BenchmarkUtil.time("'" + typed + "' rest - prefix", ITERATIONS,
+							() -> searchAPIs.prefixSearch(typed, 1, RESULTS, null, "true", null, null, null));
+					BenchmarkUtil.time("'" + typed + "' rest - typeahead", ITERATIONS, () -> searchAPIs.typeaheadSearch(typed, RESULTS, null, null, null));
+					BenchmarkUtil.time("'" + typed + "' index - lucene", ITERATIONS, () -> indexer.mergeResultsOnConcept(indexer.query(typed, true, null, 
+							null, AuthorModulePathRestriction.restrict(stamp), false, (int[])null, (int[])null, 1, RESULTS, Long.MAX_VALUE)));
+					BenchmarkUtil.time("'" + typed + "' index - typeahead", ITERATIONS, () -> TypeaheadIndex.search(typed, RESULTS, stamp));
+				}
+			}
+		}
+		finally
+		{
+			RequestInfo.remove();
+			server.stop();
+			System.exit(0);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import net.sagebits.tmp.isaac.rest.cache.NumericColumnIndex.Column;
+import net.sagebits.tmp.isaac.rest.cache.NumericColumnIndex.ColumnBuilder;
+import net.sagebits.tmp.isaac.rest.cache.NumericColumnIndex.Slice;
+
+/**
+ * {@link NumericColumnIndexTest}
+ * 
+ * Checks the range lookups of the columns of the {@link NumericColumnIndex}.
+ */
+public class NumericColumnIndexTest
+{
+	private static final long BIG = 1L << 53;
+
+	/**
+	 * @param values the values of the column - the nid of each value is -(its index + 1)
+	 */
+	private static Column column(Number ... values)
+	{
+		ColumnBuilder builder = new ColumnBuilder();
+		for (int i = 0; i < values.length; i++)
+		{
+			builder.add(values[i], -(i + 1));
+		}
+		return builder.build();
+	}
+
+	private static void assertSlice(Slice slice, int start, int end)
+	{
+		Assert.assertEquals("start", start, slice.start);
+		Assert.assertEquals("end", end, slice.end);
+	}
+
+	@Test
+	public void testFirstAtLeastAndAbove()
+	{
+		Column c = column(5L, 1L, 3L, 3L, 7L);
+		// sorted: 1, 3, 3, 5, 7
+		Assert.assertEquals(0, c.firstAtLeast(0L));
+		Assert.assertEquals(0, c.firstAtLeast(1L));
+		Assert.assertEquals(1, c.firstAtLeast(2L));
+		Assert.assertEquals(1, c.firstAtLeast(3L));
+		Assert.assertEquals(5, c.firstAtLeast(8L));
+
+		Assert.assertEquals(0, c.firstAbove(0L));
+		Assert.assertEquals(1, c.firstAbove(1L));
+		Assert.assertEquals(3, c.firstAbove(3L));
+		Assert.assertEquals(5, c.firstAbove(7L));
+
+		// fractional bounds against a long column
+		Assert.assertEquals(1, c.firstAtLeast(2.5d));
+		Assert.assertEquals(3, c.firstAbove(3.0d));
+		Assert.assertEquals(3, c.firstAtLeast(3.5d));
+		Assert.assertEquals(0, c.firstAtLeast(Double.NEGATIVE_INFINITY));
+		Assert.assertEquals(5, c.firstAbove(1e300));
+	}
+
+	@Test
+	public void testSliceBounds()
+	{
+		Column c = column(1L, 3L, 3L, 5L, 7L);
+		assertSlice(c.slice(0, 3L, true, 3L, true), 1, 3);
+		assertSlice(c.slice(0, 3L, false, 3L, true), 3, 3);
+		assertSlice(c.slice(0, 3L, true, 5L, false), 1, 3);
+		assertSlice(c.slice(0, 3L, false, 7L, true), 3, 5);
+		assertSlice(c.slice(0, null, false, 3L, false), 0, 1);
+		assertSlice(c.slice(0, 5L, true, null, false), 3, 5);
+		assertSlice(c.slice(0, null, false, null, false), 0, 5);
+		// an empty or inverted range is empty
+		assertSlice(c.slice(0, 4L, true, 4L, true), 3, 3);
+		Slice inverted = c.slice(0, 7L, true, 1L, true);
+		Assert.assertEquals(inverted.start, inverted.end);
+	}
+
+	@Test
+	public void testLongsAreExact()
+	{
+		Column c = column(BIG, BIG + 1, BIG + 2);
+		// As doubles, BIG and BIG + 1 are equal
+		assertSlice(c.slice(0, BIG + 1, true, BIG + 1, true), 1, 2);
+		assertSlice(c.slice(0, BIG, false, BIG + 2, false), 1, 2);
+		assertSlice(c.slice(0, Long.MAX_VALUE, true, null, false), 3, 3);
+		assertSlice(c.slice(0, Long.MIN_VALUE, true, null, false), 0, 3);
+	}
+
+	@Test
+	public void testDoubleColumn()
+	{
+		Column c = column(1.5d, -0.0d, 2L, 0.0d);
+		// sorted: -0.0 and 0.0 (equal), 1.5, 2.0
+		assertSlice(c.slice(0, 0L, true, 0L, true), 0, 2);
+		assertSlice(c.slice(0, 0.0d, false, 2L, true), 2, 4);
+		assertSlice(c.slice(0, 1.5f, true, 2L, false), 2, 3);
+	}
+
+	@Test
+	public void testWithoutAndMerge()
+	{
+		Column c = column(1L, 3L, 5L);
+		// Remove the semantic with 3 (nid -2), and add its new value of 4, and a double
+		Column without = c.without(new int[] {-2});
+		Assert.assertEquals(2, without.size());
+		Assert.assertSame(c, c.without(new int[] {-9}));
+
+		ColumnBuilder added = new ColumnBuilder();
+		added.add(4L, -2);
+		Column merged = Column.merge(without, added.build());
+		Assert.assertEquals(3, merged.size());
+		assertSlice(merged.slice(0, 3L, true, 4L, true), 1, 2);
+		Assert.assertEquals(2, merged.without(new int[] {-2}).size());
+
+		added = new ColumnBuilder();
+		added.add(2.5d, -4);
+		merged = Column.merge(merged, added.build());
+		assertSlice(merged.slice(0, 2L, true, 4L, false), 1, 2);
+		assertSlice(merged.slice(0, 1L, false, null, false), 1, 4);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.jerseyConfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * {@link CompressionFilterTest}
+ * 
+ * Checks the Accept-Encoding negotiation of the {@link CompressionFilter}.
+ */
+public class CompressionFilterTest
+{
+	@Test
+	public void testNegotiate()
+	{
+		Assert.assertNull(CompressionFilter.negotiate(null));
+		Assert.assertNull(CompressionFilter.negotiate("identity"));
+		Assert.assertEquals("gzip", CompressionFilter.negotiate("gzip, deflate"));
+		Assert.assertEquals("gzip", CompressionFilter.negotiate("x-gzip"));
+		Assert.assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0.5, deflate"));
+		Assert.assertEquals("gzip", CompressionFilter.negotiate("*"));
+		Assert.assertNull(CompressionFilter.negotiate("gzip;q=0"));
+		Assert.assertNull(CompressionFilter.negotiate("*;q=0"));
+	}
+
+	@Test
+	public void testWildcardOnlyAppliesToUnnamed()
+	{
+		Assert.assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0, *"));
+		Assert.assertEquals("gzip", CompressionFilter.negotiate("deflate;q=0, *"));
+		Assert.assertNull(CompressionFilter.negotiate("gzip;q=0, deflate;q=0, *"));
+		Assert.assertEquals("deflate", CompressionFilter.negotiate("deflate, *;q=0.5"));
+		Assert.assertEquals("deflate", CompressionFilter.negotiate("*;q=0, deflate"));
+	}
+}
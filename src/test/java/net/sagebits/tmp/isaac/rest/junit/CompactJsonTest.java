@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+package net.sagebits.tmp.isaac.rest.junit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticBase;
+import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticData;
+import net.sagebits.tmp.isaac.rest.api1.data.semantic.dataTypes.RestDynamicSemanticInteger;
+import net.sagebits.tmp.isaac.rest.api1.data.semantic.dataTypes.RestDynamicSemanticString;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonMapperConfig;
+
+/**
+ * {@link CompactJsonTest}
+ * 
+ * Checks that the compact JSON profile reads back what it writes.
+ */
+public class CompactJsonTest
+{
+	private final ObjectMapper compact = MyJacksonMapperConfig.createMapper(true);
+	private final ObjectMapper pretty = MyJacksonMapperConfig.createMapper(false);
+
+	private static RestDynamicSemanticBase sample()
+	{
+		return new RestDynamicSemanticBase(new RestDynamicSemanticData[] { new RestDynamicSemanticString(0, "test"), 
+				new RestDynamicSemanticInteger(1, 5) }, true);
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		String json = compact.writeValueAsString(sample());
+		Assert.assertFalse("Full class name in " + json, json.contains(RestDynamicSemanticString.class.getName()));
+		Assert.assertTrue("No simple class name in " + json, json.contains("\"" + RestDynamicSemanticString.class.getSimpleName() + "\""));
+
+		RestDynamicSemanticBase read = compact.readValue(json, RestDynamicSemanticBase.class);
+		Assert.assertEquals(RestDynamicSemanticString.class, read.columnData[0].getClass());
+		Assert.assertEquals("test", read.columnData[0].data);
+		Assert.assertEquals(RestDynamicSemanticInteger.class, read.columnData[1].getClass());
+		Assert.assertEquals(5, read.columnData[1].data);
+		Assert.assertEquals(json, compact.writeValueAsString(read));
+	}
+
+	@Test
+	public void testOmittedTypeId() throws Exception
+	{
+		String json = compact.writeValueAsString(new RestDynamicSemanticString(2, "alone"));
+		Assert.assertFalse("Type id written for the declared type in " + json, json.contains("@class"));
+
+		RestDynamicSemanticString read = compact.readValue(json, RestDynamicSemanticString.class);
+		Assert.assertEquals("alone", read.getString());
+		Assert.assertEquals(Integer.valueOf(2), read.columnNumber);
+	}
+
+	@Test
+	public void testFullClassNamesAccepted() throws Exception
+	{
+		String json = pretty.writeValueAsString(sample());
+		Assert.assertTrue(json.contains(RestDynamicSemanticString.class.getName()));
+
+		RestDynamicSemanticBase read = compact.readValue(json, RestDynamicSemanticBase.class);
+		Assert.assertEquals(RestDynamicSemanticString.class, read.columnData[0].getClass());
+		Assert.assertEquals(RestDynamicSemanticInteger.class, read.columnData[1].getClass());
+	}
+
+	@Test(expected = Exception.class)
+	public void testAbstractTypeRequiresId() throws Exception
+	{
+		compact.readValue("{\"columnNumber\":0,\"data\":\"test\"}", RestDynamicSemanticData.class);
+	}
+}
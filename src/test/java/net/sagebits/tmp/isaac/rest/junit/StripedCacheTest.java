@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 VetsEZ Inc, Sagebits LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * Contributions from 2015-2017 where performed either by US government
+ * employees, or under US Veterans Health Administration contracts.
+ *
+ * US Veterans Health Administration contributions by government employees
+ * are work of the U.S. Government and are not subject to copyright
+ * protection in the United States. Portions contributed by government
+ * employees are USGovWork (17USC §105). Not subject to copyright.
+ * 
+ * Contribution by contractors to the US Veterans Health Administration
+ * during this period are contractually contributed under the
+ * Apache License, Version 2.0.
+ *
+ * See: https://www.usa.gov/government-works
+ */
+
+
+package net.sagebits.tmp.isaac.rest.junit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import net.sagebits.tmp.isaac.rest.cache.StripedCache;
+
+/**
+ * {@link StripedCacheTest}
+ */
+public class StripedCacheTest
+{
+	@Test
+	public void testBounded() throws Exception
+	{
+		StripedCache<Integer, String> cache = new StripedCache<>("test bounded", 100);
+		for (int i = 0; i < 10000; i++)
+		{
+			cache.put(i, "v" + i);
+		}
+		Assert.assertTrue("Cache grew to " + cache.size(), cache.size() <= cache.getMaxSize());
+		Assert.assertTrue("Nothing was evicted", cache.getEvictionCount() > 0);
+	}
+
+	@Test
+	public void testHitMiss() throws Exception
+	{
+		StripedCache<String, String> cache = new StripedCache<>("test hit miss", 100);
+		Assert.assertNull(cache.get("a"));
+		cache.put("a", "1");
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+
+		Assert.assertEquals("1", cache.putIfAbsent("a", "2"));
+		Assert.assertEquals("2", cache.computeIfAbsent("b", key -> "2"));
+		Assert.assertEquals("2", cache.computeIfAbsent("b", key -> "3"));
+
+		cache.remove("a");
+		Assert.assertNull(cache.get("a"));
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+	}
+}
@@ -69,6 +69,8 @@ public class BaseTestCode
 
 	final static String semanticSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.semanticsComponent;
 	final static String prefixSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.prefixComponent;
+	final static String typeaheadSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.typeaheadComponent;
+	final static String batchSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.batchComponent;
 	final static String byRefSearchRequestPath = RestPaths.searchAPIsPathComponent + RestPaths.forReferencedComponentComponent;
 
 	final static String conceptDescriptionsRequestPath = RestPaths.conceptAPIsPathComponent + RestPaths.descriptionsComponent;
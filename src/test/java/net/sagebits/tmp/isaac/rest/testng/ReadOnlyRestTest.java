@@ -29,39 +29,52 @@
  */
 package net.sagebits.tmp.isaac.rest.testng;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.UUID;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.xml.bind.JAXBException;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.testng.Assert;
+import org.testng.SkipException;
 import org.testng.annotations.Test;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import net.sagebits.tmp.isaac.rest.ExpandUtil;
 import net.sagebits.tmp.isaac.rest.api.data.PaginationUtils;
 import net.sagebits.tmp.isaac.rest.api.exceptions.RestException;
 import net.sagebits.tmp.isaac.rest.api1.RestPaths;
 import net.sagebits.tmp.isaac.rest.api1.data.RestCoordinatesToken;
 import net.sagebits.tmp.isaac.rest.api1.data.RestEditToken;
+import net.sagebits.tmp.isaac.rest.api1.data.RestId;
 import net.sagebits.tmp.isaac.rest.api1.data.RestSystemInfo;
 import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptChronology;
+import net.sagebits.tmp.isaac.rest.api1.data.concept.RestConceptVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestLanguageCoordinate;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestLogicCoordinate;
 import net.sagebits.tmp.isaac.rest.api1.data.coordinate.RestManifoldCoordinate;
@@ -77,25 +90,37 @@ import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticData;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestDynamicSemanticVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticDescriptionVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticLogicGraphVersion;
+import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticVersion;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.RestSemanticVersionPage;
 import net.sagebits.tmp.isaac.rest.api1.data.semantic.dataTypes.RestDynamicSemanticNid;
 import net.sagebits.tmp.isaac.rest.api1.data.systeminfo.RestIdentifiedObjectsResult;
+import net.sagebits.tmp.isaac.rest.cache.AltIdIndex;
+import net.sagebits.tmp.isaac.rest.cache.TypeaheadIndex;
+import net.sagebits.tmp.isaac.rest.jerseyConfig.MyJacksonCborProvider;
 import net.sagebits.tmp.isaac.rest.session.RequestParameters;
+import net.sagebits.tmp.isaac.rest.session.RestConfig;
 import net.sagebits.tmp.isaac.rest.tokens.CoordinatesToken;
 import net.sagebits.tmp.isaac.rest.tokens.CoordinatesTokens;
 import net.sagebits.tmp.isaac.rest.tokens.EditToken;
 import net.sagebits.uts.auth.rest.session.AuthRequestParameters;
 import sh.isaac.MetaData;
+import sh.isaac.api.Get;
+import sh.isaac.api.component.concept.ConceptChronology;
+import sh.isaac.api.component.semantic.SemanticChronology;
+import sh.isaac.api.component.semantic.version.StringVersion;
 import sh.isaac.api.constants.DynamicConstants;
 import sh.isaac.api.coordinate.ManifoldCoordinate;
 import sh.isaac.api.coordinate.PremiseType;
 import sh.isaac.api.coordinate.StampPrecedence;
 import sh.isaac.api.externalizable.IsaacObjectType;
 import sh.isaac.api.logic.NodeSemantic;
+import sh.isaac.mapping.constants.IsaacMappingConstants;
+import sh.isaac.misc.associations.AssociationUtilities;
 import sh.isaac.model.configuration.LanguageCoordinates;
 import sh.isaac.model.configuration.LogicCoordinates;
 import sh.isaac.model.configuration.ManifoldCoordinates;
 import sh.isaac.model.configuration.StampCoordinates;
+import sh.isaac.utility.Frills;
 
 /**
  * {@link ReadOnlyRestTest}
@@ -196,6 +221,120 @@ public class ReadOnlyRestTest extends BaseTestCode
 		}
 	}
 
+	/**
+	 * This test validates that reading semantics by assemblage with the nextCursor of each page returns the same items as reading by pageNum, 
+	 * that no page claims a next page that turns out to be empty, and that a cursor is rejected by a request for a different assemblage, or 
+	 * with different coordinates.
+	 */
+	@Test
+	public void testSemanticsByAssemblageCursor() throws IOException
+	{
+		WebTarget base = target(semanticByAssemblageRequestPath + DynamicConstants.get().DYNAMIC_EXTENSION_DEFINITION.getPrimordialUuid())
+				.queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable);
+		List<String> byPageNum = readAllPages(base, 3, false);
+		Assert.assertTrue(byPageNum.size() > 3, "Not enough semantics for more than one page");
+		Assert.assertEquals(readAllPages(base, 3, true), byPageNum);
+
+		String cursor = readPage(base.queryParam(RequestParameters.maxPageSize, 3)).get("paginationData").get("nextCursor").asText();
+		assertResponseStatus(target(semanticByAssemblageRequestPath + MetaData.ENGLISH_LANGUAGE____SOLOR.getPrimordialUuid())
+				.queryParam(RequestParameters.maxPageSize, 3).queryParam(RequestParameters.cursor, cursor).request()
+				.header(ACCEPT, MediaType.APPLICATION_JSON).get(), Response.Status.BAD_REQUEST.getStatusCode());
+		assertResponseStatus(base.queryParam(RequestParameters.maxPageSize, 3).queryParam(RequestParameters.cursor, cursor)
+				.queryParam(RequestParameters.time, 1).request().header(ACCEPT, MediaType.APPLICATION_JSON).get(), 
+				Response.Status.BAD_REQUEST.getStatusCode());
+	}
+
+	/**
+	 * This test validates that reading the items of a mapset with the nextCursor of each page returns the same items as reading by pageNum, 
+	 * and that a cursor is rejected with different coordinates.
+	 */
+	@Test
+	public void testMappingItemsCursor() throws IOException
+	{
+		OptionalInt mapSet = Get.assemblageService().getSemanticChronologyStream(IsaacMappingConstants.get().DYNAMIC_SEMANTIC_MAPPING_SEMANTIC_TYPE.getNid())
+				.mapToInt(sc -> sc.getReferencedComponentNid())
+				.filter(nid -> Get.assemblageService().getSemanticNidsFromAssemblage(nid).size() > 3).findFirst();
+		if (!mapSet.isPresent())
+		{
+			throw new SkipException("No mapset with more than one page of items in the test data");
+		}
+
+		WebTarget base = target(RestPaths.mappingItemsAppPathComponent + mapSet.getAsInt());
+		List<String> byPageNum = readAllPages(base, 3, false);
+		Assert.assertEquals(readAllPages(base, 3, true), byPageNum);
+
+		String cursor = readPage(base.queryParam(RequestParameters.maxPageSize, 3)).get("paginationData").get("nextCursor").asText();
+		assertResponseStatus(base.queryParam(RequestParameters.maxPageSize, 3).queryParam(RequestParameters.cursor, cursor)
+				.queryParam(RequestParameters.time, 1).request().header(ACCEPT, MediaType.APPLICATION_JSON).get(), 
+				Response.Status.BAD_REQUEST.getStatusCode());
+	}
+
+	/**
+	 * This test validates that the count of an association type matches the items read through its pages, and the exact total reported by 
+	 * the pages, and that reading the pages with the nextCursor of each page returns the same items as reading by pageNum.
+	 */
+	@Test
+	public void testAssociationsOfTypePaging() throws IOException
+	{
+		OptionalInt associationType = AssociationUtilities.getAssociationConceptNids().stream().mapToInt(nid -> nid.intValue())
+				.filter(nid -> Get.assemblageService().getSemanticNidsFromAssemblage(nid).size() > 3).findFirst();
+		if (!associationType.isPresent())
+		{
+			throw new SkipException("No association type with more than one page of associations in the test data");
+		}
+
+		final String path = RestPaths.associationAPIsPathComponent + RestPaths.associationsWithTypeComponent + associationType.getAsInt();
+		int count = readPage(target(RestPaths.associationAPIsPathComponent + RestPaths.associationsWithTypeCountComponent + associationType.getAsInt()))
+				.get("value").asInt();
+
+		List<String> byPageNum = readAllPages(target(path), 3, false);
+		Assert.assertEquals(byPageNum.size(), count, "The count doesn't match the paged items");
+		Assert.assertEquals(readAllPages(target(path), 3, true), byPageNum);
+
+		JsonNode paginationData = readPage(target(path).queryParam(RequestParameters.maxPageSize, 3)).get("paginationData");
+		Assert.assertTrue(paginationData.get("totalIsExact").asBoolean(), "The total isn't exact, after the count is known");
+		Assert.assertEquals(paginationData.get("approximateTotal").asInt(), count);
+	}
+
+	/**
+	 * @return the results of every page, each as its JSON text, read by following the nextCursor, or by incrementing pageNum, until a 
+	 *     page has no next page.  Fails if any page is empty.
+	 */
+	private List<String> readAllPages(WebTarget base, int maxPageSize, boolean byCursor) throws IOException
+	{
+		ArrayList<String> items = new ArrayList<>();
+		String cursor = null;
+		for (int pageNum = 1; ; pageNum++)
+		{
+			WebTarget target = base.queryParam(RequestParameters.maxPageSize, maxPageSize);
+			if (byCursor)
+			{
+				target = cursor == null ? target : target.queryParam(RequestParameters.cursor, cursor);
+			}
+			else
+			{
+				target = target.queryParam(RequestParameters.pageNum, pageNum);
+			}
+			JsonNode page = readPage(target);
+			Assert.assertEquals(page.get("paginationData").get("pageNum").asInt(), pageNum);
+			Assert.assertTrue(page.path("results").size() > 0, "Page " + pageNum + " is empty");
+			page.path("results").forEach(result -> items.add(result.toString()));
+
+			if (!page.get("paginationData").hasNonNull("nextUrl"))
+			{
+				Assert.assertFalse(page.get("paginationData").hasNonNull("nextCursor"), "A cursor on the last page");
+				return items;
+			}
+			cursor = page.get("paginationData").path("nextCursor").asText(null);
+			Assert.assertNotNull(cursor, "No cursor for the next page");
+		}
+	}
+
+	private JsonNode readPage(WebTarget target) throws IOException
+	{
+		return new ObjectMapper().readTree(checkFail(target.request().header(ACCEPT, MediaType.APPLICATION_JSON).get()).readEntity(String.class));
+	}
+
 	/**
 	 * This test validates that the XML serializers, description search API and pagination are working correctly
 	 */
@@ -239,6 +378,138 @@ public class ReadOnlyRestTest extends BaseTestCode
 		}
 	}
 
+	/**
+	 * This test validates that the typeahead search ranks every description that matches a short prefix, so a small page is the start of 
+	 * a larger page, and that it returns one description per concept, each matching the query, best first.
+	 */
+	@Test
+	public void testTypeaheadSearch() throws InterruptedException
+	{
+		long waitUntil = System.currentTimeMillis() + 60000;
+		while (!TypeaheadIndex.isReady() && System.currentTimeMillis() < waitUntil)
+		{
+			Thread.sleep(100);
+		}
+		Assert.assertTrue(TypeaheadIndex.isReady(), "The typeahead index was not built");
+
+		for (String query : new String[] { "d", "dynamic", "dynamic semantic a" })
+		{
+			RestSearchResult[] large = typeahead(query, 50);
+			Assert.assertTrue(large.length > 0, "No typeahead results for " + query);
+
+			HashSet<Integer> concepts = new HashSet<>();
+			String prefix = TypeaheadIndex.tokenize(query).get(TypeaheadIndex.tokenize(query).size() - 1);
+			for (int i = 0; i < large.length; i++)
+			{
+				Assert.assertTrue(concepts.add(large[i].getReferencedConcept().getIdentifiers().nid), "Duplicate concept in " + query);
+				Assert.assertTrue(TypeaheadIndex.tokenize(large[i].getMatchText()).stream().anyMatch(word -> word.startsWith(prefix)),
+						large[i].getMatchText() + " doesn't match " + query);
+				if (i > 0)
+				{
+					Assert.assertTrue(large[i - 1].getScore() >= large[i].getScore(), "Results out of order for " + query);
+				}
+			}
+
+			RestSearchResult[] small = typeahead(query, 3);
+			Assert.assertEquals(small.length, Math.min(3, large.length));
+			for (int i = 0; i < small.length; i++)
+			{
+				Assert.assertEquals(small[i].getMatchNid(), large[i].getMatchNid(), "The first page of " + query + " differs");
+			}
+		}
+		Assert.assertEquals(typeahead("zzqqxx", 10).length, 0);
+	}
+
+	/**
+	 * This test validates that a prefix search merged on concept fills each page (other than the last) with maxPageSize distinct concepts, 
+	 * and that no concept is repeated on a later page.
+	 */
+	@Test
+	public void testPrefixSearchMergeOnConceptPages() throws IOException
+	{
+		final int pageSize = 5;
+		HashSet<Integer> concepts = new HashSet<>();
+		for (int pageNum = 1; pageNum <= 10; pageNum++)
+		{
+			JsonNode page = readPage(target(prefixSearchRequestPath).queryParam(RequestParameters.query, "d")
+					.queryParam(RequestParameters.mergeOnConcept, "true").queryParam(RequestParameters.pageNum, pageNum)
+					.queryParam(RequestParameters.maxPageSize, pageSize));
+			boolean hasMore = page.get("paginationData").hasNonNull("nextUrl");
+			if (hasMore)
+			{
+				Assert.assertEquals(page.path("results").size(), pageSize, "Page " + pageNum + " isn't full");
+			}
+			for (JsonNode result : page.path("results"))
+			{
+				int matchNid = result.get("matchNid").asInt();
+				Assert.assertTrue(concepts.add(Frills.getNearestConcept(matchNid).orElse(matchNid)), "Concept repeated on page " + pageNum);
+			}
+			if (!hasMore)
+			{
+				break;
+			}
+		}
+		Assert.assertTrue(concepts.size() > pageSize, "Not enough concepts for more than one page");
+	}
+
+	private RestSearchResult[] typeahead(String query, int maxPageSize)
+	{
+		String result = checkFail(target(typeaheadSearchRequestPath).queryParam(RequestParameters.query, query)
+				.queryParam(RequestParameters.maxPageSize, maxPageSize).queryParam(RequestParameters.expand, ExpandUtil.referencedConcept)
+				.request().header(ACCEPT, MediaType.APPLICATION_XML).get()).readEntity(String.class);
+		RestSearchResult[] results = XMLUtils.unmarshalObject(RestSearchResultPage.class, result).getResults();
+		return results == null ? new RestSearchResult[0] : results;
+	}
+
+	/**
+	 * This test validates that a batch of searches, larger than the number of queries run at once, returns one result for each query, 
+	 * carrying the index of its query, and that a query that fails returns an error without failing the rest of the batch.
+	 */
+	@Test
+	public void testBatchSearch() throws IOException
+	{
+		final int badQuery = 7;
+		String[] queries = new String[40];
+		ArrayNode body = new ObjectMapper().createArrayNode();
+		for (int i = 0; i < queries.length; i++)
+		{
+			queries[i] = i == badQuery ? "dynamic AND (" : new String[] { "dynamic*", "dynamic semantic Asse*", "zzqqxx" }[i % 3];
+			body.addObject().put("query", queries[i]).put("maxPageSize", 3);
+		}
+
+		Response response = checkFail(target(batchSearchRequestPath).request().header(ACCEPT, MediaType.APPLICATION_JSON)
+				.post(Entity.json(body.toString())));
+		JsonNode results = new ObjectMapper().readTree(response.readEntity(String.class));
+		Assert.assertEquals(results.size(), queries.length);
+
+		boolean[] seen = new boolean[queries.length];
+		for (JsonNode result : results)
+		{
+			int index = result.get("index").asInt();
+			Assert.assertFalse(seen[index], "Index " + index + " returned twice");
+			seen[index] = true;
+			Assert.assertEquals(result.get("query").asText(), queries[index]);
+			if (index == badQuery)
+			{
+				Assert.assertTrue(result.hasNonNull("error"), "No error for " + result);
+				Assert.assertFalse(result.has("results"), "Results for a failed query in " + result);
+			}
+			else
+			{
+				Assert.assertFalse(result.has("error"), "Unexpected error in " + result);
+				int hits = result.get("results").path("results").size();
+				if (queries[index].equals("zzqqxx"))
+				{
+					Assert.assertEquals(hits, 0, "Unexpected results in " + result);
+				}
+				else
+				{
+					Assert.assertTrue(hits > 0 && hits <= 3, "Unexpected number of results in " + result);
+				}
+			}
+		}
+	}
+
 	/**
 	 * This test validates that both the JSON and XML serializers are working correctly with returns that contain
 	 * nested array data, and various implementation types of the dynamic semantic types.
@@ -257,6 +528,65 @@ public class ReadOnlyRestTest extends BaseTestCode
 		checkFail(response);
 	}
 
+	/**
+	 * This test validates that a batch of ids, posted as JSON or as text, is translated in input order across many chunks, as NDJSON and 
+	 * as CSV, with an error for each id that can't be translated, rather than failing the batch.
+	 */
+	@Test
+	public void testIdBatchTranslate() throws IOException
+	{
+		final String url = RestPaths.idAPIsPathComponent + RestPaths.idTranslateComponent;
+		int[] nids = Get.conceptService().getConceptNidStream().limit(2500).toArray();
+		String[] ids = new String[nids.length];
+		String[] expected = new String[nids.length];
+		for (int i = 0; i < nids.length; i++)
+		{
+			// Not a uuid or a nid, so can't be translated without an inputType
+			ids[i] = i % 97 == 0 ? "notAnId" + i : nids[i] + "";
+			expected[i] = i % 97 == 0 ? null : Get.identifierService().getUuidPrimordialForNid(nids[i]).toString();
+		}
+
+		Response response = checkFail(target(url).request().header(ACCEPT, "application/x-ndjson")
+				.post(Entity.json(new ObjectMapper().writeValueAsString(ids))));
+		Assert.assertEquals(response.getMediaType().toString(), "application/x-ndjson");
+		String[] lines = response.readEntity(String.class).split("\n");
+		Assert.assertEquals(lines.length, ids.length);
+		for (int i = 0; i < lines.length; i++)
+		{
+			JsonNode row = new ObjectMapper().readTree(lines[i]);
+			Assert.assertEquals(row.get("input").asText(), ids[i], "Out of order at " + i);
+			if (expected[i] == null)
+			{
+				Assert.assertTrue(row.hasNonNull("error") && !row.has("output"), "Expected an error in " + lines[i]);
+			}
+			else
+			{
+				Assert.assertEquals(row.path("output").asText(), expected[i]);
+				Assert.assertFalse(row.has("error"), "Unexpected error in " + lines[i]);
+			}
+		}
+
+		// Blank lines in a text body are ignored
+		response = checkFail(target(url).request().header(ACCEPT, "text/csv")
+				.post(Entity.entity(String.join("\n\n", ids) + "\r\n", MediaType.TEXT_PLAIN)));
+		Assert.assertTrue(response.getMediaType().toString().startsWith("text/csv"), "Unexpected type " + response.getMediaType());
+		lines = response.readEntity(String.class).split("\r\n");
+		Assert.assertEquals(lines.length, ids.length + 1);
+		Assert.assertEquals(lines[0], "input,output,error");
+		for (int i = 0; i < ids.length; i++)
+		{
+			if (expected[i] == null)
+			{
+				Assert.assertTrue(lines[i + 1].startsWith(ids[i] + ",,") && lines[i + 1].length() > ids[i].length() + 2, 
+						"Expected an error in " + lines[i + 1]);
+			}
+			else
+			{
+				Assert.assertEquals(lines[i + 1], ids[i] + "," + expected[i] + ",");
+			}
+		}
+	}
+
 	@Test
 	public void testReferencedDetailsExpansion()
 	{
@@ -341,6 +671,65 @@ public class ReadOnlyRestTest extends BaseTestCode
 		Assert.assertTrue(foundGeneratedUuidConcept);
 	}
 
+	/**
+	 * This test validates that alternate identifiers are found by search/id and translate, and that the index answers the same as the 
+	 * lucene lookup that is used before it is built.
+	 */
+	@Test
+	public void testAltIdLookup() throws InterruptedException
+	{
+		long waitUntil = System.currentTimeMillis() + 60000;
+		while (!AltIdIndex.isReady() && System.currentTimeMillis() < waitUntil)
+		{
+			Thread.sleep(100);
+		}
+		Assert.assertTrue(AltIdIndex.isReady(), "The alternate id index was not built");
+
+		int assemblageNid = 0;
+		int componentNid = 0;
+		String code = null;
+		for (ConceptChronology cc : Frills.getIdentifierAssemblages())
+		{
+			OptionalInt semanticNid = Get.assemblageService().getSemanticNidsFromAssemblage(cc.getNid()).stream().findFirst();
+			if (semanticNid.isPresent())
+			{
+				SemanticChronology sc = Get.assemblageService().getSemanticChronology(semanticNid.getAsInt());
+				if (sc.getVersionList().get(0) instanceof StringVersion)
+				{
+					assemblageNid = cc.getNid();
+					componentNid = sc.getReferencedComponentNid();
+					code = ((StringVersion) sc.getVersionList().get(0)).getString();
+					break;
+				}
+			}
+		}
+		if (code == null)
+		{
+			throw new SkipException("No alternate identifiers in the test data");
+		}
+
+		Assert.assertEquals(new HashSet<>(AltIdIndex.getNids(assemblageNid, code)), new HashSet<>(Frills.getNidForAltId(assemblageNid, code)));
+		Assert.assertTrue(AltIdIndex.getNids(assemblageNid, code).contains(componentNid));
+
+		String result = checkFail(target(RestPaths.searchAPIsPathComponent + RestPaths.idComponent).queryParam(RequestParameters.query, code)
+				.request().header(ACCEPT, MediaType.APPLICATION_XML).get()).readEntity(String.class);
+		RestSearchResult[] results = XMLUtils.unmarshalObject(RestSearchResultPage.class, result).getResults();
+		Assert.assertNotNull(results, "No id search results for " + code);
+		final int expectedNid = componentNid;
+		Assert.assertTrue(Arrays.stream(results).anyMatch(r -> r.getMatchNid() == expectedNid), "Id search for " + code + " didn't find " + expectedNid);
+
+		result = checkFail(target(RestPaths.searchAPIsPathComponent + RestPaths.idComponent).queryParam(RequestParameters.query, code + "-no-such-id")
+				.request().header(ACCEPT, MediaType.APPLICATION_XML).get()).readEntity(String.class);
+		results = XMLUtils.unmarshalObject(RestSearchResultPage.class, result).getResults();
+		Assert.assertTrue(results == null || results.length == 0);
+
+		Response response = target(RestPaths.idAPIsPathComponent + RestPaths.idTranslateComponent + code)
+				.queryParam(RequestParameters.inputType, assemblageNid).queryParam(RequestParameters.outputType, IdType.NID.getDisplayName())
+				.request().header(ACCEPT, MediaType.APPLICATION_XML).get();
+		RestId restId = XMLUtils.unmarshalObject(RestId.class, checkFail(response).readEntity(String.class));
+		Assert.assertEquals(Integer.parseInt(restId.value), AltIdIndex.getNids(assemblageNid, code).get(0).intValue());
+	}
+
 	/**
 	 * This test validates that both the JSON and XML serializers are working correctly with returns that contain
 	 * concept data.
@@ -472,6 +861,134 @@ public class ReadOnlyRestTest extends BaseTestCode
 		checkFail(response);
 	}
 
+	/**
+	 * This test validates that the CBOR responses decode to the same content as the JSON responses, for concepts, semantics 
+	 * and search results.
+	 */
+	@Test
+	public void testCborReturn() throws IOException, ClassNotFoundException
+	{
+		int semanticNid = Get.assemblageService().getSemanticNidsFromAssemblage(DynamicConstants.get().DYNAMIC_EXTENSION_DEFINITION.getNid())
+				.stream().findFirst().getAsInt();
+
+		assertCborMatchesJson(target(conceptVersionRequestPath + DynamicConstants.get().DYNAMIC_EXTENSION_DEFINITION.getPrimordialUuid().toString())
+				.queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable), RestConceptVersion.class);
+		assertCborMatchesJson(target(RestPaths.semanticAPIsPathComponent + RestPaths.versionComponent + semanticNid)
+				.queryParam(RequestParameters.expand, ExpandUtil.chronologyExpandable + "," + ExpandUtil.nestedSemanticsExpandable), 
+				RestSemanticVersion.class);
+		assertCborMatchesJson(target(prefixSearchRequestPath).queryParam(RequestParameters.query, "dynamic")
+				.queryParam(RequestParameters.expand, ExpandUtil.uuid), RestSearchResultPage.class);
+	}
+
+	/**
+	 * This test validates that a read tagged with an ETag returns a 304 when requested again with the tag, and the full response 
+	 * when the representation differs.
+	 */
+	@Test
+	public void testConditionalGet()
+	{
+		final String url = conceptVersionRequestPath + DynamicConstants.get().DYNAMIC_EXTENSION_DEFINITION.getPrimordialUuid().toString();
+
+		Response response = checkFail(target(url).request().header(ACCEPT, MediaType.APPLICATION_JSON).get());
+		String etag = response.getHeaderString(HttpHeaders.ETAG);
+		Assert.assertNotNull(etag, "No ETag on the concept version response");
+		response.readEntity(String.class);
+
+		response = target(url).request().header(ACCEPT, MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag).get();
+		assertResponseStatus(response, Response.Status.NOT_MODIFIED.getStatusCode());
+
+		response = checkFail(target(url).request().header(ACCEPT, MediaType.APPLICATION_XML).header(HttpHeaders.IF_NONE_MATCH, etag).get());
+		Assert.assertNotEquals(response.getHeaderString(HttpHeaders.ETAG), etag);
+		response.readEntity(String.class);
+
+		// A streamed response is not tagged
+		response = checkFail(target(semanticByReferencedComponentRequestPath + DynamicConstants.get().DYNAMIC_EXTENSION_DEFINITION.getPrimordialUuid())
+				.request().header(ACCEPT, MediaType.APPLICATION_JSON).get());
+		Assert.assertNull(response.getHeaderString(HttpHeaders.ETAG), "ETag on a streamed response");
+		response.readEntity(String.class);
+	}
+
+	/**
+	 * This test validates that responses under the compression threshold are sent as is, that larger ones are compressed, and that the 
+	 * compressed bytes of a {@link net.sagebits.tmp.isaac.rest.jerseyConfig.CacheCompressed} method are compressed regardless of size, 
+	 * and sent again from the cache.
+	 */
+	@Test
+	public void testCompression() throws IOException
+	{
+		final int minSize = RestConfig.getInstance().getCompressionMinSize();
+		if (minSize < 0)
+		{
+			throw new SkipException("Compression is disabled");
+		}
+
+		byte[] small = assertCompression(target(descriptionSearchRequestPath).queryParam(RequestParameters.query, "zzqqxx"), minSize);
+		Assert.assertTrue(small.length < minSize, "The small response isn't under the threshold");
+		byte[] large = assertCompression(target(descriptionSearchRequestPath).queryParam(RequestParameters.query, "dynamic*")
+				.queryParam(RequestParameters.maxPageSize, 100).queryParam(RequestParameters.expand, ExpandUtil.uuid + "," + ExpandUtil.referencedConcept), 
+				minSize);
+		Assert.assertTrue(large.length >= minSize, "The large response isn't over the threshold");
+
+		WebTarget cached = target(RestPaths.systemAPIsPathComponent + RestPaths.enumerationRestDynamicSemanticDataTypeComponent);
+		byte[] plain = checkFail(cached.request().header(ACCEPT, MediaType.APPLICATION_JSON).get()).readEntity(byte[].class);
+		for (String encoding : new String[] { "gzip", "deflate" })
+		{
+			Response response = checkFail(cached.request().header(ACCEPT, MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, encoding).get());
+			Assert.assertEquals(response.getHeaderString(HttpHeaders.CONTENT_ENCODING), encoding);
+			byte[] first = response.readEntity(byte[].class);
+			response = checkFail(cached.request().header(ACCEPT, MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, encoding).get());
+			Assert.assertEquals(response.getHeaderString(HttpHeaders.CONTENT_ENCODING), encoding);
+			Assert.assertEquals(response.readEntity(byte[].class), first, "The cached " + encoding + " response differs");
+			Assert.assertEquals(decompress(first, encoding), plain);
+		}
+	}
+
+	/**
+	 * @return the uncompressed response, after checking that the gzip response is compressed only when it is at least minSize bytes
+	 */
+	private byte[] assertCompression(WebTarget target, int minSize) throws IOException
+	{
+		byte[] plain = checkFail(target.request().header(ACCEPT, MediaType.APPLICATION_JSON).get()).readEntity(byte[].class);
+		Response response = checkFail(target.request().header(ACCEPT, MediaType.APPLICATION_JSON).header(HttpHeaders.ACCEPT_ENCODING, "gzip").get());
+		byte[] body = response.readEntity(byte[].class);
+		if (plain.length < minSize)
+		{
+			Assert.assertNull(response.getHeaderString(HttpHeaders.CONTENT_ENCODING), "A response under the threshold was compressed");
+			Assert.assertEquals(body, plain);
+		}
+		else
+		{
+			Assert.assertEquals(response.getHeaderString(HttpHeaders.CONTENT_ENCODING), "gzip");
+			Assert.assertEquals(decompress(body, "gzip"), plain);
+		}
+		Assert.assertTrue(response.getHeaderString(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING), "No Vary header");
+		return plain;
+	}
+
+	private byte[] decompress(byte[] compressed, String encoding) throws IOException
+	{
+		try (InputStream is = encoding.equals("gzip") ? new GZIPInputStream(new ByteArrayInputStream(compressed)) 
+				: new InflaterInputStream(new ByteArrayInputStream(compressed)))
+		{
+			return IOUtils.toByteArray(is);
+		}
+	}
+
+	private void assertCborMatchesJson(WebTarget target, Class<?> type) throws IOException, ClassNotFoundException
+	{
+		Response response = checkFail(target.request().header(ACCEPT, MediaType.APPLICATION_JSON).get());
+		JsonNode json = new ObjectMapper().readTree(response.readEntity(String.class));
+
+		response = checkFail(target.request().header(ACCEPT, MyJacksonCborProvider.APPLICATION_CBOR).get());
+		Assert.assertEquals(response.getMediaType(), MyJacksonCborProvider.APPLICATION_CBOR_TYPE);
+		JsonNode cbor = new ObjectMapper(new CBORFactory()).readTree(response.readEntity(byte[].class));
+
+		Assert.assertTrue(type.isAssignableFrom(Class.forName(cbor.get("@class").asText())), "unexpected type in " + cbor);
+		// CBOR keeps floats as floats, while JSON text parses back as a double, so numbers are compared by their text
+		Assert.assertTrue(json.equals((a, b) -> (a.isNumber() && b.isNumber()) ? a.asText().compareTo(b.asText()) : (a.equals(b) ? 0 : 1), cbor), 
+				"CBOR " + cbor + " does not match JSON " + json);
+	}
+
 	@Test
 	public void testSearchAssemblageRestriction1()
 	{